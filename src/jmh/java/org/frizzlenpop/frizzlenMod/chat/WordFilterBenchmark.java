@@ -0,0 +1,100 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Masks chat messages with {@link WordFilter} and with the per-word regex replacement that
+ * ChatManager.filterMessage used before, which compiled a {@code \b}-bounded pattern for
+ * every word on every message. Messages are random words, some of them blacklisted.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class WordFilterBenchmark {
+    
+    @Param({"10", "100", "1000"})
+    private int words;
+    
+    // Chance that a word of a message is blacklisted, in percent
+    @Param({"5"})
+    private int hitPercent;
+    
+    private static final int MESSAGES = 256;
+    private static final int WORDS_PER_MESSAGE = 12;
+    
+    private List<String> blacklist;
+    private WordFilter filter;
+    private String[] messages;
+    private int next;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        blacklist = new ArrayList<>();
+        for (int i = 0; i < words; i++) {
+            blacklist.add(randomWord(random, 4 + random.nextInt(6)));
+        }
+        filter = WordFilter.compile(blacklist);
+        
+        messages = new String[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            StringBuilder message = new StringBuilder();
+            for (int j = 0; j < WORDS_PER_MESSAGE; j++) {
+                if (j > 0) {
+                    message.append(' ');
+                }
+                if (random.nextInt(100) < hitPercent) {
+                    String word = blacklist.get(random.nextInt(blacklist.size()));
+                    message.append(random.nextBoolean() ? word : word.toUpperCase());
+                } else {
+                    message.append(randomWord(random, 2 + random.nextInt(8)));
+                }
+            }
+            messages[i] = message.toString();
+        }
+    }
+    
+    private static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+    
+    private String nextMessage() {
+        String message = messages[next];
+        next = (next + 1) % MESSAGES;
+        return message;
+    }
+    
+    @Benchmark
+    public String automaton() {
+        return filter.mask(nextMessage());
+    }
+    
+    @Benchmark
+    public String regexPerWord() {
+        String filteredMessage = nextMessage();
+        for (String word : blacklist) {
+            Pattern pattern = Pattern.compile("\\b" + Pattern.quote(word) + "\\b", Pattern.CASE_INSENSITIVE);
+            Matcher matcher = pattern.matcher(filteredMessage);
+            filteredMessage = matcher.replaceAll("*".repeat(word.length()));
+        }
+        return filteredMessage;
+    }
+}
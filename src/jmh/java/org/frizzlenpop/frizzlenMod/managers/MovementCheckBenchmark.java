@@ -0,0 +1,216 @@
+package org.frizzlenpop.frizzlenMod.managers;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.frizzlenpop.frizzlenMod.jail.RadiusRegion;
+import org.frizzlenpop.frizzlenMod.jail.RegionIndex;
+import org.frizzlenpop.frizzlenMod.listeners.PlayerMovementListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs PlayerMovementListener.onPlayerMove on move events of a full server. The listener
+ * looks players up in a state map and the jail areas in a {@link RegionIndex} of radius
+ * regions, the same structures the managers keep. Players and worlds are proxies, so
+ * teleports and notifications cost a call and send nothing.
+ * <ul>
+ *   <li>rotation: players only turn their head, the first early exit</li>
+ *   <li>move: every player takes a step, most of them are unrestricted</li>
+ *   <li>jailedStep: jailed players step into the next block inside their jail, the full
+ *   path with the region lookup</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class MovementCheckBenchmark {
+    
+    @Param({"200"})
+    private int players;
+    
+    // Number of players that are frozen and jailed each
+    @Param({"2"})
+    private int restricted;
+    
+    private static final String JAIL = "jail";
+    private static final double JAIL_RADIUS = 10;
+    
+    // Locations only keep a weak reference to their world
+    private World world;
+    private PlayerMovementListener listener;
+    private PlayerMoveEvent[] rotations;
+    private PlayerMoveEvent[] moves;
+    private PlayerMoveEvent[] jailedSteps;
+    private int next;
+    
+    @Setup
+    public void setup() {
+        world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] {World.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return "world";
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return 0;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        Location jailLocation = new Location(world, 0, 64, 0);
+        
+        BenchmarkLookups lookups = new BenchmarkLookups();
+        lookups.jails.put(JAIL, jailLocation);
+        lookups.regionIndex = RegionIndex.build(List.of(new RadiusRegion(JAIL, "world",
+                jailLocation.getBlockX(), jailLocation.getBlockY(), jailLocation.getBlockZ(), JAIL_RADIUS)));
+        listener = new PlayerMovementListener(lookups);
+        
+        rotations = new PlayerMoveEvent[players];
+        moves = new PlayerMoveEvent[players];
+        jailedSteps = new PlayerMoveEvent[restricted];
+        for (int i = 0; i < players; i++) {
+            UUID uuid = UUID.randomUUID();
+            Player player = player(uuid);
+            
+            int flags = 0;
+            if (i < restricted) {
+                flags |= PlayerState.FROZEN;
+            } else if (i < restricted * 2) {
+                flags |= PlayerState.JAILED;
+                lookups.jailedPlayers.put(uuid, JAIL);
+            }
+            lookups.states.put(uuid, new PlayerState(flags));
+            
+            // Jailed players stand near the jail point, everyone else spread out elsewhere
+            boolean jailed = (flags & PlayerState.JAILED) != 0;
+            double x = jailed ? 0.5 : 100 + i * 3;
+            double z = jailed ? 0.5 + (i - restricted) : 100;
+            Location from = new Location(world, x, 64, z, 0, 0);
+            rotations[i] = new PlayerMoveEvent(player, from, new Location(world, x, 64, z, 90, 10));
+            moves[i] = new PlayerMoveEvent(player, from, new Location(world, x + 0.3, 64, z, 0, 0));
+            if (jailed) {
+                jailedSteps[i - restricted] = new PlayerMoveEvent(player, from, new Location(world, x + 1, 64, z, 0, 0));
+            }
+        }
+    }
+    
+    private static Player player(UUID uuid) {
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[] {Player.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getUniqueId":
+                            return uuid;
+                        case "teleport":
+                            return true;
+                        case "sendMessage":
+                        case "sendActionBar":
+                            return null;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return uuid.hashCode();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+    
+    private PlayerMoveEvent nextEvent(PlayerMoveEvent[] events) {
+        if (next >= events.length) {
+            next = 0;
+        }
+        return events[next++];
+    }
+    
+    @Benchmark
+    public boolean rotation() {
+        PlayerMoveEvent event = nextEvent(rotations);
+        listener.onPlayerMove(event);
+        return event.isCancelled();
+    }
+    
+    @Benchmark
+    public boolean move() {
+        PlayerMoveEvent event = nextEvent(moves);
+        listener.onPlayerMove(event);
+        return event.isCancelled();
+    }
+    
+    @Benchmark
+    public boolean jailedStep() {
+        PlayerMoveEvent event = nextEvent(jailedSteps);
+        listener.onPlayerMove(event);
+        return event.isCancelled();
+    }
+    
+    /**
+     * The lookups of PlayerStateManager and JailManager, which need a running server to be
+     * created: a concurrent state map, the enforcement counters, the jailed players and the
+     * region index
+     */
+    private static final class BenchmarkLookups implements PlayerMovementListener.Lookups {
+        private final Map<UUID, PlayerState> states = new ConcurrentHashMap<>();
+        private final LongAdder enforcementEvents = new LongAdder();
+        private final LongAdder unrestrictedEvents = new LongAdder();
+        private final Map<UUID, String> jailedPlayers = new HashMap<>();
+        private final Map<String, Location> jails = new HashMap<>();
+        private RegionIndex regionIndex = RegionIndex.empty();
+        
+        @Override
+        public PlayerState getState(UUID playerUUID) {
+            return states.get(playerUUID);
+        }
+        
+        @Override
+        public void recordEnforcementEvent(boolean restricted) {
+            enforcementEvents.increment();
+            if (!restricted) {
+                unrestrictedEvents.increment();
+            }
+        }
+        
+        @Override
+        public boolean isInJailArea(UUID playerUUID, Location location) {
+            String jailName = jailedPlayers.get(playerUUID);
+            return jailName != null && find(location, jailName);
+        }
+        
+        @Override
+        public boolean isLocationInJail(Location location) {
+            return find(location, null);
+        }
+        
+        @Override
+        public String getPlayerJail(UUID playerUUID) {
+            return jailedPlayers.get(playerUUID);
+        }
+        
+        @Override
+        public Location getJailLocation(String jailName) {
+            return jails.get(jailName.toLowerCase());
+        }
+        
+        private boolean find(Location location, String jailName) {
+            return location.getWorld() != null && regionIndex.find(location.getWorld().getName(),
+                    location.getBlockX(), location.getBlockY(), location.getBlockZ(), jailName) != null;
+        }
+    }
+}
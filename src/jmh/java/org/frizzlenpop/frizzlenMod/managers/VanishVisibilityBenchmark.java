@@ -0,0 +1,177 @@
+package org.frizzlenpop.frizzlenMod.managers;
+
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The visibility work of vanish with a full server. The sweep is one run of the timer that
+ * VanishManager used to run every 10 seconds, calling updateVisibility for every player,
+ * kept here as the baseline since that code is gone. The toggle and the join call
+ * VanishManager itself, with an environment that lists the proxy players and saves nothing.
+ * Players are proxies that only count the calls, so the times are the plugin side plus a
+ * small fixed cost per Bukkit call; on a server every hide and show also sends packets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class VanishVisibilityBenchmark {
+    
+    @Param({"500"})
+    private int players;
+    
+    @Param({"5"})
+    private int vanished;
+    
+    // Players with the permission to see vanished players
+    @Param({"10"})
+    private int viewers;
+    
+    private List<Player> online;
+    private Map<UUID, Player> byUUID;
+    private Set<UUID> vanishedPlayers;
+    private Set<UUID> viewerUUIDs;
+    private PermissionAudience audience;
+    private VanishManager vanishManager;
+    private Player toggled;
+    private Player joined;
+    private long calls;
+    
+    @Setup
+    public void setup() {
+        online = new ArrayList<>();
+        byUUID = new HashMap<>();
+        vanishedPlayers = new HashSet<>();
+        viewerUUIDs = new HashSet<>();
+        audience = new PermissionAudience(VanishManager.SEE_PERMISSION);
+        
+        for (int i = 0; i < players; i++) {
+            UUID uuid = UUID.randomUUID();
+            if (i < viewers) {
+                viewerUUIDs.add(uuid);
+            } else if (i < viewers + vanished) {
+                vanishedPlayers.add(uuid);
+            }
+            
+            Player player = player(uuid);
+            online.add(player);
+            byUUID.put(uuid, player);
+            audience.update(player);
+        }
+        
+        toggled = online.get(players - 1);
+        joined = online.get(players - 2);
+        
+        vanishManager = new VanishManager(null, audience, new VanishManager.Environment() {
+            @Override
+            public Collection<? extends Player> getOnlinePlayers() {
+                return online;
+            }
+            
+            @Override
+            public Player getPlayer(UUID playerUUID) {
+                return byUUID.get(playerUUID);
+            }
+            
+            @Override
+            public void vanishChanged(UUID playerUUID, boolean vanished, Set<UUID> vanishedPlayers) {
+                // The state flag and the save are not part of the visibility work
+            }
+        });
+        for (UUID vanishedUUID : vanishedPlayers) {
+            vanishManager.vanishPlayer(byUUID.get(vanishedUUID));
+        }
+    }
+    
+    private Player player(UUID uuid) {
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[] {Player.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getUniqueId":
+                            return uuid;
+                        case "hasPermission":
+                            calls++;
+                            return viewerUUIDs.contains(uuid);
+                        case "hidePlayer":
+                        case "showPlayer":
+                            calls++;
+                            return null;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return uuid.hashCode();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+    
+    /**
+     * One run of the old 10 second timer, about 2 * players^2 Bukkit calls
+     */
+    @Benchmark
+    public long sweep() {
+        for (Player player : online) {
+            boolean isVanished = vanishedPlayers.contains(player.getUniqueId());
+            
+            for (Player otherPlayer : online) {
+                if (player.equals(otherPlayer)) continue;
+                
+                if (isVanished) {
+                    if (otherPlayer.hasPermission(VanishManager.SEE_PERMISSION)) {
+                        otherPlayer.showPlayer(null, player);
+                    } else {
+                        otherPlayer.hidePlayer(null, player);
+                    }
+                } else {
+                    otherPlayer.showPlayer(null, player);
+                }
+                
+                if (vanishedPlayers.contains(otherPlayer.getUniqueId()) && !player.hasPermission(VanishManager.SEE_PERMISSION)) {
+                    player.hidePlayer(null, otherPlayer);
+                } else {
+                    player.showPlayer(null, otherPlayer);
+                }
+            }
+        }
+        return calls;
+    }
+    
+    /**
+     * VanishManager.vanishPlayer and unvanishPlayer, one hide and one show per online player
+     * who can't see vanished players
+     */
+    @Benchmark
+    public long vanishToggle() {
+        vanishManager.vanishPlayer(toggled);
+        vanishManager.unvanishPlayer(toggled);
+        return calls;
+    }
+    
+    /**
+     * VanishManager.handleJoin for a player who can't see vanished players, one hide per
+     * vanished player
+     */
+    @Benchmark
+    public long join() {
+        vanishManager.handleJoin(joined);
+        return calls;
+    }
+}
@@ -2,6 +2,7 @@ package org.frizzlenpop.frizzlenMod;
 
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.frizzlenpop.frizzlenMod.api.WebApiManager;
 import org.frizzlenpop.frizzlenMod.commands.*;
@@ -9,7 +10,9 @@ import org.frizzlenpop.frizzlenMod.listeners.*;
 import org.frizzlenpop.frizzlenMod.managers.*;
 import org.frizzlenpop.frizzlenMod.storage.ConfigManager;
 import org.frizzlenpop.frizzlenMod.storage.StorageManager;
+import org.frizzlenpop.frizzlenMod.utils.MessageCatalog;
 import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
+import org.frizzlenpop.frizzlenMod.utils.NotificationService;
 
 import java.io.File;
 import java.util.logging.Logger;
@@ -19,11 +22,13 @@ public final class FrizzlenMod extends JavaPlugin {
     private static FrizzlenMod instance;
     private ConfigManager configManager;
     private StorageManager storageManager;
+    private PlayerStateManager playerStateManager;
     private PunishmentManager punishmentManager;
     private JailManager jailManager;
     private VanishManager vanishManager;
     private ChatManager chatManager;
     private UserManager userManager;
+    private SearchManager searchManager;
     private WebApiManager webApiManager;
     private Logger logger;
     
@@ -37,13 +42,25 @@ public final class FrizzlenMod extends JavaPlugin {
         saveDefaultConfig();
         configManager = new ConfigManager(this);
         storageManager = new StorageManager(this);
+        MessageUtils.setMessageCatalog(new MessageCatalog(this));
+        MessageUtils.setNotificationService(new NotificationService(
+                getConfig().getLong("notifications.cooldown-millis", 3000),
+                getConfig().getBoolean("notifications.action-bar", false)));
         
-        // Initialize managers
+        // Initialize managers, player state first since the others update it
+        playerStateManager = new PlayerStateManager(this);
         punishmentManager = new PunishmentManager(this);
         jailManager = new JailManager(this);
         vanishManager = new VanishManager(this);
         chatManager = new ChatManager(this);
         userManager = new UserManager(this);
+        searchManager = new SearchManager(this);
+        
+        // Players already online after a reload have no join event
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            playerStateManager.createState(player);
+            vanishManager.handleJoin(player);
+        }
         
         // Register commands
         registerCommands();
@@ -81,9 +98,12 @@ public final class FrizzlenMod extends JavaPlugin {
         getCommand("slowmode").setExecutor(new SlowModeCommand(this));
         getCommand("report").setExecutor(new ReportCommand(this));
         getCommand("setjail").setExecutor(new SetJailCommand(this));
+        getCommand("jailcell").setExecutor(new JailCellCommand(this));
         getCommand("jail").setExecutor(new JailCommand(this));
         getCommand("unjail").setExecutor(new UnjailCommand(this));
         getCommand("modlogs").setExecutor(new ModLogsCommand(this));
+        getCommand("chatlog").setExecutor(new ChatLogCommand(this));
+        getCommand("frizzlenmod").setExecutor(new FrizzlenModCommand(this));
         
         // Check if clearwarnings command exists in plugin.yml
         if (getCommand("clearwarnings") != null) {
@@ -93,10 +113,13 @@ public final class FrizzlenMod extends JavaPlugin {
     
     private void registerListeners() {
         // Register all listeners
+        Bukkit.getPluginManager().registerEvents(new PlayerStateListener(this), this);
         Bukkit.getPluginManager().registerEvents(new PlayerConnectionListener(this), this);
         Bukkit.getPluginManager().registerEvents(new PlayerChatListener(this), this);
-        Bukkit.getPluginManager().registerEvents(new PlayerMovementListener(this), this);
-        Bukkit.getPluginManager().registerEvents(new InventoryListener(this), this);
+        Bukkit.getPluginManager().registerEvents(new TextSurfaceListener(this), this);
+        
+        // Only registered while a frozen or jailed player is online
+        playerStateManager.addEnforcementListeners(new PlayerMovementListener(this), new InventoryListener(this));
     }
     
     @Override
@@ -106,12 +129,19 @@ public final class FrizzlenMod extends JavaPlugin {
             webApiManager.stop();
         }
         
+        // Write out the chat archive
+        if (chatManager != null) {
+            chatManager.shutdown();
+        }
+        
         // Save all data
         if (storageManager != null) {
             storageManager.saveAll();
         }
         
         // Release resources
+        MessageUtils.setNotificationService(null);
+        MessageUtils.setMessageCatalog(null);
         instance = null;
         logger.info("FrizzlenMod has been disabled!");
     }
@@ -129,6 +159,10 @@ public final class FrizzlenMod extends JavaPlugin {
         return storageManager;
     }
     
+    public PlayerStateManager getPlayerStateManager() {
+        return playerStateManager;
+    }
+    
     public PunishmentManager getPunishmentManager() {
         return punishmentManager;
     }
@@ -149,6 +183,10 @@ public final class FrizzlenMod extends JavaPlugin {
         return userManager;
     }
     
+    public SearchManager getSearchManager() {
+        return searchManager;
+    }
+    
     public WebApiManager getWebApiManager() {
         return webApiManager;
     }
@@ -6,9 +6,11 @@ import org.bukkit.Bukkit;
 import org.frizzlenpop.frizzlenMod.FrizzlenMod;
 import org.frizzlenpop.frizzlenMod.api.controllers.AppealsController;
 import org.frizzlenpop.frizzlenMod.api.controllers.AuthController;
+import org.frizzlenpop.frizzlenMod.api.controllers.ChatController;
 import org.frizzlenpop.frizzlenMod.api.controllers.DashboardController;
 import org.frizzlenpop.frizzlenMod.api.controllers.ModLogsController;
 import org.frizzlenpop.frizzlenMod.api.controllers.PunishmentsController;
+import org.frizzlenpop.frizzlenMod.api.controllers.SearchController;
 import org.frizzlenpop.frizzlenMod.api.controllers.UsersController;
 import org.frizzlenpop.frizzlenMod.api.middleware.AuthMiddleware;
 import org.frizzlenpop.frizzlenMod.api.middleware.CorsMiddleware;
@@ -28,9 +30,11 @@ public class WebApiManager {
     
     private AppealsController appealsController;
     private AuthController authController;
+    private ChatController chatController;
     private DashboardController dashboardController;
     private ModLogsController modLogsController;
     private PunishmentsController punishmentsController;
+    private SearchController searchController;
     private UsersController usersController;
     
     public WebApiManager(FrizzlenMod plugin) {
@@ -53,9 +57,11 @@ public class WebApiManager {
     private void initializeControllers() {
         this.appealsController = new AppealsController(plugin, gson);
         this.authController = new AuthController(plugin, gson, jwtSecret);
+        this.chatController = new ChatController(plugin, gson);
         this.dashboardController = new DashboardController(plugin, gson);
         this.modLogsController = new ModLogsController(plugin, gson);
         this.punishmentsController = new PunishmentsController(plugin, gson);
+        this.searchController = new SearchController(plugin, gson);
         this.usersController = new UsersController(plugin, gson);
     }
     
@@ -148,6 +154,13 @@ public class WebApiManager {
                     get("/modlogs/action/:action", modLogsController::getLogsByAction);
                     get("/modlogs/timerange", modLogsController::getLogsByTimeRange);
                     
+                    // Chat archive
+                    get("/chat", chatController::getChat);
+                    
+                    // Full-text search
+                    get("/search", searchController::search);
+                    post("/search/rebuild", searchController::rebuild);
+                    
                     // User management endpoints
                     get("/users", usersController::getAllUsers);
                     post("/users", usersController::createUser);
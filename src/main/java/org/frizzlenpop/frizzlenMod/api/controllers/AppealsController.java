@@ -102,6 +102,11 @@ public class AppealsController {
             // Save config
             plugin.getStorageManager().saveConfig(appealsConfig, "appeals");
             
+            // Make the appeal searchable
+            if (plugin.getSearchManager() != null) {
+                plugin.getSearchManager().addAppeal(appealId, appeal.getPlayerName(), appeal.getAppealText(), appeal.getSubmissionTime());
+            }
+            
             // Log the appeal
             plugin.getLogger().info("New ban appeal submitted by " + appeal.getPlayerName() + " (ID: " + appealId + ")");
             
@@ -428,11 +433,17 @@ public class AppealsController {
             String commentPath = "appeals." + appealId + ".comments." + commentId;
             appealsConfig.set(commentPath + ".staffName", staffName);
             appealsConfig.set(commentPath + ".comment", comment);
-            appealsConfig.set(commentPath + ".timestamp", System.currentTimeMillis());
+            long timestamp = System.currentTimeMillis();
+            appealsConfig.set(commentPath + ".timestamp", timestamp);
             
             // Save config
             plugin.getStorageManager().saveConfig(appealsConfig, "appeals");
             
+            // Make the comment searchable
+            if (plugin.getSearchManager() != null) {
+                plugin.getSearchManager().addAppealComment(appealId, commentId, staffName, comment, timestamp);
+            }
+            
             return gson.toJson(Map.of(
                     "success", true,
                     "message", "Comment added successfully",
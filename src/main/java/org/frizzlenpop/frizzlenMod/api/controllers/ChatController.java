@@ -0,0 +1,84 @@
+package org.frizzlenpop.frizzlenMod.api.controllers;
+
+import com.google.gson.Gson;
+import org.bukkit.Bukkit;
+import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.chat.ChatArchive;
+import spark.Request;
+import spark.Response;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Controller for the chat archive API endpoints
+ */
+public class ChatController {
+    private static final int MAX_LIMIT = 1000;
+    
+    private final FrizzlenMod plugin;
+    private final Gson gson;
+    
+    public ChatController(FrizzlenMod plugin, Gson gson) {
+        this.plugin = plugin;
+        this.gson = gson;
+    }
+    
+    /**
+     * Search archived chat messages
+     * GET /api/admin/chat?player=&start=&end=&limit=
+     */
+    public Object getChat(Request request, Response response) {
+        response.type("application/json");
+        
+        try {
+            long end = Long.parseLong(request.queryParams("end") != null ? request.queryParams("end") : String.valueOf(System.currentTimeMillis()));
+            long start = Long.parseLong(request.queryParams("start") != null ? request.queryParams("start") : String.valueOf(end - 86400000L));
+            int limit = Integer.parseInt(request.queryParams("limit") != null ? request.queryParams("limit") : "100");
+            limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+            
+            // The player can be given as a UUID or a name
+            UUID playerUUID = null;
+            String player = request.queryParams("player");
+            if (player != null && !player.isEmpty()) {
+                try {
+                    playerUUID = UUID.fromString(player);
+                } catch (IllegalArgumentException e) {
+                    playerUUID = Bukkit.getOfflinePlayer(player).getUniqueId();
+                }
+            }
+            
+            List<ChatArchive.Entry> entries = plugin.getChatManager().searchChatArchive(playerUUID, start, end, limit);
+            
+            List<Map<String, Object>> messages = new ArrayList<>();
+            for (ChatArchive.Entry entry : entries) {
+                Map<String, Object> message = new HashMap<>();
+                message.put("timestamp", entry.getTimestamp());
+                message.put("uuid", entry.getPlayerUUID().toString());
+                message.put("player", entry.getPlayerName());
+                message.put("message", entry.getMessage());
+                messages.add(message);
+            }
+            
+            Map<String, Object> responseData = new HashMap<>();
+            responseData.put("messages", messages);
+            responseData.put("start", start);
+            responseData.put("end", end);
+            responseData.put("limit", limit);
+            
+            return gson.toJson(responseData);
+            
+        } catch (NumberFormatException e) {
+            response.status(400);
+            return gson.toJson(Map.of("error", "Invalid number format"));
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Error searching chat archive: " + e.getMessage(), e);
+            response.status(500);
+            return gson.toJson(Map.of("error", "Internal server error"));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.frizzlenpop.frizzlenMod.api.controllers;
+
+import com.google.gson.Gson;
+import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.search.SearchDocument;
+import org.frizzlenpop.frizzlenMod.search.SearchResults;
+import spark.Request;
+import spark.Response;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Controller for the full-text search API endpoints
+ */
+public class SearchController {
+    private static final int MAX_LIMIT = 100;
+    
+    private final FrizzlenMod plugin;
+    private final Gson gson;
+    
+    public SearchController(FrizzlenMod plugin, Gson gson) {
+        this.plugin = plugin;
+        this.gson = gson;
+    }
+    
+    /**
+     * Search mod-log reasons, report reasons, appeals and appeal comments
+     * GET /api/admin/search?q=&type=&page=&limit=
+     */
+    public Object search(Request request, Response response) {
+        response.type("application/json");
+        
+        try {
+            String query = request.queryParams("q");
+            if (query == null || query.trim().isEmpty()) {
+                response.status(400);
+                return gson.toJson(Map.of("error", "Missing query"));
+            }
+            
+            SearchDocument.Type type = null;
+            String typeParam = request.queryParams("type");
+            if (typeParam != null && !typeParam.isEmpty()) {
+                try {
+                    type = SearchDocument.Type.valueOf(typeParam.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    response.status(400);
+                    return gson.toJson(Map.of("error", "Invalid type"));
+                }
+            }
+            
+            int page = Integer.parseInt(request.queryParams("page") != null ? request.queryParams("page") : "1");
+            int limit = Integer.parseInt(request.queryParams("limit") != null ? request.queryParams("limit") : "20");
+            page = Math.max(1, page);
+            limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+            
+            SearchResults results = plugin.getSearchManager().search(query, type, page, limit);
+            
+            List<Map<String, Object>> hits = new ArrayList<>();
+            for (SearchResults.Hit hit : results.getHits()) {
+                SearchDocument document = hit.getDocument();
+                Map<String, Object> result = new HashMap<>(document.getFields());
+                result.put("type", document.getType().name().toLowerCase());
+                result.put("id", document.getId());
+                result.put("timestamp", document.getTimestamp());
+                result.put("score", hit.getScore());
+                hits.add(result);
+            }
+            
+            Map<String, Object> responseData = new HashMap<>();
+            responseData.put("results", hits);
+            responseData.put("total", results.getTotal());
+            responseData.put("page", page);
+            responseData.put("limit", limit);
+            responseData.put("pages", (results.getTotal() + limit - 1) / limit);
+            
+            return gson.toJson(responseData);
+            
+        } catch (NumberFormatException e) {
+            response.status(400);
+            return gson.toJson(Map.of("error", "Invalid number format"));
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Error searching: " + e.getMessage(), e);
+            response.status(500);
+            return gson.toJson(Map.of("error", "Internal server error"));
+        }
+    }
+    
+    /**
+     * Rebuild the search index in the background
+     * POST /api/admin/search/rebuild
+     */
+    public Object rebuild(Request request, Response response) {
+        response.type("application/json");
+        
+        try {
+            boolean started = plugin.getSearchManager().rebuild();
+            
+            Map<String, Object> responseData = new HashMap<>(plugin.getSearchManager().getStats());
+            responseData.put("started", started);
+            if (!started) {
+                response.status(409);
+                responseData.put("error", "A rebuild is already running");
+            }
+            
+            return gson.toJson(responseData);
+            
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Error rebuilding search index: " + e.getMessage(), e);
+            response.status(500);
+            return gson.toJson(Map.of("error", "Internal server error"));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+/**
+ * A reusable CharSequence view that counts every character read by a regex matcher and
+ * aborts the match once a step budget is used up. java.util.regex reads its input through
+ * charAt, so the number of reads is a good measure of how much backtracking a pattern does.
+ */
+final class BudgetedCharSequence implements CharSequence {
+    private CharSequence text;
+    private long remaining;
+    
+    /**
+     * Points this view at a new text with a fresh budget
+     * 
+     * @param text The text to expose
+     * @param budget The number of character reads allowed
+     * @return This instance
+     */
+    BudgetedCharSequence reset(CharSequence text, long budget) {
+        this.text = text;
+        this.remaining = budget;
+        return this;
+    }
+    
+    @Override
+    public int length() {
+        return text.length();
+    }
+    
+    @Override
+    public char charAt(int index) {
+        if (--remaining < 0) {
+            throw new BudgetExceededException();
+        }
+        return text.charAt(index);
+    }
+    
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text.subSequence(start, end);
+    }
+    
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+    
+    /**
+     * Thrown out of the matcher when the budget runs out, without a stack trace since it is
+     * used for control flow
+     */
+    static final class BudgetExceededException extends RuntimeException {
+        BudgetExceededException() {
+            super("Regex step budget exceeded", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Persists chat to hourly segment files. Messages are queued by the chat threads and written
+ * in batches by a single background thread to an append-only file for the current hour. When
+ * the hour is over that file is compressed into a segment of deflated blocks with an index of
+ * the blocks and the senders in them, see {@link ChatSegment}, so searches only decompress
+ * the blocks that can contain what they are looking for.
+ */
+public final class ChatArchive {
+    private static final int BATCH_SIZE = 1024;
+    
+    private final File directory;
+    private final long retentionMillis;
+    private final BiConsumer<String, Throwable> errorLogger;
+    private final BlockingQueue<Entry> queue;
+    private final Map<String, ChatSegment.Index> indexes = new ConcurrentHashMap<>();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+    
+    private long currentHour = -1;
+    private DataOutputStream currentOutput;
+    
+    /**
+     * Creates an archive and starts its writer thread
+     * 
+     * @param directory The directory the segments are stored in
+     * @param queueCapacity The number of messages that may wait to be written, more are dropped
+     * @param retentionMillis How long segments are kept, 0 to keep them forever
+     * @param errorLogger Receives write errors
+     */
+    public ChatArchive(File directory, int queueCapacity, long retentionMillis, BiConsumer<String, Throwable> errorLogger) {
+        this.directory = directory;
+        this.retentionMillis = retentionMillis;
+        this.errorLogger = errorLogger;
+        this.queue = new ArrayBlockingQueue<>(Math.max(BATCH_SIZE, queueCapacity));
+        
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        
+        this.writer = new Thread(this::run, "FrizzlenMod-ChatArchive");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+    
+    /**
+     * Queues a message to be written. This never blocks, if the writer falls too far behind
+     * the message is dropped and counted.
+     * 
+     * @param playerUUID The UUID of the sender
+     * @param playerName The name of the sender
+     * @param message The message that was sent
+     * @param timestamp The time the message was sent in milliseconds
+     */
+    public void append(UUID playerUUID, String playerName, String message, long timestamp) {
+        if (!running || !queue.offer(new Entry(timestamp, playerUUID, playerName, message))) {
+            dropped.increment();
+        }
+    }
+    
+    /**
+     * Finds archived messages, newest segments first, and returns them oldest first
+     * 
+     * @param playerUUID The sender to look for, or null for everyone
+     * @param from The earliest time in milliseconds
+     * @param to The latest time in milliseconds
+     * @param limit The maximum number of messages, the most recent ones are kept
+     * @return The matching messages, oldest first
+     */
+    public List<Entry> search(UUID playerUUID, long from, long to, int limit) {
+        List<Entry> results = new ArrayList<>();
+        // Records that arrived late for their hour are stored in the next one
+        List<Long> hours = listHours(ChatSegment.hourOf(from), ChatSegment.hourOf(to) + 1);
+        
+        for (int i = hours.size() - 1; i >= 0 && results.size() < limit; i--) {
+            long hour = hours.get(i);
+            try {
+                List<Entry> found = searchHour(hour, playerUUID, from, to);
+                for (int j = found.size() - 1; j >= 0 && results.size() < limit; j--) {
+                    results.add(found.get(j));
+                }
+            } catch (IOException e) {
+                errorLogger.accept("Could not read chat segment " + ChatSegment.nameOf(hour), e);
+            }
+        }
+        
+        // Late records make the hours overlap a little, so sort rather than just reverse
+        results.sort(Comparator.comparingLong(Entry::getTimestamp));
+        return results;
+    }
+    
+    /**
+     * Stops the writer thread after it wrote everything that is queued
+     */
+    public void shutdown() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Gets the number of messages written to disk
+     * 
+     * @return The number of written messages
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+    
+    /**
+     * Gets the number of messages dropped because the writer fell behind
+     * 
+     * @return The number of dropped messages
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    private List<Entry> searchHour(long hour, UUID playerUUID, long from, long to) throws IOException {
+        File segment = new File(directory, ChatSegment.nameOf(hour) + ChatSegment.SEGMENT_EXTENSION);
+        if (segment.exists()) {
+            ChatSegment.Index index = indexes.get(segment.getName());
+            if (index == null) {
+                index = ChatSegment.readIndex(segment);
+                indexes.put(segment.getName(), index);
+            }
+            return ChatSegment.search(segment, index, playerUUID, from, to);
+        }
+        
+        // The current hour, or an hour that was not compressed yet
+        File log = new File(directory, ChatSegment.nameOf(hour) + ChatSegment.LOG_EXTENSION);
+        if (log.exists()) {
+            return ChatSegment.scanLog(log, playerUUID, from, to);
+        }
+        return Collections.emptyList();
+    }
+    
+    /**
+     * Lists the hours between two hours that have a segment or log file, oldest first
+     */
+    private List<Long> listHours(long fromHour, long toHour) {
+        List<Long> hours = new ArrayList<>();
+        String[] names = directory.list();
+        if (names == null) {
+            return hours;
+        }
+        
+        for (String name : names) {
+            long hour = ChatSegment.parseHour(name);
+            if (hour >= fromHour && hour <= toHour && !hours.contains(hour)) {
+                hours.add(hour);
+            }
+        }
+        Collections.sort(hours);
+        return hours;
+    }
+    
+    private void run() {
+        compressStaleLogs();
+        
+        List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                    writeBatch(batch);
+                    batch.clear();
+                } else if (currentHour != -1 && ChatSegment.hourOf(System.currentTimeMillis()) != currentHour) {
+                    closeCurrent();
+                }
+            } catch (InterruptedException e) {
+                // Shutdown was requested, drain the queue before leaving
+                running = false;
+            } catch (IOException e) {
+                errorLogger.accept("Could not write chat archive", e);
+                batch.clear();
+            }
+        }
+        
+        try {
+            if (currentOutput != null) {
+                currentOutput.close();
+            }
+        } catch (IOException e) {
+            errorLogger.accept("Could not close chat archive", e);
+        }
+    }
+    
+    private void writeBatch(List<Entry> batch) throws IOException {
+        for (Entry record : batch) {
+            // A record that is late for its hour, from a chat thread that raced the hour
+            // change or a clock step, goes into the open hour instead of reopening a
+            // compressed one. Searches also look one hour past their range for these.
+            long hour = ChatSegment.hourOf(record.getTimestamp());
+            if (hour > currentHour) {
+                closeCurrent();
+                openHour(hour);
+            }
+            ChatSegment.writeRecord(currentOutput, record);
+        }
+        currentOutput.flush();
+        written.add(batch.size());
+    }
+    
+    private void openHour(long hour) throws IOException {
+        File log = new File(directory, ChatSegment.nameOf(hour) + ChatSegment.LOG_EXTENSION);
+        currentOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(log, true), 64 * 1024));
+        currentHour = hour;
+    }
+    
+    private void closeCurrent() throws IOException {
+        if (currentOutput == null) {
+            return;
+        }
+        
+        currentOutput.close();
+        currentOutput = null;
+        
+        long hour = currentHour;
+        currentHour = -1;
+        compress(hour);
+        deleteExpired();
+    }
+    
+    private void compress(long hour) {
+        File log = new File(directory, ChatSegment.nameOf(hour) + ChatSegment.LOG_EXTENSION);
+        File segment = new File(directory, ChatSegment.nameOf(hour) + ChatSegment.SEGMENT_EXTENSION);
+        try {
+            ChatSegment.compress(log, segment);
+            log.delete();
+        } catch (IOException e) {
+            errorLogger.accept("Could not compress chat log " + log.getName(), e);
+        } finally {
+            // The segment was rewritten, or may have been
+            indexes.remove(segment.getName());
+        }
+    }
+    
+    /**
+     * Compresses logs left behind by earlier runs, except the one of the current hour which
+     * is appended to again
+     */
+    private void compressStaleLogs() {
+        String[] names = directory.list();
+        if (names == null) {
+            return;
+        }
+        
+        long now = ChatSegment.hourOf(System.currentTimeMillis());
+        for (String name : names) {
+            long hour = ChatSegment.parseHour(name);
+            if (name.endsWith(ChatSegment.LOG_EXTENSION) && hour != -1 && hour != now) {
+                compress(hour);
+            }
+        }
+        deleteExpired();
+    }
+    
+    private void deleteExpired() {
+        String[] names = directory.list();
+        if (retentionMillis <= 0 || names == null) {
+            return;
+        }
+        
+        long oldest = ChatSegment.hourOf(System.currentTimeMillis() - retentionMillis);
+        for (String name : names) {
+            long hour = ChatSegment.parseHour(name);
+            if (hour != -1 && hour < oldest) {
+                new File(directory, name).delete();
+                indexes.remove(name);
+            }
+        }
+    }
+    
+    /**
+     * One archived chat message
+     */
+    public static final class Entry {
+        private final long timestamp;
+        private final UUID playerUUID;
+        private final String playerName;
+        private final String message;
+        
+        Entry(long timestamp, UUID playerUUID, String playerName, String message) {
+            this.timestamp = timestamp;
+            this.playerUUID = playerUUID;
+            this.playerName = playerName;
+            this.message = message;
+        }
+        
+        boolean matches(UUID playerUUID, long from, long to) {
+            return timestamp >= from && timestamp <= to
+                    && (playerUUID == null || playerUUID.equals(this.playerUUID));
+        }
+        
+        public long getTimestamp() {
+            return timestamp;
+        }
+        
+        public UUID getPlayerUUID() {
+            return playerUUID;
+        }
+        
+        public String getPlayerName() {
+            return playerName;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the recent chat messages of every player in a fixed-capacity ring of timestamps and
+ * message references. The estimated size of all rings is kept under a global byte budget:
+ * when it runs over, the histories of players who left are dropped, the ones that left
+ * first go first. Online players are never dropped, their reports need the context.
+ * A separate small ring keeps the latest messages of the whole server, for context.
+ */
+public final class ChatHistory {
+    // Rough cost of one entry: the timestamp, the reference and the String object itself
+    private static final int ENTRY_OVERHEAD = 8 + 8 + 40;
+    private static final int HISTORY_OVERHEAD = 96;
+    
+    private final int capacity;
+    private final long maxBytes;
+    private final Map<UUID, PlayerHistory> histories = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    // Histories of players who left, in the order they left, guarded by itself
+    private final LinkedHashMap<UUID, PlayerHistory> offlineHistories = new LinkedHashMap<>();
+    private final ServerHistory serverHistory;
+    private final Consumer<String> warningLogger;
+    private boolean warned;
+    
+    /**
+     * Creates a history
+     * 
+     * @param capacity The number of messages kept per player
+     * @param maxBytes The estimated number of bytes all histories may use together
+     * @param serverCapacity The number of messages kept for the whole server
+     * @param warningLogger Receives a warning when online players alone use more than the budget, may be null
+     */
+    public ChatHistory(int capacity, long maxBytes, int serverCapacity, Consumer<String> warningLogger) {
+        this.capacity = Math.max(1, capacity);
+        this.maxBytes = Math.max(0, maxBytes);
+        this.serverHistory = new ServerHistory(Math.max(1, serverCapacity));
+        this.warningLogger = warningLogger;
+    }
+    
+    /**
+     * Records a message
+     * 
+     * @param playerUUID The UUID of the sender
+     * @param playerName The name of the sender
+     * @param message The message that was sent
+     * @param timestamp The time the message was sent in milliseconds
+     */
+    public void record(UUID playerUUID, String playerName, String message, long timestamp) {
+        PlayerHistory history = histories.computeIfAbsent(playerUUID, uuid -> {
+            usedBytes.addAndGet(HISTORY_OVERHEAD + (long) capacity * 16);
+            return new PlayerHistory(capacity);
+        });
+        
+        if (!history.online) {
+            // Back before the history was dropped
+            synchronized (offlineHistories) {
+                offlineHistories.remove(playerUUID, history);
+            }
+        }
+        
+        usedBytes.addAndGet(history.add(playerName, message, timestamp));
+        serverHistory.add(playerName, message, timestamp);
+        
+        if (usedBytes.get() > maxBytes) {
+            evict();
+        }
+    }
+    
+    /**
+     * Takes a snapshot of the messages of a player, oldest first. Only the timestamps and
+     * references are copied, so this is cheap even for full histories.
+     * 
+     * @param playerUUID The UUID of the player
+     * @return The snapshot, empty if the player has no history
+     */
+    public Snapshot getSnapshot(UUID playerUUID) {
+        PlayerHistory history = histories.get(playerUUID);
+        return history == null ? Snapshot.EMPTY : history.snapshot();
+    }
+    
+    /**
+     * Takes a snapshot of the latest messages of the whole server, oldest first
+     * 
+     * @param limit The maximum number of messages
+     * @param since The earliest time in milliseconds
+     * @return The messages
+     */
+    public List<Line> getServerLines(int limit, long since) {
+        return serverHistory.lines(limit, since);
+    }
+    
+    /**
+     * Takes the latest messages of a player, oldest first. Only the requested lines are
+     * copied from the ring.
+     * 
+     * @param playerUUID The UUID of the player
+     * @param limit The maximum number of messages
+     * @return The messages, empty if the player has no history
+     */
+    public List<Line> getPlayerLines(UUID playerUUID, int limit) {
+        PlayerHistory history = histories.get(playerUUID);
+        return history == null ? new ArrayList<>() : history.lines(limit);
+    }
+    
+    /**
+     * Marks a player as offline, which lets their history be dropped when the budget runs
+     * out, after the histories of players who left before them
+     * 
+     * @param playerUUID The UUID of the player
+     */
+    public void markOffline(UUID playerUUID) {
+        PlayerHistory history = histories.get(playerUUID);
+        if (history == null) {
+            return;
+        }
+        
+        history.online = false;
+        synchronized (offlineHistories) {
+            offlineHistories.remove(playerUUID);
+            offlineHistories.put(playerUUID, history);
+        }
+        
+        if (usedBytes.get() > maxBytes) {
+            evict();
+        }
+    }
+    
+    /**
+     * Gets the estimated number of bytes used by all histories
+     * 
+     * @return The estimated memory use
+     */
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+    
+    /**
+     * Gets the number of players with a history
+     * 
+     * @return The number of histories
+     */
+    public int getPlayerCount() {
+        return histories.size();
+    }
+    
+    /**
+     * Drops the histories of offline players, the ones that left first go first, until the
+     * estimated memory use is under the budget. Each dropped history is taken from the head
+     * of the offline queue, so a message only pays for the histories it drops. Only one
+     * thread evicts at a time, the others just keep recording.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        
+        try {
+            while (usedBytes.get() > maxBytes) {
+                UUID playerUUID;
+                PlayerHistory history;
+                synchronized (offlineHistories) {
+                    Iterator<Map.Entry<UUID, PlayerHistory>> iterator = offlineHistories.entrySet().iterator();
+                    if (!iterator.hasNext()) {
+                        break;
+                    }
+                    Map.Entry<UUID, PlayerHistory> eldest = iterator.next();
+                    playerUUID = eldest.getKey();
+                    history = eldest.getValue();
+                    iterator.remove();
+                }
+                
+                if (!history.online && histories.remove(playerUUID, history)) {
+                    usedBytes.addAndGet(-history.release());
+                }
+            }
+            
+            boolean overBudget = usedBytes.get() > maxBytes;
+            if (overBudget && !warned && warningLogger != null) {
+                warningLogger.accept("The chat histories of online players use about " + usedBytes.get() / 1024 + 
+                        " KB, more than chat.history.max-memory-kb. Raise it or lower chat.history.size.");
+            }
+            warned = overBudget;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    private static long sizeOf(String message) {
+        return ENTRY_OVERHEAD + 2L * message.length();
+    }
+    
+    /**
+     * The ring of one player. Writers synchronize on the ring, which is only contended when a
+     * snapshot is taken while the player is chatting.
+     */
+    private static final class PlayerHistory {
+        private final long[] timestamps;
+        private final String[] messages;
+        private String playerName;
+        private int next;
+        private int size;
+        private long bytes;
+        private boolean released;
+        private volatile boolean online = true;
+        
+        private PlayerHistory(int capacity) {
+            this.timestamps = new long[capacity];
+            this.messages = new String[capacity];
+            this.bytes = HISTORY_OVERHEAD + (long) capacity * 16;
+        }
+        
+        /**
+         * Adds a message, overwriting the oldest one when full
+         * 
+         * @return The change in estimated bytes
+         */
+        private synchronized long add(String playerName, String message, long timestamp) {
+            if (released) {
+                // Evicted while the message was on its way in
+                return 0;
+            }
+            
+            long delta = sizeOf(message);
+            String replaced = messages[next];
+            if (replaced != null) {
+                delta -= sizeOf(replaced);
+            }
+            
+            this.playerName = playerName;
+            timestamps[next] = timestamp;
+            messages[next] = message;
+            next = (next + 1) % messages.length;
+            size = Math.min(size + 1, messages.length);
+            
+            bytes += delta;
+            online = true;
+            return delta;
+        }
+        
+        private synchronized List<Line> lines(int limit) {
+            int count = Math.min(Math.max(0, limit), size);
+            List<Line> lines = new ArrayList<>(count);
+            for (int i = count; i > 0; i--) {
+                int index = (next - i + messages.length) % messages.length;
+                lines.add(new Line(timestamps[index], playerName, messages[index]));
+            }
+            return lines;
+        }
+        
+        private synchronized Snapshot snapshot() {
+            long[] snapshotTimes = new long[size];
+            String[] snapshotMessages = new String[size];
+            int start = (next - size + messages.length) % messages.length;
+            
+            for (int i = 0; i < size; i++) {
+                int index = (start + i) % messages.length;
+                snapshotTimes[i] = timestamps[index];
+                snapshotMessages[i] = messages[index];
+            }
+            return new Snapshot(playerName, snapshotTimes, snapshotMessages);
+        }
+        
+        /**
+         * Clears the ring after it was removed from the map
+         * 
+         * @return The estimated bytes it used
+         */
+        private synchronized long release() {
+            long freed = bytes;
+            bytes = 0;
+            released = true;
+            return freed;
+        }
+    }
+    
+    /**
+     * The latest messages of all players in one ring, with the sender name per entry
+     */
+    private static final class ServerHistory {
+        private final long[] timestamps;
+        private final String[] playerNames;
+        private final String[] messages;
+        private int next;
+        private int size;
+        
+        private ServerHistory(int capacity) {
+            this.timestamps = new long[capacity];
+            this.playerNames = new String[capacity];
+            this.messages = new String[capacity];
+        }
+        
+        private synchronized void add(String playerName, String message, long timestamp) {
+            timestamps[next] = timestamp;
+            playerNames[next] = playerName;
+            messages[next] = message;
+            next = (next + 1) % messages.length;
+            size = Math.min(size + 1, messages.length);
+        }
+        
+        private synchronized List<Line> lines(int limit, long since) {
+            // Walk back from the newest entry until the limit or the time bound is reached
+            int count = 0;
+            int max = Math.min(Math.max(0, limit), size);
+            while (count < max && timestamps[(next - count - 1 + messages.length) % messages.length] >= since) {
+                count++;
+            }
+            
+            List<Line> lines = new ArrayList<>(count);
+            for (int i = count; i > 0; i--) {
+                int index = (next - i + messages.length) % messages.length;
+                lines.add(new Line(timestamps[index], playerNames[index], messages[index]));
+            }
+            return lines;
+        }
+    }
+    
+    /**
+     * One message with its sender and time
+     */
+    public static final class Line {
+        private final long timestamp;
+        private final String playerName;
+        private final String message;
+        
+        public Line(long timestamp, String playerName, String message) {
+            this.timestamp = timestamp;
+            this.playerName = playerName;
+            this.message = message;
+        }
+        
+        public long getTimestamp() {
+            return timestamp;
+        }
+        
+        public String getPlayerName() {
+            return playerName;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+    }
+    
+    /**
+     * An immutable copy of one player's history, oldest first. As a list it holds the
+     * messages in the "timestamp:name:message" form, formatted when they are read.
+     */
+    public static final class Snapshot extends AbstractList<String> {
+        private static final Snapshot EMPTY = new Snapshot(null, new long[0], new String[0]);
+        
+        private final String playerName;
+        private final long[] timestamps;
+        private final String[] messages;
+        
+        private Snapshot(String playerName, long[] timestamps, String[] messages) {
+            this.playerName = playerName;
+            this.timestamps = timestamps;
+            this.messages = messages;
+        }
+        
+        @Override
+        public String get(int index) {
+            return timestamps[index] + ":" + playerName + ":" + messages[index];
+        }
+        
+        @Override
+        public int size() {
+            return messages.length;
+        }
+        
+        /**
+         * Gets the name the player had when they sent their latest message
+         * 
+         * @return The player name, null if the snapshot is empty
+         */
+        public String getPlayerName() {
+            return playerName;
+        }
+        
+        public long getTimestamp(int index) {
+            return timestamps[index];
+        }
+        
+        public String getMessage(int index) {
+            return messages[index];
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import net.kyori.adventure.chat.SignedMessage;
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+
+/**
+ * A chat message on its way through the {@link ChatPipeline}. Stages may replace the text or
+ * hide the message from everyone but the sender. Bypass permissions are looked up the first
+ * time a stage asks for them and then remembered in a bitmask, so no permission is checked
+ * twice for the same message.
+ */
+public final class ChatMessage {
+    /**
+     * The permissions that let a player skip a check
+     */
+    public enum Bypass {
+        CHAT_MUTE("frizzlenmod.bypass.chatmute"),
+        SLOW_MODE("frizzlenmod.bypass.slowmode"),
+        SPAM("frizzlenmod.bypass.spam"),
+        FILTER("frizzlenmod.bypass.filter"),
+        CAPS("frizzlenmod.bypass.capsfilter");
+        
+        private final String permission;
+        
+        Bypass(String permission) {
+            this.permission = permission;
+        }
+        
+        /**
+         * Gets the permission node of this bypass
+         * 
+         * @return The permission
+         */
+        public String getPermission() {
+            return permission;
+        }
+    }
+    
+    private final Player player;
+    private final UUID playerUUID;
+    private final String originalMessage;
+    private String message;
+    private SignedMessage.Signature signature;
+    private int resolvedBypasses;
+    private int bypasses;
+    
+    /**
+     * Creates a message
+     * 
+     * @param player The player sending the message
+     * @param message The text of the message
+     */
+    public ChatMessage(Player player, String message) {
+        this.player = player;
+        this.playerUUID = player.getUniqueId();
+        this.originalMessage = message;
+        this.message = message;
+    }
+    
+    /**
+     * Creates a message whose bypasses are already known, so no permission is looked up
+     * 
+     * @param player The player sending the message
+     * @param message The text of the message
+     * @param bypasses The bypasses of the sender, one bit per {@link Bypass} ordinal
+     */
+    public ChatMessage(Player player, String message, int bypasses) {
+        this(player, message);
+        this.resolvedBypasses = -1;
+        this.bypasses = bypasses;
+    }
+    
+    /**
+     * Checks if the sender has the permission to skip a check
+     * 
+     * @param bypass The bypass to check
+     * @return true if the sender may skip the check
+     */
+    public boolean hasBypass(Bypass bypass) {
+        int bit = 1 << bypass.ordinal();
+        if ((resolvedBypasses & bit) == 0) {
+            resolvedBypasses |= bit;
+            if (player.hasPermission(bypass.getPermission())) {
+                bypasses |= bit;
+            }
+        }
+        return (bypasses & bit) != 0;
+    }
+    
+    public Player getPlayer() {
+        return player;
+    }
+    
+    public UUID getPlayerUUID() {
+        return playerUUID;
+    }
+    
+    /**
+     * Gets the current text of the message, including changes made by earlier stages
+     * 
+     * @return The message text
+     */
+    public String getMessage() {
+        return message;
+    }
+    
+    /**
+     * Replaces the text of the message
+     * 
+     * @param message The new text
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    /**
+     * Gets the text the player originally sent
+     * 
+     * @return The original message text
+     */
+    public String getOriginalMessage() {
+        return originalMessage;
+    }
+    
+    /**
+     * Gets the signature of the message as sent by the client, which lets it be deleted
+     * from the chat of every player after it was delivered
+     * 
+     * @return The signature, null if the message is not signed
+     */
+    public SignedMessage.Signature getSignature() {
+        return signature;
+    }
+    
+    public void setSignature(SignedMessage.Signature signature) {
+        this.signature = signature;
+    }
+    
+    /**
+     * Checks if a stage changed the text of the message
+     * 
+     * @return true if the text was changed
+     */
+    public boolean isModified() {
+        return message != originalMessage;
+    }
+}
@@ -0,0 +1,46 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.List;
+
+/**
+ * Runs a chat message through an ordered list of stages and stops at the first stage that
+ * hides or blocks it
+ */
+public final class ChatPipeline {
+    private final List<ChatStage> stages;
+    
+    /**
+     * Creates a pipeline
+     * 
+     * @param stages The stages in the order they run
+     */
+    public ChatPipeline(List<ChatStage> stages) {
+        this.stages = List.copyOf(stages);
+    }
+    
+    /**
+     * Runs a message through the stages
+     * 
+     * @param message The message to check, stages may change its text
+     * @return {@link ChatStage.Result#BLOCK} or {@link ChatStage.Result#HIDE} if a stage
+     *         stopped the message, otherwise {@link ChatStage.Result#PASS}
+     */
+    public ChatStage.Result process(ChatMessage message) {
+        for (int i = 0; i < stages.size(); i++) {
+            ChatStage.Result result = stages.get(i).run(message);
+            if (result == ChatStage.Result.BLOCK || result == ChatStage.Result.HIDE) {
+                return result;
+            }
+        }
+        return ChatStage.Result.PASS;
+    }
+    
+    /**
+     * Gets the stages in the order they run
+     * 
+     * @return The stages
+     */
+    public List<ChatStage> getStages() {
+        return stages;
+    }
+}
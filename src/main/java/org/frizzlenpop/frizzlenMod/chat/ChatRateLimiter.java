@@ -0,0 +1,192 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket rate limits for chat, one bucket pair per player and one bucket for the whole
+ * server. Buckets are implemented as a generic cell rate algorithm: the only state is the
+ * theoretical arrival time of the next message in an {@link AtomicLong}, updated with a
+ * compare-and-set, so checks never lock and a player costs two longs. A message takes from
+ * every bucket that applies or from none, so a blocked message doesn't use up any limit.
+ */
+public final class ChatRateLimiter {
+    private static final ChatRateLimiter DISABLED = new ChatRateLimiter(false, 0, 1, 0, 1);
+    
+    private final boolean enabled;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final long globalIntervalNanos;
+    private final long globalToleranceNanos;
+    
+    private final Map<UUID, Buckets> players = new ConcurrentHashMap<>();
+    private final AtomicLong global = new AtomicLong(Long.MIN_VALUE);
+    
+    /**
+     * Creates a rate limiter
+     * 
+     * @param enabled Whether the per-player and global limits apply, slow mode always does
+     * @param intervalMillis The time it takes a player to earn one message
+     * @param burst The number of messages a player can send at once
+     * @param globalIntervalMillis The time it takes the server to earn one message, 0 for no limit
+     * @param globalBurst The number of messages the server can take at once
+     */
+    public ChatRateLimiter(boolean enabled, long intervalMillis, int burst, long globalIntervalMillis, int globalBurst) {
+        this.enabled = enabled;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, intervalMillis));
+        this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+        this.globalIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, globalIntervalMillis));
+        this.globalToleranceNanos = globalIntervalNanos * (Math.max(1, globalBurst) - 1);
+    }
+    
+    /**
+     * Gets a rate limiter that only enforces slow mode
+     * 
+     * @return The disabled rate limiter
+     */
+    public static ChatRateLimiter disabled() {
+        return DISABLED;
+    }
+    
+    /**
+     * Takes a message from the player's slow mode bucket, which holds a single message and
+     * refills once per slow mode interval, from the player's own bucket and from the bucket
+     * shared by the whole server. If one of them is empty, the message is given back to the
+     * buckets it was already taken from.
+     * 
+     * @param playerUUID The UUID of the player
+     * @param slowModeMillis The slow mode interval, 0 if slow mode is off or bypassed
+     * @param limited Whether the player and server buckets apply to the player
+     * @return null if the message is allowed, otherwise the bucket that stopped it
+     */
+    public Denial acquire(UUID playerUUID, long slowModeMillis, boolean limited) {
+        long slowModeNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, slowModeMillis));
+        boolean playerLimited = limited && enabled && intervalNanos > 0;
+        boolean globalLimited = limited && enabled && globalIntervalNanos > 0;
+        if (slowModeNanos == 0 && !playerLimited && !globalLimited) {
+            return null;
+        }
+        
+        long now = System.nanoTime();
+        Buckets buckets = buckets(playerUUID);
+        
+        if (slowModeNanos > 0) {
+            long wait = acquire(buckets.slowMode, now, slowModeNanos, 0);
+            if (wait > 0) {
+                return new Denial(Limit.SLOW_MODE, wait);
+            }
+        }
+        
+        if (playerLimited) {
+            long wait = acquire(buckets.messages, now, intervalNanos, toleranceNanos);
+            if (wait > 0) {
+                release(buckets.slowMode, slowModeNanos);
+                return new Denial(Limit.PLAYER, wait);
+            }
+        }
+        
+        if (globalLimited) {
+            long wait = acquire(global, now, globalIntervalNanos, globalToleranceNanos);
+            if (wait > 0) {
+                release(buckets.slowMode, slowModeNanos);
+                release(buckets.messages, playerLimited ? intervalNanos : 0);
+                return new Denial(Limit.GLOBAL, wait);
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Forgets the buckets of a player
+     * 
+     * @param playerUUID The UUID of the player
+     */
+    public void clearPlayer(UUID playerUUID) {
+        players.remove(playerUUID);
+    }
+    
+    private Buckets buckets(UUID playerUUID) {
+        return players.computeIfAbsent(playerUUID, uuid -> new Buckets());
+    }
+    
+    /**
+     * Moves the theoretical arrival time one interval ahead if it is within the tolerance
+     */
+    private static long acquire(AtomicLong bucket, long now, long interval, long tolerance) {
+        while (true) {
+            long current = bucket.get();
+            long arrival = Math.max(current, now);
+            long early = arrival - tolerance - now;
+            
+            if (early > 0) {
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(early));
+            }
+            if (bucket.compareAndSet(current, arrival + interval)) {
+                return 0;
+            }
+        }
+    }
+    
+    /**
+     * Gives back a message taken by {@link #acquire(AtomicLong, long, long, long)}. Arrival
+     * times only ever move by whole intervals, so this is exact even if other messages were
+     * taken in between.
+     */
+    private static void release(AtomicLong bucket, long interval) {
+        if (interval > 0) {
+            bucket.addAndGet(-interval);
+        }
+    }
+    
+    /**
+     * The buckets a message can be stopped by
+     */
+    public enum Limit {
+        SLOW_MODE,
+        PLAYER,
+        GLOBAL
+    }
+    
+    /**
+     * Why a message was not allowed
+     */
+    public static final class Denial {
+        private final Limit limit;
+        private final long waitMillis;
+        
+        private Denial(Limit limit, long waitMillis) {
+            this.limit = limit;
+            this.waitMillis = waitMillis;
+        }
+        
+        /**
+         * Gets the bucket that was empty
+         * 
+         * @return The limit
+         */
+        public Limit getLimit() {
+            return limit;
+        }
+        
+        /**
+         * Gets the time until the bucket has room for the message again
+         * 
+         * @return The wait in milliseconds, at least 1
+         */
+        public long getWaitMillis() {
+            return waitMillis;
+        }
+    }
+    
+    /**
+     * The theoretical arrival times of one player's next message and next slow mode message
+     */
+    private static final class Buckets {
+        private final AtomicLong messages = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong slowMode = new AtomicLong(Long.MIN_VALUE);
+    }
+}
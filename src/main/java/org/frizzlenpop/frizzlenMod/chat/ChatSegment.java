@@ -0,0 +1,300 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The file formats of the {@link ChatArchive}.
+ * The log of the current hour is a plain sequence of records. A closed hour is a segment:
+ * <pre>
+ *   magic, version
+ *   block*             deflated records, at most BLOCK_RECORDS each
+ *   index              per block: offset, length, first and last timestamp
+ *                      per sender: UUID and the numbers of the blocks they appear in
+ *   index offset
+ * </pre>
+ */
+final class ChatSegment {
+    static final String LOG_EXTENSION = ".log";
+    static final String SEGMENT_EXTENSION = ".seg";
+    
+    private static final int MAGIC = 0x46434C47;
+    private static final int VERSION = 1;
+    private static final int BLOCK_RECORDS = 256;
+    private static final long HOUR_MILLIS = 3600000L;
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH");
+    
+    private ChatSegment() {
+    }
+    
+    static long hourOf(long timestamp) {
+        return Math.floorDiv(timestamp, HOUR_MILLIS);
+    }
+    
+    static String nameOf(long hour) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(hour * HOUR_MILLIS), ZoneOffset.UTC).format(HOUR_FORMAT);
+    }
+    
+    /**
+     * Parses the hour from a log or segment file name
+     * 
+     * @return The hour, or -1 if this is not an archive file
+     */
+    static long parseHour(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return -1;
+        }
+        
+        String extension = fileName.substring(dot);
+        if (!extension.equals(LOG_EXTENSION) && !extension.equals(SEGMENT_EXTENSION)) {
+            return -1;
+        }
+        
+        try {
+            LocalDateTime time = LocalDateTime.parse(fileName.substring(0, dot) + ":00", DateTimeFormatter.ofPattern("yyyy-MM-dd_HH:mm"));
+            return hourOf(time.toInstant(ZoneOffset.UTC).toEpochMilli());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+    
+    static void writeRecord(DataOutput output, ChatArchive.Entry record) throws IOException {
+        output.writeLong(record.getTimestamp());
+        output.writeLong(record.getPlayerUUID().getMostSignificantBits());
+        output.writeLong(record.getPlayerUUID().getLeastSignificantBits());
+        output.writeUTF(record.getPlayerName());
+        output.writeUTF(record.getMessage());
+    }
+    
+    static ChatArchive.Entry readRecord(DataInput input) throws IOException {
+        long timestamp = input.readLong();
+        UUID playerUUID = new UUID(input.readLong(), input.readLong());
+        String playerName = input.readUTF();
+        String message = input.readUTF();
+        return new ChatArchive.Entry(timestamp, playerUUID, playerName, message);
+    }
+    
+    /**
+     * Reads the matching records of an uncompressed log. A record cut off by a crash ends the
+     * log.
+     */
+    static List<ChatArchive.Entry> scanLog(File log, UUID playerUUID, long from, long to) throws IOException {
+        List<ChatArchive.Entry> records = new ArrayList<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(log)))) {
+            while (true) {
+                ChatArchive.Entry record = readRecord(input);
+                if (record.matches(playerUUID, from, to)) {
+                    records.add(record);
+                }
+            }
+        } catch (EOFException e) {
+            return records;
+        }
+    }
+    
+    /**
+     * Compresses a log into a segment. If the segment already exists, because records of
+     * that hour arrived after it was compressed, its records are kept and merged with the
+     * log's. Records are sorted by time so the block time ranges in the index hold.
+     */
+    static void compress(File log, File segment) throws IOException {
+        List<ChatArchive.Entry> records = new ArrayList<>();
+        if (segment.exists()) {
+            records.addAll(search(segment, readIndex(segment), null, Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+        records.addAll(scanLog(log, null, Long.MIN_VALUE, Long.MAX_VALUE));
+        records.sort(Comparator.comparingLong(ChatArchive.Entry::getTimestamp));
+        File temporary = new File(segment.getPath() + ".tmp");
+        
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            
+            int blockCount = (records.size() + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+            long[] offsets = new long[blockCount];
+            int[] lengths = new int[blockCount];
+            long[] firstTimestamps = new long[blockCount];
+            long[] lastTimestamps = new long[blockCount];
+            Map<UUID, List<Integer>> senders = new LinkedHashMap<>();
+            
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                for (int block = 0; block < blockCount; block++) {
+                    int start = block * BLOCK_RECORDS;
+                    int end = Math.min(start + BLOCK_RECORDS, records.size());
+                    
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    deflater.reset();
+                    try (DataOutputStream blockOutput = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+                        blockOutput.writeInt(end - start);
+                        for (int i = start; i < end; i++) {
+                            ChatArchive.Entry record = records.get(i);
+                            writeRecord(blockOutput, record);
+                            
+                            List<Integer> blocks = senders.computeIfAbsent(record.getPlayerUUID(), uuid -> new ArrayList<>());
+                            if (blocks.isEmpty() || blocks.get(blocks.size() - 1) != block) {
+                                blocks.add(block);
+                            }
+                        }
+                    }
+                    
+                    offsets[block] = output.size();
+                    lengths[block] = bytes.size();
+                    firstTimestamps[block] = records.get(start).getTimestamp();
+                    lastTimestamps[block] = records.get(end - 1).getTimestamp();
+                    bytes.writeTo(output);
+                }
+            } finally {
+                deflater.end();
+            }
+            
+            long indexOffset = output.size();
+            output.writeInt(blockCount);
+            for (int block = 0; block < blockCount; block++) {
+                output.writeLong(offsets[block]);
+                output.writeInt(lengths[block]);
+                output.writeLong(firstTimestamps[block]);
+                output.writeLong(lastTimestamps[block]);
+            }
+            
+            output.writeInt(senders.size());
+            for (Map.Entry<UUID, List<Integer>> entry : senders.entrySet()) {
+                output.writeLong(entry.getKey().getMostSignificantBits());
+                output.writeLong(entry.getKey().getLeastSignificantBits());
+                output.writeInt(entry.getValue().size());
+                for (int block : entry.getValue()) {
+                    output.writeInt(block);
+                }
+            }
+            output.writeLong(indexOffset);
+        }
+        
+        if (segment.exists()) {
+            segment.delete();
+        }
+        if (!temporary.renameTo(segment)) {
+            throw new IOException("Could not rename " + temporary.getName());
+        }
+    }
+    
+    static Index readIndex(File segment) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+            if (file.readInt() != MAGIC || file.readInt() != VERSION) {
+                throw new IOException("Not a chat segment: " + segment.getName());
+            }
+            
+            file.seek(file.length() - 8);
+            file.seek(file.readLong());
+            
+            int blockCount = file.readInt();
+            Index index = new Index(blockCount);
+            for (int block = 0; block < blockCount; block++) {
+                index.offsets[block] = file.readLong();
+                index.lengths[block] = file.readInt();
+                index.firstTimestamps[block] = file.readLong();
+                index.lastTimestamps[block] = file.readLong();
+            }
+            
+            int senderCount = file.readInt();
+            for (int i = 0; i < senderCount; i++) {
+                UUID playerUUID = new UUID(file.readLong(), file.readLong());
+                int[] blocks = new int[file.readInt()];
+                for (int j = 0; j < blocks.length; j++) {
+                    blocks[j] = file.readInt();
+                }
+                index.senderBlocks.put(playerUUID, blocks);
+            }
+            return index;
+        }
+    }
+    
+    /**
+     * Reads the matching records of a segment, only decompressing the blocks that overlap
+     * the time range and contain the sender
+     */
+    static List<ChatArchive.Entry> search(File segment, Index index, UUID playerUUID, long from, long to) throws IOException {
+        List<ChatArchive.Entry> records = new ArrayList<>();
+        
+        int[] blocks;
+        if (playerUUID != null) {
+            blocks = index.senderBlocks.get(playerUUID);
+            if (blocks == null) {
+                return records;
+            }
+        } else {
+            blocks = new int[index.offsets.length];
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = i;
+            }
+        }
+        
+        try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+            for (int block : blocks) {
+                if (index.lastTimestamps[block] < from || index.firstTimestamps[block] > to) {
+                    continue;
+                }
+                
+                byte[] compressed = new byte[index.lengths[block]];
+                file.seek(index.offsets[block]);
+                file.readFully(compressed);
+                
+                try (DataInputStream input = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+                    int count = input.readInt();
+                    for (int i = 0; i < count; i++) {
+                        ChatArchive.Entry record = readRecord(input);
+                        if (record.matches(playerUUID, from, to)) {
+                            records.add(record);
+                        }
+                    }
+                }
+            }
+        }
+        return records;
+    }
+    
+    /**
+     * The block table and sender index of a closed segment
+     */
+    static final class Index {
+        private final long[] offsets;
+        private final int[] lengths;
+        private final long[] firstTimestamps;
+        private final long[] lastTimestamps;
+        private final Map<UUID, int[]> senderBlocks = new HashMap<>();
+        
+        private Index(int blockCount) {
+            this.offsets = new long[blockCount];
+            this.lengths = new int[blockCount];
+            this.firstTimestamps = new long[blockCount];
+            this.lastTimestamps = new long[blockCount];
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One check of the {@link ChatPipeline}, with counters for how often it ran, how often it
+ * acted on a message and how long it took in total
+ */
+public final class ChatStage {
+    /**
+     * What a stage did with a message
+     */
+    public enum Result {
+        // Nothing to do, continue with the next stage
+        PASS,
+        // The stage acted on the message (for example masked it), continue with the next stage
+        HIT,
+        // Only the sender sees the message, later stages are skipped
+        HIDE,
+        // The message is cancelled, later stages are skipped
+        BLOCK
+    }
+    
+    /**
+     * The check a stage runs
+     */
+    @FunctionalInterface
+    public interface Check {
+        Result apply(ChatMessage message);
+    }
+    
+    private final String name;
+    private final Check check;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    
+    /**
+     * Creates a stage
+     * 
+     * @param name The name shown in statistics
+     * @param check The check to run
+     */
+    public ChatStage(String name, Check check) {
+        this.name = name;
+        this.check = check;
+    }
+    
+    /**
+     * Runs the check and records its cost
+     * 
+     * @param message The message to check
+     * @return What the check did with the message
+     */
+    Result run(ChatMessage message) {
+        long start = System.nanoTime();
+        Result result = check.apply(message);
+        totalNanos.add(System.nanoTime() - start);
+        calls.increment();
+        if (result != Result.PASS) {
+            hits.increment();
+        }
+        return result;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public long getCalls() {
+        return calls.sum();
+    }
+    
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+    
+    /**
+     * Resets the counters of this stage
+     */
+    public void resetStats() {
+        calls.reset();
+        hits.reset();
+        totalNanos.reset();
+    }
+}
@@ -0,0 +1,240 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Calls a {@link MessageClassifier} without letting it slow down chat. Every call runs on
+ * its own virtual thread, the number of calls in flight is capped and calls over the cap are
+ * skipped rather than queued without bound. Callers wait at most the timeout for a score.
+ * After a number of failures in a row a circuit breaker stops calling the classifier for a
+ * while, then lets a single call through to see if it recovered.
+ */
+public final class ClassifierService {
+    private static final int ALLOW = 1;
+    private static final int PROBE = 2;
+    private static final int DENY = 0;
+    
+    private final MessageClassifier classifier;
+    private final long timeoutMillis;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private volatile long openUntil;
+    
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    
+    /**
+     * Creates a service
+     * 
+     * @param classifier The classifier to call
+     * @param maxInFlight The number of calls that may run at once
+     * @param timeoutMillis How long a caller waits for a score
+     * @param failureThreshold The number of failures or timeouts in a row that opens the breaker
+     * @param openMillis How long the breaker stays open before a call is tried again
+     */
+    public ClassifierService(MessageClassifier classifier, int maxInFlight, long timeoutMillis,
+                             int failureThreshold, long openMillis) {
+        this.classifier = classifier;
+        this.permits = new Semaphore(Math.max(1, maxInFlight));
+        this.timeoutMillis = Math.max(1, timeoutMillis);
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = Math.max(0, openMillis);
+    }
+    
+    /**
+     * Scores a message and waits for the result
+     * 
+     * @param playerUUID The UUID of the sender
+     * @param message The message
+     * @return The score, or NaN if the classifier is unavailable, busy, failed or timed out
+     */
+    public double classifyNow(UUID playerUUID, String message) {
+        CompletableFuture<Double> future = submit(playerUUID, message);
+        if (future == null) {
+            return Double.NaN;
+        }
+        
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Double.NaN;
+        } catch (ExecutionException e) {
+            return Double.NaN;
+        }
+    }
+    
+    /**
+     * Scores a message in the background
+     * 
+     * @param playerUUID The UUID of the sender
+     * @param message The message
+     * @param callback Receives the score on the classifier thread, not called if there is none
+     * @return false if the call was skipped because the classifier is unavailable or busy
+     */
+    public boolean classifyLater(UUID playerUUID, String message, DoubleConsumer callback) {
+        CompletableFuture<Double> future = submit(playerUUID, message);
+        if (future == null) {
+            return false;
+        }
+        
+        future.thenAccept(callback::accept);
+        return true;
+    }
+    
+    /**
+     * Stops all calls and closes the classifier
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        classifier.close();
+    }
+    
+    /**
+     * Starts a call, or returns null if the breaker is open or too many calls are running.
+     * The permit is held until the classifier returns, not until the caller stops waiting,
+     * so a hanging classifier can't pile up threads beyond the cap.
+     */
+    private CompletableFuture<Double> submit(UUID playerUUID, String message) {
+        int admission = admit();
+        if (admission == DENY) {
+            shortCircuited.increment();
+            return null;
+        }
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            if (admission == PROBE) {
+                probing.set(false);
+            }
+            return null;
+        }
+        
+        calls.increment();
+        long start = System.nanoTime();
+        CompletableFuture<Double> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return classifier.classify(playerUUID, message);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                } finally {
+                    permits.release();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            // Shut down
+            permits.release();
+            return null;
+        }
+        
+        return future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((score, error) -> {
+            totalNanos.add(System.nanoTime() - start);
+            if (error == null) {
+                onSuccess(admission);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                (cause instanceof TimeoutException ? timeouts : failures).increment();
+                onFailure(admission);
+            }
+        });
+    }
+    
+    private int admit() {
+        long until = openUntil;
+        if (until == 0) {
+            return ALLOW;
+        }
+        if (System.currentTimeMillis() < until) {
+            return DENY;
+        }
+        // Half open, one call finds out if the classifier is back
+        return probing.compareAndSet(false, true) ? PROBE : DENY;
+    }
+    
+    private void onSuccess(int admission) {
+        consecutiveFailures.set(0);
+        openUntil = 0;
+        if (admission == PROBE) {
+            probing.set(false);
+        }
+    }
+    
+    private void onFailure(int admission) {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold || admission == PROBE) {
+            openUntil = System.currentTimeMillis() + openMillis;
+        }
+        if (admission == PROBE) {
+            probing.set(false);
+        }
+    }
+    
+    /**
+     * Checks if the breaker currently stops calls. Once the open time has passed the breaker
+     * is half open and lets a probe through, which counts as closed here.
+     * 
+     * @return true if the breaker is open
+     */
+    public boolean isOpen() {
+        return System.currentTimeMillis() < openUntil;
+    }
+    
+    public MessageClassifier getClassifier() {
+        return classifier;
+    }
+    
+    public long getCalls() {
+        return calls.sum();
+    }
+    
+    public long getRejected() {
+        return rejected.sum();
+    }
+    
+    public long getShortCircuited() {
+        return shortCircuited.sum();
+    }
+    
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+    
+    public long getFailures() {
+        return failures.sum();
+    }
+    
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+    
+    public void resetStats() {
+        calls.reset();
+        rejected.reset();
+        shortCircuited.reset();
+        timeouts.reset();
+        failures.reset();
+        totalNanos.reset();
+    }
+}
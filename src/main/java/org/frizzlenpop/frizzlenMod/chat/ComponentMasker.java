@@ -0,0 +1,72 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carries the masking done on the plain-text projection of a chat component back into the
+ * component, so styles, hover and click events of the rest of the message are kept. The
+ * component is walked in the same order the plain serializer flattens it, text content is
+ * replaced range by range and every other kind of component is left as it is.
+ */
+public final class ComponentMasker {
+    private ComponentMasker() {
+    }
+    
+    /**
+     * Gets the plain text of a component, which is what the chat pipeline checks
+     * 
+     * @param component The component
+     * @return The plain text
+     */
+    public static String plainText(Component component) {
+        return PlainTextComponentSerializer.plainText().serialize(component);
+    }
+    
+    /**
+     * Applies a masked plain text to the component it was projected from
+     * 
+     * @param component The original component
+     * @param masked The masked plain text, the same length as the original plain text
+     * @return The masked component
+     */
+    public static Component mask(Component component, String masked) {
+        return mask(component, masked, new int[1]);
+    }
+    
+    private static Component mask(Component component, String masked, int[] offset) {
+        Component result = component;
+        
+        if (component instanceof TextComponent text) {
+            String content = text.content();
+            int start = Math.min(offset[0], masked.length());
+            int end = Math.min(start + content.length(), masked.length());
+            String replacement = masked.substring(start, end) + content.substring(end - start);
+            if (!replacement.equals(content)) {
+                result = text.content(replacement);
+            }
+            offset[0] += content.length();
+        } else {
+            // Translatable, keybind and similar components, skip over what they render to
+            offset[0] += plainText(component.children(List.of())).length();
+        }
+        
+        List<Component> children = component.children();
+        if (children.isEmpty()) {
+            return result;
+        }
+        
+        List<Component> maskedChildren = new ArrayList<>(children.size());
+        boolean changed = false;
+        for (Component child : children) {
+            Component maskedChild = mask(child, masked, offset);
+            changed |= maskedChild != child;
+            maskedChildren.add(maskedChild);
+        }
+        return changed ? result.children(maskedChildren) : result;
+    }
+}
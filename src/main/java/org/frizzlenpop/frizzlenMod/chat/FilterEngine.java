@@ -0,0 +1,165 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The compiled chat filter: the word automaton and the regex patterns, both evaluated on the
+ * normalized form of a message produced by {@link TextNormalizer}. Matches found in the
+ * normalized text are mapped back so masking always applies to the original message.
+ */
+public final class FilterEngine {
+    private static final FilterEngine EMPTY = new FilterEngine(WordFilter.empty(), PatternFilter.empty());
+    
+    private final WordFilter wordFilter;
+    private final PatternFilter patternFilter;
+    
+    private FilterEngine(WordFilter wordFilter, PatternFilter patternFilter) {
+        this.wordFilter = wordFilter;
+        this.patternFilter = patternFilter;
+    }
+    
+    /**
+     * Gets an engine without any words or patterns
+     * 
+     * @return The empty engine
+     */
+    public static FilterEngine empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Compiles the configured words and patterns
+     * 
+     * @param words The blacklisted words, normalized the same way messages are
+     * @param patterns The blacklisted regex sources
+     * @param stepBudget The per-pattern step budget, see {@link PatternFilter#compile}
+     * @param warningLogger Receives pattern budget warnings, may be null
+     * @return The compiled engine
+     */
+    public static FilterEngine compile(List<String> words, List<String> patterns, long stepBudget,
+                                       Consumer<String> warningLogger) {
+        List<String> canonicalWords = new ArrayList<>(words.size());
+        for (String word : words) {
+            if (word != null) {
+                canonicalWords.add(TextNormalizer.canonicalize(word.trim()));
+            }
+        }
+        
+        return new FilterEngine(WordFilter.compile(canonicalWords),
+                PatternFilter.compile(patterns, stepBudget, warningLogger));
+    }
+    
+    /**
+     * Checks if the text contains a blacklisted word or pattern
+     * 
+     * @param text The text to check
+     * @return true if anything matched
+     */
+    public boolean containsMatch(String text) {
+        if (isEmpty()) {
+            return false;
+        }
+        
+        NormalizedText normalized = TextNormalizer.normalize(text);
+        return wordFilter.containsMatch(normalized.canonical())
+                || patternFilter.containsMatch(normalized.folded());
+    }
+    
+    /**
+     * Replaces everything matched in the normalized text with asterisks in the original text
+     * 
+     * @param text The text to mask
+     * @return The masked text, or the same instance if nothing matched
+     */
+    public String mask(String text) {
+        if (isEmpty()) {
+            return text;
+        }
+        
+        NormalizedText normalized = TextNormalizer.normalize(text);
+        SourceMasker masker = new SourceMasker(text, normalized);
+        
+        masker.canonical = true;
+        wordFilter.findMatches(normalized.canonical(), masker);
+        masker.canonical = false;
+        patternFilter.findMatches(normalized.folded(), masker);
+        
+        return masker.result();
+    }
+    
+    /**
+     * Checks if there is nothing to filter
+     * 
+     * @return true if there are no words and no patterns
+     */
+    public boolean isEmpty() {
+        return wordFilter.isEmpty() && patternFilter.isEmpty();
+    }
+    
+    /**
+     * Estimates the memory used by the compiled automaton and patterns
+     * 
+     * @return The estimated size in bytes
+     */
+    public long estimateBytes() {
+        return wordFilter.estimateBytes() + patternFilter.estimateBytes();
+    }
+    
+    /**
+     * Gets the compiled word automaton
+     * 
+     * @return The word filter
+     */
+    public WordFilter getWordFilter() {
+        return wordFilter;
+    }
+    
+    /**
+     * Gets the compiled regex patterns
+     * 
+     * @return The pattern filter
+     */
+    public PatternFilter getPatternFilter() {
+        return patternFilter;
+    }
+    
+    /**
+     * Masks ranges of the normalized text in a lazily copied array of the original text
+     */
+    private static final class SourceMasker implements MatchConsumer {
+        private final String text;
+        private final NormalizedText normalized;
+        private boolean canonical;
+        private char[] masked;
+        
+        private SourceMasker(String text, NormalizedText normalized) {
+            this.text = text;
+            this.normalized = normalized;
+        }
+        
+        @Override
+        public boolean onMatch(int start, int end) {
+            // A pattern that can match nothing, like x*, has nothing to mask
+            if (end <= start) {
+                return true;
+            }
+            
+            long range = canonical
+                    ? normalized.canonicalToSource(start, end)
+                    : normalized.foldedToSource(start, end);
+            
+            if (masked == null) {
+                masked = text.toCharArray();
+            }
+            Arrays.fill(masked, NormalizedText.rangeStart(range), NormalizedText.rangeEnd(range), '*');
+            return true;
+        }
+        
+        private String result() {
+            return masked == null ? text : new String(masked);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Scores messages with a model served over HTTP. Every message is posted as
+ * {@code {"player": "<uuid>", "message": "<text>"}} and the server answers with
+ * {@code {"score": <0..1>}}.
+ */
+public final class HttpClassifier implements MessageClassifier {
+    private final URI endpoint;
+    private final Duration timeout;
+    private final HttpClient client;
+    private final Gson gson = new Gson();
+    
+    /**
+     * Creates an HTTP classifier
+     * 
+     * @param endpoint The URL messages are posted to
+     * @param timeoutMillis The connect and request timeout
+     */
+    public HttpClassifier(URI endpoint, long timeoutMillis) {
+        this.endpoint = endpoint;
+        this.timeout = Duration.ofMillis(Math.max(1, timeoutMillis));
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+    }
+    
+    @Override
+    public String getName() {
+        return "http " + endpoint;
+    }
+    
+    @Override
+    public double classify(UUID playerUUID, String message) throws IOException, InterruptedException {
+        JsonObject body = new JsonObject();
+        body.addProperty("player", playerUUID.toString());
+        body.addProperty("message", message);
+        
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(body)))
+                .build();
+        
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Classifier answered with status " + response.statusCode());
+        }
+        
+        JsonObject result = gson.fromJson(response.body(), JsonObject.class);
+        if (result == null || !result.has("score")) {
+            throw new IOException("Classifier answer has no score");
+        }
+        return result.get("score").getAsDouble();
+    }
+}
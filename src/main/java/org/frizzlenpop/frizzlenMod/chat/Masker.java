@@ -0,0 +1,33 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.Arrays;
+
+/**
+ * Masks reported matches with asterisks, copying the text only once something matched
+ */
+final class Masker implements MatchConsumer {
+    private final String text;
+    private char[] masked;
+    
+    Masker(String text) {
+        this.text = text;
+    }
+    
+    @Override
+    public boolean onMatch(int start, int end) {
+        if (masked == null) {
+            masked = text.toCharArray();
+        }
+        Arrays.fill(masked, start, end, '*');
+        return true;
+    }
+    
+    /**
+     * Gets the masked text
+     * 
+     * @return The masked text, or the original instance if nothing matched
+     */
+    String result() {
+        return masked == null ? text : new String(masked);
+    }
+}
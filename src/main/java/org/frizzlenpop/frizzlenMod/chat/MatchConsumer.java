@@ -0,0 +1,17 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+/**
+ * Receives the character ranges found by one of the chat filters
+ */
+@FunctionalInterface
+public interface MatchConsumer {
+    
+    /**
+     * Called once for every match
+     * 
+     * @param start The index of the first matched character
+     * @param end The index after the last matched character
+     * @return true to keep scanning, false to stop at this match
+     */
+    boolean onMatch(int start, int end);
+}
@@ -0,0 +1,33 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.UUID;
+
+/**
+ * Scores chat messages, for example with a toxicity model. Implementations are called by
+ * the {@link ClassifierService} on virtual threads and may block, the service takes care of
+ * concurrency limits and timeouts.
+ */
+public interface MessageClassifier {
+    /**
+     * Gets the name shown in statistics and logs
+     * 
+     * @return The classifier name
+     */
+    String getName();
+    
+    /**
+     * Scores a message
+     * 
+     * @param playerUUID The UUID of the sender
+     * @param message The original text of the message
+     * @return The score between 0 (harmless) and 1 (certainly harmful)
+     * @throws Exception If the message could not be scored
+     */
+    double classify(UUID playerUUID, String message) throws Exception;
+    
+    /**
+     * Releases the resources of the classifier
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,174 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.Arrays;
+
+/**
+ * The result of running a message through {@link TextNormalizer}.
+ * It holds two forms of the message, each with a map from every output character back to
+ * the range of original characters it came from:
+ * <ul>
+ *     <li>The folded form only removes invisible characters and folds case, width,
+ *     accents and confusable letters. Regex patterns run on it.</li>
+ *     <li>The canonical form additionally undoes leetspeak, joins letters split by
+ *     separators and caps repeated characters. The word automaton runs on it.</li>
+ * </ul>
+ * Instances are reused per thread and only stay valid until the next normalization on the
+ * same thread.
+ */
+public final class NormalizedText {
+    private CharSequence source;
+    
+    char[] folded = new char[256];
+    int[] foldedStart = new int[256];
+    int[] foldedEnd = new int[256];
+    int foldedLength;
+    
+    char[] canonical = new char[256];
+    int[] canonicalStart = new int[256];
+    int[] canonicalEnd = new int[256];
+    int canonicalLength;
+    
+    private final CharSequence foldedView = new View(true);
+    private final CharSequence canonicalView = new View(false);
+    
+    NormalizedText() {
+    }
+    
+    /**
+     * Clears the buffers and makes sure they can hold a message of the given length
+     */
+    void reset(CharSequence source) {
+        this.source = source;
+        this.foldedLength = 0;
+        this.canonicalLength = 0;
+        
+        int length = source.length();
+        if (folded.length < length) {
+            int capacity = Math.max(length, folded.length * 2);
+            folded = new char[capacity];
+            foldedStart = new int[capacity];
+            foldedEnd = new int[capacity];
+            canonical = new char[capacity];
+            canonicalStart = new int[capacity];
+            canonicalEnd = new int[capacity];
+        }
+    }
+    
+    /**
+     * Gets the text this was normalized from
+     * 
+     * @return The original text
+     */
+    public CharSequence getSource() {
+        return source;
+    }
+    
+    /**
+     * Gets the folded form as a view over the internal buffer
+     * 
+     * @return The folded text
+     */
+    public CharSequence folded() {
+        return foldedView;
+    }
+    
+    /**
+     * Gets the canonical form as a view over the internal buffer
+     * 
+     * @return The canonical text
+     */
+    public CharSequence canonical() {
+        return canonicalView;
+    }
+    
+    /**
+     * Hashes the letters and digits of the canonical form with 64-bit FNV-1a, so messages
+     * that only differ in punctuation, spacing or the tricks the normalizer undoes get the
+     * same fingerprint
+     * 
+     * @return The fingerprint of the canonical text
+     */
+    public long fingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < canonicalLength; i++) {
+            char c = canonical[i];
+            if (Character.isLetterOrDigit(c)) {
+                hash ^= c;
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+    
+    /**
+     * Maps a range of the folded form back to the original text
+     * 
+     * @param start The first folded index
+     * @param end The folded index after the range
+     * @return The original range packed as start in the high and end in the low 32 bits
+     */
+    public long foldedToSource(int start, int end) {
+        return pack(foldedStart[start], foldedEnd[end - 1]);
+    }
+    
+    /**
+     * Maps a range of the canonical form back to the original text
+     * 
+     * @param start The first canonical index
+     * @param end The canonical index after the range
+     * @return The original range packed as start in the high and end in the low 32 bits
+     */
+    public long canonicalToSource(int start, int end) {
+        return pack(canonicalStart[start], canonicalEnd[end - 1]);
+    }
+    
+    /**
+     * Gets the start of a range returned by one of the mapping methods
+     */
+    public static int rangeStart(long range) {
+        return (int) (range >>> 32);
+    }
+    
+    /**
+     * Gets the end of a range returned by one of the mapping methods
+     */
+    public static int rangeEnd(long range) {
+        return (int) range;
+    }
+    
+    private static long pack(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Read-only CharSequence over one of the buffers, so the filters can scan it without
+     * copying it into a String
+     */
+    private final class View implements CharSequence {
+        private final boolean foldedForm;
+        
+        private View(boolean foldedForm) {
+            this.foldedForm = foldedForm;
+        }
+        
+        @Override
+        public int length() {
+            return foldedForm ? foldedLength : canonicalLength;
+        }
+        
+        @Override
+        public char charAt(int index) {
+            return foldedForm ? folded[index] : canonical[index];
+        }
+        
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(Arrays.copyOfRange(foldedForm ? folded : canonical, start, end));
+        }
+        
+        @Override
+        public String toString() {
+            return new String(foldedForm ? folded : canonical, 0, length());
+        }
+    }
+}
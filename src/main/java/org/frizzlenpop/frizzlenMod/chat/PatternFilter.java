@@ -0,0 +1,535 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Runs the configured blacklist regexes over a message.
+ * Patterns that cannot backtrack badly are also merged into one alternation that is used as
+ * a prefilter: a message it finds nothing in is scanned once for all of them, and otherwise
+ * each merged pattern runs on its own from the first hit, so overlapping matches of
+ * different patterns are all masked. Patterns that use back-references, lookaround or
+ * repeated groups with quantifiers or alternatives inside are always run on their own.
+ * Every evaluation reads the message through a {@link BudgetedCharSequence}, so a
+ * pathological pattern gives up after a fixed number of steps instead of pinning an async
+ * chat thread.
+ */
+public final class PatternFilter {
+    private static final PatternFilter EMPTY = compile(Collections.emptyList(), 1, null);
+    
+    // Rough size of the compiled nodes per character of regex source
+    private static final int REGEX_BYTES_PER_CHAR = 48;
+    
+    private final List<Entry> entries;
+    private final List<String> invalidPatterns;
+    // All safe patterns as one alternation, only used to rule out clean messages
+    private final Pattern combined;
+    private final Entry[] combinedEntries;
+    private final Entry[] isolatedEntries;
+    private final Stats combinedStats;
+    private final long stepBudget;
+    private final Consumer<String> warningLogger;
+    // Matchers and budget wrappers are reused per thread instead of allocated per message
+    private final ThreadLocal<Workspace> workspaces;
+    
+    private PatternFilter(List<Entry> entries, List<String> invalidPatterns, Pattern combined,
+                          Entry[] combinedEntries, Entry[] isolatedEntries,
+                          long stepBudget, Consumer<String> warningLogger) {
+        this.entries = entries;
+        this.invalidPatterns = invalidPatterns;
+        this.combined = combined;
+        this.combinedEntries = combinedEntries;
+        this.isolatedEntries = isolatedEntries;
+        this.combinedStats = new Stats("<prefilter>", true);
+        this.stepBudget = stepBudget;
+        this.warningLogger = warningLogger;
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(combined, combinedEntries, isolatedEntries));
+    }
+    
+    /**
+     * Gets a filter without any patterns
+     * 
+     * @return The empty filter
+     */
+    public static PatternFilter empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Compiles the configured regex list
+     * 
+     * @param sources The regex sources, matched case-insensitively
+     * @param stepBudget The maximum number of characters a single pattern may read per message
+     * @param warningLogger Receives a warning the first time a pattern runs out of budget, may be null
+     * @return The compiled filter, invalid patterns are skipped and listed in {@link #getInvalidPatterns()}
+     */
+    public static PatternFilter compile(List<String> sources, long stepBudget, Consumer<String> warningLogger) {
+        List<Entry> entries = new ArrayList<>();
+        List<String> invalid = new ArrayList<>();
+        List<Entry> safe = new ArrayList<>();
+        List<Entry> isolated = new ArrayList<>();
+        
+        for (String source : sources) {
+            if (source == null || source.isEmpty()) continue;
+            
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(source, Pattern.CASE_INSENSITIVE);
+            } catch (PatternSyntaxException e) {
+                invalid.add(source);
+                continue;
+            }
+            
+            boolean backtracking = needsBacktracking(source);
+            Entry entry = new Entry(source, pattern, !backtracking);
+            entries.add(entry);
+            (backtracking ? isolated : safe).add(entry);
+        }
+        
+        // Merge the safe patterns into the prefilter
+        Pattern combined = null;
+        if (!safe.isEmpty()) {
+            StringBuilder alternation = new StringBuilder();
+            for (int i = 0; i < safe.size(); i++) {
+                if (i > 0) alternation.append('|');
+                alternation.append("(?:").append(safe.get(i).source).append(')');
+            }
+            
+            try {
+                combined = Pattern.compile(alternation.toString(), Pattern.CASE_INSENSITIVE);
+            } catch (PatternSyntaxException e) {
+                // Should not happen since every part compiled on its own, fall back to isolation
+                isolated.addAll(safe);
+                safe.clear();
+            }
+        }
+        
+        return new PatternFilter(Collections.unmodifiableList(entries), Collections.unmodifiableList(invalid),
+                combined, safe.toArray(new Entry[0]), isolated.toArray(new Entry[0]),
+                Math.max(1, stepBudget), warningLogger);
+    }
+    
+    /**
+     * Checks if any pattern matches the text
+     * 
+     * @param text The text to scan
+     * @return true if at least one pattern matched
+     */
+    public boolean containsMatch(CharSequence text) {
+        return findMatches(text, (start, end) -> false) > 0;
+    }
+    
+    /**
+     * Finds every match of every pattern in the text. Matches of the merged patterns come
+     * first in text order, followed by the matches of each isolated pattern.
+     * 
+     * @param text The text to scan
+     * @param consumer Receives each match, and can stop the scan early
+     * @return The number of matches reported
+     */
+    public int findMatches(CharSequence text, MatchConsumer consumer) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        
+        Workspace workspace = workspaces.get();
+        workspace.stopped = false;
+        int matches = 0;
+        
+        // A clean message costs one scan of the alternation, the merged patterns only run
+        // on their own from the first position where one of them matched
+        int from = combined != null ? prefilter(workspace, text) : -1;
+        if (from >= 0) {
+            for (int i = 0; i < combinedEntries.length; i++) {
+                matches += scan(workspace, combinedEntries[i], workspace.combinedMatchers[i], text, from, consumer);
+                if (workspace.stopped) {
+                    return matches;
+                }
+            }
+        }
+        
+        for (int i = 0; i < isolatedEntries.length; i++) {
+            matches += scan(workspace, isolatedEntries[i], workspace.isolatedMatchers[i], text, 0, consumer);
+            if (workspace.stopped) {
+                return matches;
+            }
+        }
+        
+        return matches;
+    }
+    
+    /**
+     * Finds the first position where any merged pattern matches. An alternation finds a
+     * match wherever one of its parts does, so no match here means none of the merged
+     * patterns match anywhere.
+     * 
+     * @return The index to scan the merged patterns from, or -1 if none of them match
+     */
+    private int prefilter(Workspace workspace, CharSequence text) {
+        Matcher matcher = workspace.combinedMatcher;
+        long started = System.nanoTime();
+        int from = -1;
+        
+        try {
+            matcher.reset(workspace.input.reset(text, stepBudget));
+            if (matcher.find()) {
+                from = matcher.start();
+            }
+        } catch (BudgetedCharSequence.BudgetExceededException e) {
+            // Each pattern still gets its own budget, so one crafted message can't skip them all
+            onBudgetExceeded(combinedStats, text);
+            from = 0;
+        } finally {
+            combinedStats.record(System.nanoTime() - started, from >= 0 ? 1 : 0);
+            matcher.reset("");
+        }
+        return from;
+    }
+    
+    /**
+     * Reports the matches of one pattern from an index on, with the pattern's own budget
+     * 
+     * @return The number of matches reported, {@link Workspace#stopped} is set if the
+     *         consumer stopped the scan
+     */
+    private int scan(Workspace workspace, Entry entry, Matcher matcher, CharSequence text, int from,
+                     MatchConsumer consumer) {
+        long started = System.nanoTime();
+        int found = 0;
+        
+        try {
+            matcher.reset(workspace.input.reset(text, stepBudget));
+            boolean hit = matcher.find(from);
+            while (hit) {
+                // Patterns like x* also match the empty string between characters
+                if (matcher.end() > matcher.start()) {
+                    found++;
+                    if (!consumer.onMatch(matcher.start(), matcher.end())) {
+                        workspace.stopped = true;
+                        break;
+                    }
+                }
+                hit = matcher.find();
+            }
+        } catch (BudgetedCharSequence.BudgetExceededException e) {
+            onBudgetExceeded(entry.stats, text);
+        } finally {
+            entry.stats.record(System.nanoTime() - started, found);
+            matcher.reset("");
+        }
+        return found;
+    }
+    
+    /**
+     * Replaces every match with asterisks of the same length
+     * 
+     * @param text The text to mask
+     * @return The masked text, or the same instance if nothing matched
+     */
+    public String mask(String text) {
+        Masker masker = new Masker(text);
+        findMatches(text, masker);
+        return masker.result();
+    }
+    
+    /**
+     * Checks if this filter has no valid patterns
+     * 
+     * @return true if the filter can never match
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+    
+    /**
+     * Gets the number of valid patterns
+     * 
+     * @return The pattern count
+     */
+    public int getPatternCount() {
+        return entries.size();
+    }
+    
+    /**
+     * Estimates the memory used by the compiled patterns. java.util.regex does not expose
+     * its node graph, so this assumes a fixed cost per source character, which is in the
+     * right range for typical blacklist patterns.
+     * 
+     * @return The estimated size in bytes
+     */
+    public long estimateBytes() {
+        long bytes = 64;
+        for (Entry entry : entries) {
+            bytes += 160 + (2L + REGEX_BYTES_PER_CHAR) * entry.source.length();
+        }
+        if (combined != null) {
+            bytes += (2L + REGEX_BYTES_PER_CHAR) * combined.pattern().length();
+        }
+        return bytes;
+    }
+    
+    /**
+     * Gets the configured patterns that failed to compile
+     * 
+     * @return The invalid regex sources
+     */
+    public List<String> getInvalidPatterns() {
+        return invalidPatterns;
+    }
+    
+    /**
+     * Gets the match counters and costs for tuning. The prefilter alternation is reported
+     * as its own entry, first, and counts the messages it found a possible match in.
+     * 
+     * @return A snapshot of the statistics, one entry per pattern
+     */
+    public List<PatternStats> getStats() {
+        List<PatternStats> snapshot = new ArrayList<>();
+        if (combined != null) {
+            snapshot.add(combinedStats.snapshot());
+        }
+        for (Entry entry : entries) {
+            snapshot.add(entry.stats.snapshot());
+        }
+        return snapshot;
+    }
+    
+    public void resetStats() {
+        combinedStats.reset();
+        for (Entry entry : entries) {
+            entry.stats.reset();
+        }
+    }
+    
+    private void onBudgetExceeded(Stats stats, CharSequence text) {
+        stats.budgetExceeded.increment();
+        if (warningLogger != null && stats.warned.compareAndSet(false, true)) {
+            warningLogger.accept("Chat filter pattern " + stats.source + " exceeded its step budget of "
+                    + stepBudget + " on a " + text.length() + " character message and was skipped");
+        }
+    }
+    
+    /**
+     * Checks a regex source for constructs that can make java.util.regex backtrack
+     * exponentially: back-references, lookaround and repeated groups that contain a
+     * quantifier or alternatives, like (a+)+, (a|aa)+ or (.*a){20}.
+     * 
+     * @param source The regex source
+     * @return true if the pattern should be isolated and budgeted on its own
+     */
+    static boolean needsBacktracking(String source) {
+        // Tracks, per open group, whether a quantifier or an alternative appeared inside it
+        boolean[] ambiguousInside = new boolean[source.length() + 1];
+        int depth = 0;
+        boolean inClass = false;
+        
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            
+            if (c == '\\') {
+                if (i + 1 < source.length()) {
+                    char next = source.charAt(i + 1);
+                    if ((next >= '1' && next <= '9') || next == 'k') {
+                        return true; // Back-reference
+                    }
+                }
+                i++;
+                continue;
+            }
+            
+            if (inClass) {
+                if (c == ']') inClass = false;
+                continue;
+            }
+            
+            switch (c) {
+                case '[':
+                    inClass = true;
+                    break;
+                case '(':
+                    if (source.startsWith("(?=", i) || source.startsWith("(?!", i)
+                            || source.startsWith("(?<=", i) || source.startsWith("(?<!", i)) {
+                        return true; // Lookaround
+                    }
+                    depth++;
+                    ambiguousInside[depth] = false;
+                    break;
+                case ')':
+                    boolean inner = depth > 0 && ambiguousInside[depth];
+                    if (depth > 0) depth--;
+                    if (inner && isRepeatingQuantifier(source, i + 1)) {
+                        return true; // Repeated ambiguous group such as (a+)+ or (a|aa){3}
+                    }
+                    if (inner) {
+                        ambiguousInside[depth] = true;
+                    }
+                    break;
+                case '|':
+                case '*':
+                case '+':
+                case '{':
+                    ambiguousInside[depth] = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Checks if a quantifier that can repeat its group more than once starts at an index
+     */
+    private static boolean isRepeatingQuantifier(String source, int index) {
+        if (index >= source.length()) {
+            return false;
+        }
+        
+        char c = source.charAt(index);
+        if (c == '*' || c == '+') {
+            return true;
+        }
+        if (c == '{') {
+            int close = source.indexOf('}', index);
+            if (close < 0) {
+                return false;
+            }
+            String bounds = source.substring(index + 1, close);
+            int comma = bounds.indexOf(',');
+            String max = comma < 0 ? bounds : bounds.substring(comma + 1);
+            // {n,} is unbounded, {1} and {0,1} repeat at most once
+            return max.isEmpty() || !max.trim().matches("[01]");
+        }
+        return false;
+    }
+    
+    /**
+     * Per-thread reusable matchers and input wrapper
+     */
+    private static final class Workspace {
+        private final BudgetedCharSequence input = new BudgetedCharSequence();
+        private final Matcher combinedMatcher;
+        private final Matcher[] combinedMatchers;
+        private final Matcher[] isolatedMatchers;
+        private boolean stopped;
+        
+        private Workspace(Pattern combined, Entry[] combinedEntries, Entry[] isolatedEntries) {
+            this.combinedMatcher = combined != null ? combined.matcher("") : null;
+            this.combinedMatchers = matchers(combinedEntries);
+            this.isolatedMatchers = matchers(isolatedEntries);
+        }
+        
+        private static Matcher[] matchers(Entry[] entries) {
+            Matcher[] matchers = new Matcher[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                matchers[i] = entries[i].pattern.matcher("");
+            }
+            return matchers;
+        }
+    }
+    
+    /**
+     * A compiled pattern and its counters
+     */
+    private static final class Entry {
+        private final String source;
+        private final Pattern pattern;
+        private final Stats stats;
+        
+        private Entry(String source, Pattern pattern, boolean combined) {
+            this.source = source;
+            this.pattern = pattern;
+            this.stats = new Stats(source, combined);
+        }
+    }
+    
+    /**
+     * Live counters for a pattern or for the merged alternation
+     */
+    private static final class Stats {
+        private final String source;
+        private final boolean combined;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder matches = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder budgetExceeded = new LongAdder();
+        private final AtomicBoolean warned = new AtomicBoolean();
+        
+        private Stats(String source, boolean combined) {
+            this.source = source;
+            this.combined = combined;
+        }
+        
+        private void record(long elapsedNanos, int found) {
+            evaluations.increment();
+            nanos.add(elapsedNanos);
+            matches.add(found);
+        }
+        
+        private void reset() {
+            evaluations.reset();
+            matches.reset();
+            nanos.reset();
+            budgetExceeded.reset();
+        }
+        
+        private PatternStats snapshot() {
+            return new PatternStats(source, combined, evaluations.sum(), matches.sum(),
+                    nanos.sum(), budgetExceeded.sum());
+        }
+    }
+    
+    /**
+     * Point-in-time statistics of a single pattern
+     */
+    public static final class PatternStats {
+        private final String pattern;
+        private final boolean combined;
+        private final long evaluations;
+        private final long matches;
+        private final long totalNanos;
+        private final long budgetExceeded;
+        
+        public PatternStats(String pattern, boolean combined, long evaluations, long matches,
+                            long totalNanos, long budgetExceeded) {
+            this.pattern = pattern;
+            this.combined = combined;
+            this.evaluations = evaluations;
+            this.matches = matches;
+            this.totalNanos = totalNanos;
+            this.budgetExceeded = budgetExceeded;
+        }
+        
+        public String getPattern() {
+            return pattern;
+        }
+        
+        public boolean isCombined() {
+            return combined;
+        }
+        
+        public long getEvaluations() {
+            return evaluations;
+        }
+        
+        public long getMatches() {
+            return matches;
+        }
+        
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+        
+        public long getBudgetExceeded() {
+            return budgetExceeded;
+        }
+    }
+}
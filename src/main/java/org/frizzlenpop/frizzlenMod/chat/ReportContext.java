@@ -0,0 +1,56 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.List;
+
+/**
+ * The chat around a report, copied from the in-memory history when the report was made:
+ * the latest messages of the reported player, of the reporter and of the whole server
+ */
+public final class ReportContext {
+    private final long capturedAt;
+    private final List<ChatHistory.Line> reported;
+    private final List<ChatHistory.Line> reporter;
+    private final List<ChatHistory.Line> server;
+    
+    public ReportContext(long capturedAt, List<ChatHistory.Line> reported,
+                         List<ChatHistory.Line> reporter, List<ChatHistory.Line> server) {
+        this.capturedAt = capturedAt;
+        this.reported = reported;
+        this.reporter = reporter;
+        this.server = server;
+    }
+    
+    public long getCapturedAt() {
+        return capturedAt;
+    }
+    
+    public List<ChatHistory.Line> getReported() {
+        return reported;
+    }
+    
+    public List<ChatHistory.Line> getReporter() {
+        return reporter;
+    }
+    
+    public List<ChatHistory.Line> getServer() {
+        return server;
+    }
+    
+    /**
+     * Checks if nothing was captured
+     * 
+     * @return true if all three lists are empty
+     */
+    public boolean isEmpty() {
+        return reported.isEmpty() && reporter.isEmpty() && server.isEmpty();
+    }
+    
+    /**
+     * Gets the total number of captured lines
+     * 
+     * @return The line count
+     */
+    public int size() {
+        return reported.size() + reporter.size() + server.size();
+    }
+}
@@ -0,0 +1,159 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Detects players repeating the same message. Every player has a small ring of the
+ * fingerprints and times of their last messages, fingerprints are taken from the normalized
+ * text so "hello", "HELLO!!" and "h.e.l.l.o" count as the same message.
+ * Checking a message takes no locks and, once a player has a ring, allocates nothing.
+ */
+public final class SpamDetector {
+    // Number of messages remembered per player, must be a power of two
+    public static final int HISTORY_SIZE = 16;
+    
+    private static final SpamDetector DISABLED = new SpamDetector(false, 0, 0);
+    
+    private final boolean enabled;
+    private final int maxDuplicates;
+    private final long windowMillis;
+    private final Map<UUID, History> histories = new ConcurrentHashMap<>();
+    
+    /**
+     * Creates a detector
+     * 
+     * @param enabled Whether messages are checked at all
+     * @param maxDuplicates The number of identical messages allowed within the window,
+     *                      capped at one less than {@link #HISTORY_SIZE}
+     * @param windowMillis How far back identical messages are counted
+     */
+    public SpamDetector(boolean enabled, int maxDuplicates, long windowMillis) {
+        this.enabled = enabled;
+        this.maxDuplicates = Math.max(1, Math.min(maxDuplicates, HISTORY_SIZE - 1));
+        this.windowMillis = windowMillis;
+    }
+    
+    /**
+     * Gets a detector that never reports spam
+     * 
+     * @return The disabled detector
+     */
+    public static SpamDetector disabled() {
+        return DISABLED;
+    }
+    
+    /**
+     * Remembers a message and counts how often the player sent it within the window
+     * 
+     * @param playerUUID The UUID of the sender
+     * @param message The message that was sent
+     * @param now The current time in milliseconds
+     * @return The number of identical messages within the window, including this one,
+     *         or 0 if the detector is disabled
+     */
+    public int recordMessage(UUID playerUUID, CharSequence message, long now) {
+        if (!enabled) {
+            return 0;
+        }
+        
+        return recordMessage(playerUUID, TextNormalizer.normalize(message), now);
+    }
+    
+    /**
+     * Remembers an already normalized message and counts how often the player sent it
+     * within the window
+     * 
+     * @param playerUUID The UUID of the sender
+     * @param message The normalized message
+     * @param now The current time in milliseconds
+     * @return The number of identical messages within the window, including this one,
+     *         or 0 if the detector is disabled
+     */
+    public int recordMessage(UUID playerUUID, NormalizedText message, long now) {
+        if (!enabled) {
+            return 0;
+        }
+        
+        long fingerprint = message.fingerprint();
+        return histories.computeIfAbsent(playerUUID, uuid -> new History()).record(fingerprint, now, windowMillis);
+    }
+    
+    /**
+     * Checks if a count returned by {@link #recordMessage} is over the limit
+     * 
+     * @param count The number of identical messages
+     * @return true if the player sent the message too often
+     */
+    public boolean isOverLimit(int count) {
+        return count > maxDuplicates;
+    }
+    
+    /**
+     * Checks if a count returned by {@link #recordMessage} is the first one over the limit,
+     * so a player is only reported once per burst
+     * 
+     * @param count The number of identical messages
+     * @return true if this message just crossed the limit
+     */
+    public boolean isFirstOverLimit(int count) {
+        return count == maxDuplicates + 1;
+    }
+    
+    /**
+     * Forgets the messages of a player
+     * 
+     * @param playerUUID The UUID of the player
+     */
+    public void clearPlayer(UUID playerUUID) {
+        histories.remove(playerUUID);
+    }
+    
+    /**
+     * Checks if messages are checked at all
+     * 
+     * @return true if the detector is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Gets the number of identical messages allowed within the window
+     * 
+     * @return The maximum number of duplicates
+     */
+    public int getMaxDuplicates() {
+        return maxDuplicates;
+    }
+    
+    /**
+     * The last messages of one player. Fingerprints and times are stored next to each other in
+     * one array, a slot is claimed by incrementing the cursor, so concurrent messages from the
+     * same player never wait on each other.
+     */
+    private static final class History {
+        private final AtomicLongArray entries = new AtomicLongArray(HISTORY_SIZE * 2);
+        private final AtomicInteger cursor = new AtomicInteger();
+        
+        private int record(long fingerprint, long now, long windowMillis) {
+            int count = 1;
+            long oldest = now - windowMillis;
+            
+            for (int i = 0; i < HISTORY_SIZE; i++) {
+                long time = entries.get(i * 2 + 1);
+                if (time != 0 && time > oldest && entries.get(i * 2) == fingerprint) {
+                    count++;
+                }
+            }
+            
+            int slot = (cursor.getAndIncrement() & (HISTORY_SIZE - 1)) * 2;
+            entries.set(slot, fingerprint);
+            entries.set(slot + 1, now);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Detects waves of near-identical messages sent by many different players, like bot raids
+ * that the per-player {@link SpamDetector} can't see.
+ * Every message gets a 64-bit SimHash of the character trigrams of its normalized text.
+ * The signature is split into four 16-bit bands and stored in one bucket per band, so two
+ * messages whose signatures differ in at most three bits always share a bucket. Buckets are
+ * fixed-size rings, which keeps memory bounded and the work per message constant.
+ */
+public final class SpamWaveDetector {
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = 64 / BANDS;
+    private static final int BUCKETS = 512;
+    private static final int SLOTS = 8;
+    
+    // Longs per slot: signature, time, sender UUID most and least significant bits
+    private static final int SLOT_WIDTH = 4;
+    
+    private static final int SHINGLE = 3;
+    
+    private static final SpamWaveDetector DISABLED = new SpamWaveDetector(false, 0, Integer.MAX_VALUE, 0, 0);
+    
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+    
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int minSenders;
+    private final int maxDistance;
+    private final int minLength;
+    
+    private final AtomicLongArray slots = new AtomicLongArray(BANDS * BUCKETS * SLOTS * SLOT_WIDTH);
+    private final AtomicIntegerArray cursors = new AtomicIntegerArray(BANDS * BUCKETS);
+    private final AtomicLong lastWave = new AtomicLong();
+    
+    /**
+     * Creates a detector
+     * 
+     * @param enabled Whether messages are checked at all
+     * @param windowMillis How far back similar messages are counted
+     * @param minSenders The number of distinct senders that makes a wave
+     * @param maxDistance The number of signature bits two messages may differ in, at most 3
+     * @param minLength The number of letters and digits a message needs to be considered
+     */
+    public SpamWaveDetector(boolean enabled, long windowMillis, int minSenders, int maxDistance, int minLength) {
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.minSenders = Math.max(2, Math.min(minSenders, BANDS * SLOTS));
+        this.maxDistance = Math.max(0, Math.min(maxDistance, BANDS - 1));
+        this.minLength = Math.max(SHINGLE, minLength);
+    }
+    
+    /**
+     * Gets a detector that never reports a wave
+     * 
+     * @return The disabled detector
+     */
+    public static SpamWaveDetector disabled() {
+        return DISABLED;
+    }
+    
+    /**
+     * Records a message and checks if it completes a wave of similar messages
+     * 
+     * @param playerUUID The UUID of the sender
+     * @param message The message that was sent
+     * @param now The current time in milliseconds
+     * @return The wave this message belongs to, or null if there is none
+     */
+    public Wave recordMessage(UUID playerUUID, CharSequence message, long now) {
+        if (!enabled) {
+            return null;
+        }
+        
+        return recordMessage(playerUUID, TextNormalizer.normalize(message), now);
+    }
+    
+    /**
+     * Records an already normalized message and checks if it completes a wave of similar
+     * messages
+     * 
+     * @param playerUUID The UUID of the sender
+     * @param message The normalized message
+     * @param now The current time in milliseconds
+     * @return The wave this message belongs to, or null if there is none
+     */
+    public Wave recordMessage(UUID playerUUID, NormalizedText message, long now) {
+        if (!enabled) {
+            return null;
+        }
+        
+        long signature = signature(message.canonical(), minLength);
+        if (signature == 0) {
+            return null;
+        }
+        
+        Scratch scratch = SCRATCH.get();
+        scratch.count = 0;
+        long msb = playerUUID.getMostSignificantBits();
+        long lsb = playerUUID.getLeastSignificantBits();
+        scratch.add(msb, lsb);
+        
+        long oldest = now - windowMillis;
+        for (int band = 0; band < BANDS; band++) {
+            int bucket = bucketIndex(band, signature);
+            int base = bucket * SLOTS * SLOT_WIDTH;
+            
+            for (int slot = 0; slot < SLOTS; slot++) {
+                int offset = base + slot * SLOT_WIDTH;
+                long time = slots.get(offset + 1);
+                if (time > oldest
+                        && Long.bitCount(slots.get(offset) ^ signature) <= maxDistance) {
+                    scratch.add(slots.get(offset + 2), slots.get(offset + 3));
+                }
+            }
+            
+            int offset = base + (cursors.getAndIncrement(bucket) & (SLOTS - 1)) * SLOT_WIDTH;
+            slots.set(offset, signature);
+            slots.set(offset + 1, now);
+            slots.set(offset + 2, msb);
+            slots.set(offset + 3, lsb);
+        }
+        
+        Wave wave = null;
+        if (scratch.count >= minSenders) {
+            long last = lastWave.get();
+            boolean first = now - last > windowMillis && lastWave.compareAndSet(last, now);
+            wave = new Wave(scratch.senders(), first);
+        }
+        return wave;
+    }
+    
+    /**
+     * Checks if messages are checked at all
+     * 
+     * @return true if the detector is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    private static int bucketIndex(int band, long signature) {
+        int value = (int) (signature >>> (band * BAND_BITS)) & ((1 << BAND_BITS) - 1);
+        int hash = (value * 0x9E3779B1) >>> 16;
+        return band * BUCKETS + (hash & (BUCKETS - 1));
+    }
+    
+    /**
+     * Computes the SimHash of the letters and digits in the text, 0 if there are too few
+     */
+    private static long signature(CharSequence text, int minLength) {
+        int[] weights = SCRATCH.get().weights;
+        Arrays.fill(weights, 0);
+        
+        int letters = 0;
+        long shingle = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                continue;
+            }
+            
+            letters++;
+            shingle = (shingle << 16) | c;
+            if (letters < SHINGLE) {
+                continue;
+            }
+            
+            long hash = mix(shingle & 0xFFFFFFFFFFFFL);
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += (int) ((hash >>> bit) & 1) * 2 - 1;
+            }
+        }
+        
+        if (letters < minLength) {
+            return 0;
+        }
+        
+        long signature = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                signature |= 1L << bit;
+            }
+        }
+        return signature;
+    }
+    
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+    
+    /**
+     * A group of players that sent similar messages within the window
+     */
+    public static final class Wave {
+        private final List<UUID> senders;
+        private final boolean first;
+        
+        private Wave(List<UUID> senders, boolean first) {
+            this.senders = senders;
+            this.first = first;
+        }
+        
+        /**
+         * Gets the players that sent the similar messages, including the current sender
+         * 
+         * @return The senders
+         */
+        public List<UUID> getSenders() {
+            return senders;
+        }
+        
+        /**
+         * Checks if this is the first detection since the last wave ended, so the response
+         * only runs once per wave
+         * 
+         * @return true if the wave was just detected
+         */
+        public boolean isFirst() {
+            return first;
+        }
+    }
+    
+    /**
+     * Per-thread buffers for the SimHash weights and the distinct senders found in buckets
+     */
+    private static final class Scratch {
+        private final int[] weights = new int[64];
+        private final long[] senders = new long[(BANDS * SLOTS + 1) * 2];
+        private int count;
+        
+        private void add(long msb, long lsb) {
+            for (int i = 0; i < count; i++) {
+                if (senders[i * 2] == msb && senders[i * 2 + 1] == lsb) {
+                    return;
+                }
+            }
+            senders[count * 2] = msb;
+            senders[count * 2 + 1] = lsb;
+            count++;
+        }
+        
+        private List<UUID> senders() {
+            List<UUID> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(new UUID(senders[i * 2], senders[i * 2 + 1]));
+            }
+            return result;
+        }
+    }
+}
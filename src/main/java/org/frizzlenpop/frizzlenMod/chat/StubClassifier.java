@@ -0,0 +1,51 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An in-process classifier for testing the classifier stage without a model server. A
+ * message scores 1 when its canonical form contains one of the keywords and 0 otherwise,
+ * after an optional artificial delay.
+ */
+public final class StubClassifier implements MessageClassifier {
+    private final List<String> keywords = new ArrayList<>();
+    private final long latencyMillis;
+    
+    /**
+     * Creates a stub classifier
+     * 
+     * @param keywords The words that make a message score 1
+     * @param latencyMillis How long every call takes, to simulate a remote model
+     */
+    public StubClassifier(Collection<String> keywords, long latencyMillis) {
+        for (String keyword : keywords) {
+            if (keyword != null && !keyword.isBlank()) {
+                this.keywords.add(TextNormalizer.canonicalize(keyword.trim()));
+            }
+        }
+        this.latencyMillis = latencyMillis;
+    }
+    
+    @Override
+    public String getName() {
+        return "stub";
+    }
+    
+    @Override
+    public double classify(UUID playerUUID, String message) throws InterruptedException {
+        if (latencyMillis > 0) {
+            Thread.sleep(latencyMillis);
+        }
+        
+        String canonical = TextNormalizer.canonicalize(message);
+        for (String keyword : keywords) {
+            if (canonical.contains(keyword)) {
+                return 1;
+            }
+        }
+        return 0;
+    }
+}
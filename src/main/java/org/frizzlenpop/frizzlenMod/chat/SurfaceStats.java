@@ -0,0 +1,57 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how often the filter ran on each {@link TextSurface}, how often it changed the text
+ * and how long it took in total
+ */
+public final class SurfaceStats {
+    private final LongAdder[] checks = create();
+    private final LongAdder[] hits = create();
+    private final LongAdder[] totalNanos = create();
+    
+    private static LongAdder[] create() {
+        LongAdder[] adders = new LongAdder[TextSurface.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+    
+    /**
+     * Records one filter run
+     * 
+     * @param surface Where the text came from
+     * @param nanos How long the filter took
+     * @param hit Whether the filter matched
+     */
+    public void record(TextSurface surface, long nanos, boolean hit) {
+        int index = surface.ordinal();
+        checks[index].increment();
+        totalNanos[index].add(nanos);
+        if (hit) {
+            hits[index].increment();
+        }
+    }
+    
+    public long getChecks(TextSurface surface) {
+        return checks[surface.ordinal()].sum();
+    }
+    
+    public long getHits(TextSurface surface) {
+        return hits[surface.ordinal()].sum();
+    }
+    
+    public long getTotalNanos(TextSurface surface) {
+        return totalNanos[surface.ordinal()].sum();
+    }
+    
+    public void reset() {
+        for (int i = 0; i < checks.length; i++) {
+            checks[i].reset();
+            hits[i].reset();
+            totalNanos[i].reset();
+        }
+    }
+}
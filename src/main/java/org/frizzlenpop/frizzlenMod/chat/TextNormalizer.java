@@ -0,0 +1,309 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.text.Normalizer;
+
+/**
+ * Folds chat text into a canonical form so the filters see through common evasion tricks:
+ * leetspeak, fullwidth and accented letters, Cyrillic and Greek look-alikes, zero-width
+ * characters, letters split by separators ("f.r.e.e") and stretched letters ("freeee").
+ * All decisions come from tables built once when the class loads, so a message is
+ * normalized in a single pass into per-thread buffers without creating Strings.
+ */
+public final class TextNormalizer {
+    // Character kinds
+    private static final byte DROP = 1;
+    private static final byte SEPARATOR = 2;
+    private static final byte WORD = 3;
+    private static final byte LEET_SYMBOL = 4;
+    private static final byte OTHER = 5;
+    
+    // Repeated characters are capped at this many in the canonical form
+    private static final int MAX_REPEAT = 2;
+    
+    private static final char[] FOLD = new char[Character.MAX_VALUE + 1];
+    private static final byte[] KIND = new byte[Character.MAX_VALUE + 1];
+    private static final char[] LEET = new char[128];
+    
+    private static final ThreadLocal<NormalizedText> BUFFERS = ThreadLocal.withInitial(NormalizedText::new);
+    
+    static {
+        // Case, width, compatibility forms and accents, through NFKD minus combining marks
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            char ch = (char) c;
+            FOLD[c] = Character.toLowerCase(ch);
+            
+            if (Character.isSurrogate(ch)) {
+                KIND[c] = OTHER;
+                continue;
+            }
+            
+            int type = Character.getType(ch);
+            if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK
+                    || type == Character.FORMAT) {
+                KIND[c] = DROP;
+                continue;
+            }
+            
+            String decomposed = Normalizer.normalize(String.valueOf(ch), Normalizer.Form.NFKD);
+            char base = 0;
+            int baseCount = 0;
+            for (int i = 0; i < decomposed.length(); i++) {
+                char part = decomposed.charAt(i);
+                if (Character.getType(part) != Character.NON_SPACING_MARK) {
+                    base = part;
+                    baseCount++;
+                }
+            }
+            if (baseCount == 1) {
+                FOLD[c] = Character.toLowerCase(base);
+            }
+        }
+        
+        // Invisible characters that are not in the FORMAT category
+        for (char c : new char[] {'\u034F', '\u115F', '\u1160', '\u17B4', '\u17B5', '\u3164', '\uFFA0'}) {
+            KIND[c] = DROP;
+        }
+        
+        // Look-alike letters from other scripts
+        fold("\u0430\u0432\u0435\u0451\u043A\u043C\u043D\u043E\u0440\u0441\u0442\u0443\u0445"
+                + "\u0456\u0457\u0458\u0455\u0501\u051B\u051D", "abeekmhopctyxiijsdqw");
+        fold("\u03B1\u03B2\u03B3\u03B5\u03B7\u03B9\u03BA\u03BD\u03BF\u03C1\u03C4\u03C5\u03C7\u03C9",
+                "abyenikvoptuxw");
+        fold("\u0251\u0261\u0269\u026A\u0280\u028F", "agiiry");
+        
+        // Circled and parenthesized letters that NFKD leaves alone or expands
+        for (int i = 0; i < 26; i++) {
+            FOLD['\u24B6' + i] = (char) ('a' + i);
+            FOLD['\u24D0' + i] = (char) ('a' + i);
+            FOLD['\u249C' + i] = (char) ('a' + i);
+        }
+        
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (KIND[c] != 0) continue;
+            
+            char folded = FOLD[c];
+            if (Character.isLetterOrDigit(folded)) {
+                KIND[c] = WORD;
+            } else if (Character.isWhitespace(folded) || Character.isSpaceChar(folded)) {
+                KIND[c] = SEPARATOR;
+            } else {
+                KIND[c] = OTHER;
+            }
+        }
+        
+        for (char c : ".,-_*'\"`~^/\\=:;".toCharArray()) {
+            KIND[c] = SEPARATOR;
+        }
+        
+        // Leetspeak, digits map inside words that have a letter while symbols only map in
+        // front of a letter or digit
+        String digits = "0123457";
+        String digitLetters = "oizeast";
+        for (int i = 0; i < digits.length(); i++) {
+            LEET[digits.charAt(i)] = digitLetters.charAt(i);
+        }
+        String symbols = "@$!|";
+        String symbolLetters = "asil";
+        for (int i = 0; i < symbols.length(); i++) {
+            LEET[symbols.charAt(i)] = symbolLetters.charAt(i);
+            KIND[symbols.charAt(i)] = LEET_SYMBOL;
+        }
+        for (int c = '\uFF01'; c <= '\uFF5E'; c++) {
+            // Fullwidth forms share the kind of the ASCII character they fold to
+            KIND[c] = KIND[c - 0xFEE0];
+        }
+    }
+    
+    private TextNormalizer() {
+    }
+    
+    private static void fold(String from, String to) {
+        for (int i = 0; i < from.length(); i++) {
+            FOLD[from.charAt(i)] = to.charAt(i);
+            FOLD[Character.toUpperCase(from.charAt(i))] = to.charAt(i);
+        }
+    }
+    
+    /**
+     * Normalizes text into the calling thread's reusable buffers
+     * 
+     * @param text The text to normalize
+     * @return The normalized text, valid until the next call on this thread
+     */
+    public static NormalizedText normalize(CharSequence text) {
+        NormalizedText out = BUFFERS.get();
+        out.reset(text);
+        
+        int length = text.length();
+        int tokenLength = 0;
+        boolean dropSeparators = false;
+        byte previousKind = SEPARATOR;
+        // Whether the token being read has a letter, known up to scannedTo
+        boolean tokenHasLetter = false;
+        int scannedTo = 0;
+        
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            byte kind = KIND[c];
+            
+            if (kind == DROP) {
+                // Invisible characters belong to whatever came before them
+                extendFolded(out, i + 1);
+                extendCanonical(out, i + 1);
+                continue;
+            }
+            
+            char folded = FOLD[c];
+            appendFolded(out, folded, i);
+            
+            if (kind == SEPARATOR) {
+                // Decide once per separator run whether it splits single letters
+                if (previousKind != SEPARATOR) {
+                    dropSeparators = tokenLength == 1 && nextTokenIsSingle(text, i, length);
+                    if (!dropSeparators) {
+                        tokenHasLetter = false;
+                    }
+                }
+                previousKind = SEPARATOR;
+                tokenLength = 0;
+                
+                if (dropSeparators) {
+                    extendCanonical(out, i + 1);
+                } else {
+                    appendCanonical(out, folded, i);
+                }
+                continue;
+            }
+            
+            if (kind == OTHER) {
+                tokenHasLetter = false;
+            } else if (i >= scannedTo) {
+                // Letters split by dropped separators count as one word
+                scannedTo = scanToken(text, i, length);
+                tokenHasLetter |= hasLetter(text, i, scannedTo);
+            }
+            
+            char canonical = folded;
+            if (folded < LEET.length && LEET[folded] != 0
+                    && (kind == WORD ? tokenHasLetter : isWordAt(text, i + 1, length))) {
+                canonical = LEET[folded];
+            }
+            
+            if (kind != WORD && canonical == folded) {
+                tokenLength = 0;
+            } else {
+                tokenLength++;
+            }
+            previousKind = kind;
+            appendCanonical(out, canonical, i);
+        }
+        
+        return out;
+    }
+    
+    /**
+     * Normalizes a single word into its canonical form, used to compile the word list the same
+     * way messages are normalized
+     * 
+     * @param word The configured word
+     * @return The canonical form of the word
+     */
+    public static String canonicalize(String word) {
+        return normalize(word).canonical().toString();
+    }
+    
+    private static void appendFolded(NormalizedText out, char c, int index) {
+        int position = out.foldedLength++;
+        out.folded[position] = c;
+        out.foldedStart[position] = index;
+        out.foldedEnd[position] = index + 1;
+    }
+    
+    private static void appendCanonical(NormalizedText out, char c, int index) {
+        int length = out.canonicalLength;
+        
+        // Stretched characters collapse into the previous ones
+        if (length >= MAX_REPEAT) {
+            boolean repeated = true;
+            for (int i = 1; i <= MAX_REPEAT; i++) {
+                if (out.canonical[length - i] != c) {
+                    repeated = false;
+                    break;
+                }
+            }
+            if (repeated) {
+                out.canonicalEnd[length - 1] = index + 1;
+                return;
+            }
+        }
+        
+        out.canonical[length] = c;
+        out.canonicalStart[length] = index;
+        out.canonicalEnd[length] = index + 1;
+        out.canonicalLength = length + 1;
+    }
+    
+    private static void extendFolded(NormalizedText out, int end) {
+        if (out.foldedLength > 0) {
+            out.foldedEnd[out.foldedLength - 1] = end;
+        }
+    }
+    
+    private static void extendCanonical(NormalizedText out, int end) {
+        if (out.canonicalLength > 0) {
+            out.canonicalEnd[out.canonicalLength - 1] = end;
+        }
+    }
+    
+    /**
+     * Finds the end of the token starting at an index, the token being the word characters,
+     * leet symbols and invisible characters up to the next separator
+     */
+    private static int scanToken(CharSequence text, int index, int length) {
+        int i = index;
+        while (i < length) {
+            byte kind = KIND[text.charAt(i)];
+            if (kind != WORD && kind != LEET_SYMBOL && kind != DROP) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+    
+    /**
+     * Checks if a range has a letter, so numbers like "455" or "-120 64 300" are left alone
+     */
+    private static boolean hasLetter(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (KIND[c] == WORD && Character.isLetter(FOLD[c])) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean isWordAt(CharSequence text, int index, int length) {
+        return index < length && KIND[text.charAt(index)] == WORD;
+    }
+    
+    /**
+     * Looks past a separator run and checks if the next token is exactly one character long
+     */
+    private static boolean nextTokenIsSingle(CharSequence text, int index, int length) {
+        int i = index;
+        while (i < length && (KIND[text.charAt(i)] == SEPARATOR || KIND[text.charAt(i)] == DROP)) {
+            i++;
+        }
+        if (i >= length || KIND[text.charAt(i)] == OTHER) {
+            return false;
+        }
+        
+        i++;
+        while (i < length && KIND[text.charAt(i)] == DROP) {
+            i++;
+        }
+        return i >= length || KIND[text.charAt(i)] != WORD;
+    }
+}
@@ -0,0 +1,27 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+/**
+ * The places besides chat where players write text that is run through the chat filter
+ */
+public enum TextSurface {
+    SIGN("signs"),
+    BOOK("books"),
+    ANVIL("anvils"),
+    NAME("names"),
+    COMMAND("commands");
+    
+    private final String configKey;
+    
+    TextSurface(String configKey) {
+        this.configKey = configKey;
+    }
+    
+    /**
+     * Gets the key of this surface in the chat.surfaces config section
+     * 
+     * @return The config key
+     */
+    public String getConfigKey() {
+        return configKey;
+    }
+}
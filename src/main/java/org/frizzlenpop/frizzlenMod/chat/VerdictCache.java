@@ -0,0 +1,158 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers what the chat filter made of recent messages, so a repeated message costs one
+ * hash and one table lookup instead of a normalization and a filter scan.
+ * Entries are keyed by the exact message rather than its normalized form, because masking
+ * applies to the original characters and two spellings of the same text mask differently.
+ * The table is a fixed array of slots indexed by a seeded 64-bit hash of the message, two
+ * candidate slots per message, and a new entry simply replaces whatever was there. Entries
+ * remember the {@link FilterEngine} that produced them, so swapping the filter invalidates
+ * every entry at once without touching the table.
+ */
+public final class VerdictCache {
+    private static final VerdictCache DISABLED = new VerdictCache(0, 0);
+    
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final int maxLength;
+    private final long seed = ThreadLocalRandom.current().nextLong();
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    /**
+     * Creates a cache
+     * 
+     * @param capacity The number of entries, rounded up to a power of two, 0 to disable
+     * @param maxLength The longest message that is cached
+     */
+    public VerdictCache(int capacity, int maxLength) {
+        int size = capacity <= 0 ? 0 : Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+    
+    /**
+     * Gets a cache that never stores anything
+     * 
+     * @return The disabled cache
+     */
+    public static VerdictCache disabled() {
+        return DISABLED;
+    }
+    
+    /**
+     * Masks a message with the filter, or returns the cached result for the same message
+     * 
+     * @param engine The current filter
+     * @param text The message
+     * @return The masked message, or the same instance if nothing matched
+     */
+    public String mask(FilterEngine engine, String text) {
+        if (slots.length() == 0 || text.length() > maxLength) {
+            return engine.mask(text);
+        }
+        
+        long hash = hash(text, seed);
+        int first = (int) hash & mask;
+        int second = (int) (hash >>> 32) & mask;
+        
+        Entry entry = slots.get(first);
+        if (entry == null || !entry.matches(hash, engine, text)) {
+            entry = slots.get(second);
+        }
+        if (entry != null && entry.matches(hash, engine, text)) {
+            hits.increment();
+            return entry.masked == null ? text : entry.masked;
+        }
+        
+        misses.increment();
+        String masked = engine.mask(text);
+        
+        // Prefer an empty or stale slot over evicting a current entry
+        Entry current = slots.get(first);
+        int slot = current == null || current.engine != engine ? first : second;
+        slots.set(slot, new Entry(hash, engine, text, masked == text ? null : masked));
+        return masked;
+    }
+    
+    /**
+     * Drops all entries, only needed to free memory since stale entries are never returned
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return slots.length() > 0;
+    }
+    
+    public int getCapacity() {
+        return slots.length();
+    }
+    
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    /**
+     * Gets the share of lookups that were answered from the cache
+     * 
+     * @return The hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+    
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+    }
+    
+    /**
+     * A seeded 64-bit hash of the characters. Entries are compared by text as well, the seed
+     * only keeps players from crafting messages that keep evicting each other.
+     */
+    private static long hash(String text, long seed) {
+        long hash = seed ^ text.length();
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+    
+    private static final class Entry {
+        private final long hash;
+        private final FilterEngine engine;
+        private final String text;
+        private final String masked;
+        
+        private Entry(long hash, FilterEngine engine, String text, String masked) {
+            this.hash = hash;
+            this.engine = engine;
+            this.text = text;
+            this.masked = masked;
+        }
+        
+        private boolean matches(long hash, FilterEngine engine, String text) {
+            return this.hash == hash && this.engine == engine && this.text.equals(text);
+        }
+    }
+}
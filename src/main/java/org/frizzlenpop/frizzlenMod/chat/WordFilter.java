@@ -0,0 +1,267 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Matches a list of blacklisted words in a single pass using an Aho-Corasick automaton.
+ * The automaton is compiled once per config load and is immutable afterwards, so one
+ * instance can be shared by all async chat threads. Matching is case-insensitive and
+ * only reports matches that sit on word boundaries, the same way {@code \b} does.
+ */
+public final class WordFilter {
+    private static final WordFilter EMPTY = compile(Set.of());
+    
+    // Maps a character to its symbol in the automaton alphabet, 0 means "not in any word"
+    private final char[] symbols;
+    private final int alphabetSize;
+    // Full transition table, indexed by state * alphabetSize + symbol
+    private final int[] transitions;
+    // Length of the word ending at a state, 0 if no word ends there
+    private final int[] matchLengths;
+    // Next state along the failure chain that ends a word, -1 if there is none
+    private final int[] outputLinks;
+    private final int stateCount;
+    private final int wordCount;
+    
+    private WordFilter(char[] symbols, int alphabetSize, int[] transitions, int[] matchLengths,
+                       int[] outputLinks, int stateCount, int wordCount) {
+        this.symbols = symbols;
+        this.alphabetSize = alphabetSize;
+        this.transitions = transitions;
+        this.matchLengths = matchLengths;
+        this.outputLinks = outputLinks;
+        this.stateCount = stateCount;
+        this.wordCount = wordCount;
+    }
+    
+    /**
+     * Gets a filter that never matches anything
+     * 
+     * @return The empty filter
+     */
+    public static WordFilter empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Compiles a word list into an automaton
+     * 
+     * @param words The words to match, blank entries are ignored
+     * @return The compiled filter
+     */
+    public static WordFilter compile(Collection<String> words) {
+        // Lower case and de-duplicate the words
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String word : words) {
+            if (word == null) continue;
+            
+            String trimmed = word.trim().toLowerCase(Locale.ROOT);
+            if (!trimmed.isEmpty()) {
+                normalized.add(trimmed);
+            }
+        }
+        
+        // Build the alphabet from the characters used in the words, symbol 0 is reserved
+        char[] alphabet = new char[Character.MAX_VALUE + 1];
+        int alphabetSize = 1;
+        int totalLength = 0;
+        for (String word : normalized) {
+            totalLength += word.length();
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (alphabet[c] == 0) {
+                    alphabet[c] = (char) alphabetSize++;
+                }
+            }
+        }
+        
+        // Every character whose lower case form is in the alphabet gets that symbol,
+        // so matching never has to call toLowerCase on the message
+        int tableSize = 0;
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (alphabet[Character.toLowerCase((char) c)] != 0) {
+                tableSize = c + 1;
+            }
+        }
+        char[] symbols = new char[tableSize];
+        for (int c = 0; c < tableSize; c++) {
+            symbols[c] = alphabet[Character.toLowerCase((char) c)];
+        }
+        
+        // Build the trie, state 0 is the root and no trie edge ever points back to it
+        int maxStates = totalLength + 1;
+        int[] transitions = new int[maxStates * alphabetSize];
+        int[] matchLengths = new int[maxStates];
+        int stateCount = 1;
+        
+        for (String word : normalized) {
+            int state = 0;
+            for (int i = 0; i < word.length(); i++) {
+                int index = state * alphabetSize + alphabet[word.charAt(i)];
+                if (transitions[index] == 0) {
+                    transitions[index] = stateCount++;
+                }
+                state = transitions[index];
+            }
+            matchLengths[state] = word.length();
+        }
+        
+        // Breadth-first pass to compute failure links and turn the trie into a full DFA
+        int[] failure = new int[stateCount];
+        int[] outputLinks = new int[stateCount];
+        outputLinks[0] = -1;
+        
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < alphabetSize; symbol++) {
+            int child = transitions[symbol];
+            if (child != 0) {
+                failure[child] = 0;
+                outputLinks[child] = -1;
+                queue.add(child);
+            }
+        }
+        
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int row = state * alphabetSize;
+            int failureRow = failure[state] * alphabetSize;
+            
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int child = transitions[row + symbol];
+                if (child != 0) {
+                    int fallback = transitions[failureRow + symbol];
+                    failure[child] = fallback;
+                    outputLinks[child] = matchLengths[fallback] > 0 ? fallback : outputLinks[fallback];
+                    queue.add(child);
+                } else {
+                    transitions[row + symbol] = transitions[failureRow + symbol];
+                }
+            }
+        }
+        
+        return new WordFilter(symbols, alphabetSize,
+                Arrays.copyOf(transitions, stateCount * alphabetSize),
+                Arrays.copyOf(matchLengths, stateCount), outputLinks, stateCount, normalized.size());
+    }
+    
+    /**
+     * Checks if the text contains any of the words
+     * 
+     * @param text The text to scan
+     * @return true if at least one word matched
+     */
+    public boolean containsMatch(CharSequence text) {
+        return findMatches(text, (start, end) -> false) > 0;
+    }
+    
+    /**
+     * Finds all words in the text in a single pass. Overlapping matches are all reported,
+     * ordered by their end position.
+     * 
+     * @param text The text to scan
+     * @param consumer Receives each match, and can stop the scan early
+     * @return The number of matches reported
+     */
+    public int findMatches(CharSequence text, MatchConsumer consumer) {
+        if (wordCount == 0) {
+            return 0;
+        }
+        
+        int length = text.length();
+        int state = 0;
+        int matches = 0;
+        
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int symbol = c < symbols.length ? symbols[c] : 0;
+            state = transitions[state * alphabetSize + symbol];
+            
+            int output = matchLengths[state] > 0 ? state : outputLinks[state];
+            if (output <= 0 || !isBoundary(text, i + 1, length)) {
+                continue;
+            }
+            
+            // Walk every word that ends here and keep the ones that also start on a boundary
+            while (output > 0) {
+                int start = i + 1 - matchLengths[output];
+                if (isBoundary(text, start, length)) {
+                    matches++;
+                    if (!consumer.onMatch(start, i + 1)) {
+                        return matches;
+                    }
+                }
+                output = outputLinks[output];
+            }
+        }
+        
+        return matches;
+    }
+    
+    /**
+     * Replaces every matched word with asterisks of the same length
+     * 
+     * @param text The text to mask
+     * @return The masked text, or the same instance if nothing matched
+     */
+    public String mask(String text) {
+        Masker masker = new Masker(text);
+        findMatches(text, masker);
+        return masker.result();
+    }
+    
+    /**
+     * Gets the number of distinct words in the automaton
+     * 
+     * @return The word count
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+    
+    /**
+     * Gets the number of states in the automaton
+     * 
+     * @return The state count
+     */
+    public int getStateCount() {
+        return stateCount;
+    }
+    
+    /**
+     * Estimates the memory used by the compiled automaton
+     * 
+     * @return The estimated size in bytes
+     */
+    public long estimateBytes() {
+        return 64 + 16L + 2L * symbols.length + 16L + 4L * transitions.length
+                + 2 * (16L + 4L * stateCount);
+    }
+    
+    /**
+     * Checks if this filter has no words
+     * 
+     * @return true if the filter can never match
+     */
+    public boolean isEmpty() {
+        return wordCount == 0;
+    }
+    
+    /**
+     * Checks if there is a word boundary before the given index, using the same definition
+     * of a word character as java.util.regex
+     */
+    private static boolean isBoundary(CharSequence text, int index, int length) {
+        boolean before = index > 0 && isWordChar(text.charAt(index - 1));
+        boolean after = index < length && isWordChar(text.charAt(index));
+        return before != after;
+    }
+    
+    static boolean isWordChar(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+}
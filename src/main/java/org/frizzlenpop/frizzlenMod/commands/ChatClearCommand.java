@@ -6,6 +6,8 @@ import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.managers.PermissionAudience;
+import org.frizzlenpop.frizzlenMod.managers.PlayerStateManager;
 import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
 
 public class ChatClearCommand implements CommandExecutor {
@@ -37,9 +39,10 @@ public class ChatClearCommand implements CommandExecutor {
         }
         
         // Clear chat for all players
+        PermissionAudience staff = plugin.getPlayerStateManager().getAudience(PlayerStateManager.STAFF_PERMISSION);
         for (Player player : Bukkit.getOnlinePlayers()) {
             // Staff can see who cleared the chat
-            if (player.hasPermission("frizzlenmod.staff")) {
+            if (staff.contains(player.getUniqueId())) {
                 plugin.getChatManager().clearChat(player, lines);
                 player.sendMessage("§e" + (sender instanceof Player ? sender.getName() : "Console") + 
                         " §fcleard the chat.");
@@ -0,0 +1,70 @@
+package org.frizzlenpop.frizzlenMod.commands;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.chat.ChatArchive;
+import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
+import org.frizzlenpop.frizzlenMod.utils.TimeUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+public class ChatLogCommand implements CommandExecutor {
+    
+    // Number of messages shown at most
+    private static final int MAX_LINES = 20;
+    
+    private final FrizzlenMod plugin;
+    
+    public ChatLogCommand(FrizzlenMod plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length < 1) {
+            MessageUtils.send(sender, "chatlog.usage");
+            return true;
+        }
+        
+        String targetName = args[0];
+        
+        // How far back to look, one day by default
+        long range = args.length > 1 ? TimeUtils.parseTimeString(args[1]) : TimeUtils.parseTimeString("1d");
+        if (range <= 0) {
+            MessageUtils.send(sender, "chatlog.invalid-time");
+            return true;
+        }
+        
+        long to = System.currentTimeMillis();
+        long from = to - range;
+        
+        // Looking up the player and reading the archive may block, so search off the main thread
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            OfflinePlayer target = Bukkit.getOfflinePlayer(targetName);
+            UUID targetUUID = target.getUniqueId();
+            List<ChatArchive.Entry> entries = plugin.getChatManager().searchChatArchive(targetUUID, from, to, MAX_LINES);
+            
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (entries.isEmpty()) {
+                    MessageUtils.send(sender, "chatlog.empty", "player", targetName);
+                    return;
+                }
+                
+                MessageUtils.send(sender, "chatlog.header", "player", targetName, "count", entries.size());
+                
+                // Messages are placeholder values, so colour codes players typed stay plain text
+                for (ChatArchive.Entry entry : entries) {
+                    sender.sendMessage(MessageUtils.message("chatlog.entry", "time", TimeUtils.formatDate(entry.getTimestamp()),
+                            "player", entry.getPlayerName(), "message", entry.getMessage()));
+                }
+            });
+        });
+        
+        return true;
+    }
+}
@@ -20,7 +20,7 @@ public class EnderseeCommand implements CommandExecutor {
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
         if (!(sender instanceof Player)) {
-            MessageUtils.sendErrorMessage(sender, "This command can only be used by players.");
+            MessageUtils.send(sender, "command.players-only");
             return true;
         }
         
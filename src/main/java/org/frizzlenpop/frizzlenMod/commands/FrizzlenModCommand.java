@@ -0,0 +1,218 @@
+package org.frizzlenpop.frizzlenMod.commands;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.managers.ChatManager;
+import org.frizzlenpop.frizzlenMod.managers.PlayerStateManager;
+import org.frizzlenpop.frizzlenMod.chat.ChatStage;
+import org.frizzlenpop.frizzlenMod.chat.ClassifierService;
+import org.frizzlenpop.frizzlenMod.chat.FilterEngine;
+import org.frizzlenpop.frizzlenMod.chat.PatternFilter;
+import org.frizzlenpop.frizzlenMod.chat.SurfaceStats;
+import org.frizzlenpop.frizzlenMod.chat.TextSurface;
+import org.frizzlenpop.frizzlenMod.chat.VerdictCache;
+import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
+import org.frizzlenpop.frizzlenMod.utils.NotificationService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FrizzlenModCommand implements CommandExecutor {
+    
+    // Number of regex patterns listed in the stats
+    private static final int PATTERN_STATS_LINES = 5;
+    
+    private static final String[] HELP_KEYS = {
+            "frizzlenmod.help.stats", "frizzlenmod.help.reload-filters", "frizzlenmod.help.reload-config",
+            "frizzlenmod.help.spamwave-end"
+    };
+    
+    private final FrizzlenMod plugin;
+    
+    public FrizzlenModCommand(FrizzlenMod plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length < 1) {
+            sendHelp(sender);
+            return true;
+        }
+        
+        switch (args[0].toLowerCase()) {
+            case "stats":
+                if (!sender.hasPermission("frizzlenmod.stats")) {
+                    MessageUtils.send(sender, "command.no-permission");
+                    return true;
+                }
+                
+                if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+                    for (ChatStage stage : plugin.getChatManager().getPipeline().getStages()) {
+                        stage.resetStats();
+                    }
+                    plugin.getChatManager().getVerdictCache().resetStats();
+                    plugin.getChatManager().getSurfaceStats().reset();
+                    plugin.getChatManager().resetPatternStats();
+                    plugin.getPlayerStateManager().resetEnforcementStats();
+                    MessageUtils.getNotificationService().resetStats();
+                    if (plugin.getChatManager().getClassifierService() != null) {
+                        plugin.getChatManager().getClassifierService().resetStats();
+                    }
+                    MessageUtils.send(sender, "frizzlenmod.stats-reset");
+                    return true;
+                }
+                
+                sendStats(sender);
+                return true;
+            case "reload":
+                if (!sender.hasPermission("frizzlenmod.reload")) {
+                    MessageUtils.send(sender, "command.no-permission");
+                    return true;
+                }
+                
+                if (args.length > 1 && args[1].equalsIgnoreCase("filters")) {
+                    reloadFilters(sender);
+                } else if (args.length > 1 && args[1].equalsIgnoreCase("config")) {
+                    reloadSettings(sender);
+                } else {
+                    sendHelp(sender);
+                }
+                return true;
+            case "spamwave":
+                if (!sender.hasPermission("frizzlenmod.spamwave")) {
+                    MessageUtils.send(sender, "command.no-permission");
+                    return true;
+                }
+                
+                if (args.length > 1 && args[1].equalsIgnoreCase("end")) {
+                    int released = plugin.getChatManager().endSpamWave();
+                    plugin.getStorageManager().logModAction(sender.getName(), "EndSpamWave", released + " players",
+                            "Ended the spam wave response");
+                    MessageUtils.send(sender, "frizzlenmod.spamwave-ended", "count", released);
+                } else {
+                    sendHelp(sender);
+                }
+                return true;
+            default:
+                sendHelp(sender);
+                return true;
+        }
+    }
+    
+    private void sendStats(CommandSender sender) {
+        sender.sendMessage(MessageUtils.message("stats.header"));
+        
+        for (ChatStage stage : plugin.getChatManager().getPipeline().getStages()) {
+            long calls = stage.getCalls();
+            long averageMicros = calls == 0 ? 0 : stage.getTotalNanos() / calls / 1000;
+            
+            sender.sendMessage(MessageUtils.message("stats.stage", "stage", stage.getName(), "calls", calls,
+                    "hits", stage.getHits(), "average", averageMicros, "total", stage.getTotalNanos() / 1000000));
+        }
+        
+        VerdictCache cache = plugin.getChatManager().getVerdictCache();
+        if (cache.isEnabled()) {
+            sender.sendMessage(MessageUtils.message("stats.cache", "hits", cache.getHits(), "misses", cache.getMisses(),
+                    "rate", String.format("%.1f", cache.getHitRate() * 100), "slots", cache.getCapacity()));
+        }
+        
+        SurfaceStats surfaceStats = plugin.getChatManager().getSurfaceStats();
+        for (TextSurface surface : TextSurface.values()) {
+            long checks = surfaceStats.getChecks(surface);
+            if (checks == 0) {
+                continue;
+            }
+            
+            sender.sendMessage(MessageUtils.message("stats.surface", "surface", surface.getConfigKey(), "checks", checks,
+                    "hits", surfaceStats.getHits(surface), "average", surfaceStats.getTotalNanos(surface) / checks / 1000));
+        }
+        
+        // The regex patterns that cost the most time
+        List<PatternFilter.PatternStats> patterns = new ArrayList<>(plugin.getChatManager().getPatternStats());
+        patterns.removeIf(pattern -> pattern.getEvaluations() == 0);
+        patterns.sort((a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+        for (PatternFilter.PatternStats pattern : patterns.subList(0, Math.min(PATTERN_STATS_LINES, patterns.size()))) {
+            sender.sendMessage(MessageUtils.message("stats.pattern", "pattern", pattern.getPattern(),
+                    "runs", pattern.getEvaluations(), "matches", pattern.getMatches(),
+                    "average", pattern.getTotalNanos() / pattern.getEvaluations() / 1000, "over", pattern.getBudgetExceeded()));
+        }
+        
+        ClassifierService classifier = plugin.getChatManager().getClassifierService();
+        if (classifier != null) {
+            long calls = classifier.getCalls();
+            long averageMillis = calls == 0 ? 0 : classifier.getTotalNanos() / calls / 1000000;
+            sender.sendMessage(MessageUtils.message("stats.classifier", "name", classifier.getClassifier().getName(),
+                    "calls", calls, "average", averageMillis, "timeouts", classifier.getTimeouts(),
+                    "failures", classifier.getFailures(), "skipped", classifier.getRejected() + classifier.getShortCircuited(),
+                    "breaker", MessageUtils.message(classifier.isOpen() ? "stats.breaker-open" : "stats.breaker-closed")));
+        }
+        
+        PlayerStateManager states = plugin.getPlayerStateManager();
+        sender.sendMessage(MessageUtils.message("stats.enforcement",
+                "state", MessageUtils.message(states.isEnforcementRegistered() ? "stats.enforcement-registered" : "stats.enforcement-idle"),
+                "restricted", states.getRestrictedOnline(), "events", states.getEnforcementEvents(),
+                "unrestricted", states.getUnrestrictedEvents(), "idle", states.getIdleMillis() / 1000,
+                "avoided", states.getEstimatedAvoidedEvents()));
+        
+        NotificationService notifications = MessageUtils.getNotificationService();
+        sender.sendMessage(MessageUtils.message("stats.notifications",
+                "mode", MessageUtils.message(notifications.isActionBar() ? "stats.notifications-action-bar" : "stats.notifications-chat"),
+                "sent", notifications.getSent(), "suppressed", notifications.getSuppressed()));
+        
+        sender.sendMessage(MessageUtils.message("stats.footer"));
+    }
+    
+    private void reloadFilters(CommandSender sender) {
+        boolean started = plugin.getChatManager().reloadFilters(result -> sendReloadResult(sender, result));
+        if (!started) {
+            MessageUtils.send(sender, "frizzlenmod.filters-running");
+            return;
+        }
+        
+        MessageUtils.send(sender, "frizzlenmod.filters-compiling");
+    }
+    
+    private void reloadSettings(CommandSender sender) {
+        List<String> errors = plugin.getConfigManager().reloadSettings();
+        if (!errors.isEmpty()) {
+            MessageUtils.send(sender, "frizzlenmod.settings-failed");
+            for (String error : errors) {
+                sender.sendMessage(MessageUtils.message("reload.error", "error", error));
+            }
+            return;
+        }
+        
+        // Jails without cells use the radius setting
+        plugin.getJailManager().rebuildRegionIndex();
+        plugin.getStorageManager().updateSaveInterval();
+        MessageUtils.getMessageCatalog().reload();
+        MessageUtils.send(sender, "frizzlenmod.settings-reloaded");
+    }
+    
+    private void sendReloadResult(CommandSender sender, ChatManager.FilterReload result) {
+        if (!result.isSuccess()) {
+            MessageUtils.send(sender, "frizzlenmod.filters-failed");
+            for (String error : result.getErrors()) {
+                sender.sendMessage(MessageUtils.message("reload.error", "error", error));
+            }
+            return;
+        }
+        
+        FilterEngine engine = result.getEngine();
+        MessageUtils.send(sender, "frizzlenmod.filters-reloaded",
+                "words", engine.getWordFilter().getWordCount(),
+                "states", engine.getWordFilter().getStateCount(),
+                "patterns", engine.getPatternFilter().getPatternCount(),
+                "millis", String.format("%.1f", result.getCompileMicros() / 1000.0),
+                "kb", (engine.estimateBytes() + 1023) / 1024);
+    }
+    
+    private void sendHelp(CommandSender sender) {
+        for (String key : HELP_KEYS) {
+            sender.sendMessage(MessageUtils.message(key));
+        }
+    }
+}
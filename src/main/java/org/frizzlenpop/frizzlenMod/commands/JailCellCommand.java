@@ -0,0 +1,230 @@
+package org.frizzlenpop.frizzlenMod.commands;
+
+import org.bukkit.Location;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.jail.CuboidRegion;
+import org.frizzlenpop.frizzlenMod.jail.JailCell;
+import org.frizzlenpop.frizzlenMod.jail.PolygonRegion;
+import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Defines the cells of a jail. Corners and polygon points are selected by standing on them,
+ * then a cell is made from the selection. The jail location has to be inside one of the
+ * cells, since that is where prisoners are teleported to.
+ */
+public class JailCellCommand implements CommandExecutor {
+    
+    // Cells are at least this tall, so a prisoner can jump without leaving the cell
+    private static final int DEFAULT_CELL_HEIGHT = 4;
+    
+    private static final String[] HELP_KEYS = {
+            "jailcell.help.pos", "jailcell.help.point", "jailcell.help.add-cuboid", "jailcell.help.add-polygon",
+            "jailcell.help.remove", "jailcell.help.list", "jailcell.help.clear"
+    };
+    
+    private final FrizzlenMod plugin;
+    private final Map<UUID, Selection> selections = new HashMap<>();
+    
+    public JailCellCommand(FrizzlenMod plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (!(sender instanceof Player)) {
+            MessageUtils.send(sender, "command.players-only");
+            return true;
+        }
+        
+        if (args.length < 1) {
+            sendHelp(sender);
+            return true;
+        }
+        
+        Player player = (Player) sender;
+        Location location = player.getLocation();
+        Selection selection = selections.computeIfAbsent(player.getUniqueId(), uuid -> new Selection());
+        
+        switch (args[0].toLowerCase()) {
+            case "pos1":
+            case "pos2":
+                if (args[0].equalsIgnoreCase("pos1")) {
+                    selection.first = location.clone();
+                } else {
+                    selection.second = location.clone();
+                }
+                MessageUtils.send(player, "jailcell.corner-set", "corner", args[0].substring(3),
+                        "x", location.getBlockX(), "y", location.getBlockY(), "z", location.getBlockZ());
+                return true;
+            case "point":
+                if (!selection.points.isEmpty() && selection.points.get(0).getWorld() != location.getWorld()) {
+                    selection.points.clear();
+                }
+                selection.points.add(location.clone());
+                MessageUtils.send(player, "jailcell.point-set", "number", selection.points.size(),
+                        "x", location.getBlockX(), "z", location.getBlockZ());
+                return true;
+            case "clear":
+                selections.remove(player.getUniqueId());
+                MessageUtils.send(player, "jailcell.cleared");
+                return true;
+            case "add":
+                if (args.length < 3) {
+                    sendHelp(sender);
+                    return true;
+                }
+                addCell(player, selection, args);
+                return true;
+            case "remove":
+                if (args.length < 3) {
+                    sendHelp(sender);
+                    return true;
+                }
+                
+                int number;
+                try {
+                    number = Integer.parseInt(args[2]);
+                } catch (NumberFormatException e) {
+                    MessageUtils.send(player, "jailcell.invalid-number", "number", args[2]);
+                    return true;
+                }
+                
+                if (number < 1 || number > plugin.getJailManager().getCells(args[1]).size()) {
+                    MessageUtils.send(player, "jailcell.no-cell", "jail", args[1].toLowerCase(), "number", number);
+                } else if (plugin.getJailManager().removeCell(args[1], number)) {
+                    plugin.getStorageManager().logModAction(player.getName(), "RemoveJailCell", args[1].toLowerCase(), "Removed cell " + number);
+                    MessageUtils.send(player, "jailcell.removed", "jail", args[1].toLowerCase(), "number", number);
+                } else {
+                    MessageUtils.send(player, "jailcell.holds-location", "jail", args[1].toLowerCase(), "number", number);
+                }
+                return true;
+            case "list":
+                if (args.length < 2) {
+                    sendHelp(sender);
+                    return true;
+                }
+                
+                String jailName = args[1].toLowerCase();
+                if (!plugin.getJailManager().jailExists(jailName)) {
+                    MessageUtils.send(player, "jailcell.unknown-jail", "jail", jailName);
+                    return true;
+                }
+                
+                List<JailCell> cells = plugin.getJailManager().getCells(jailName);
+                if (cells.isEmpty()) {
+                    MessageUtils.send(player, "jailcell.no-cells", "jail", jailName);
+                    return true;
+                }
+                
+                player.sendMessage(MessageUtils.message("jailcell.list-header", "jail", jailName));
+                for (int i = 0; i < cells.size(); i++) {
+                    player.sendMessage(MessageUtils.message("jailcell.list-entry", "number", i + 1, "cell", cells.get(i).describe()));
+                }
+                return true;
+            default:
+                sendHelp(sender);
+                return true;
+        }
+    }
+    
+    private void addCell(Player player, Selection selection, String[] args) {
+        String jailName = args[1].toLowerCase();
+        if (!plugin.getJailManager().jailExists(jailName)) {
+            MessageUtils.send(player, "jailcell.unknown-jail", "jail", jailName);
+            return;
+        }
+        
+        JailCell cell;
+        switch (args[2].toLowerCase()) {
+            case "cuboid":
+                if (selection.first == null || selection.second == null) {
+                    MessageUtils.send(player, "jailcell.select-corners");
+                    return;
+                }
+                if (selection.first.getWorld() != selection.second.getWorld()) {
+                    MessageUtils.send(player, "jailcell.corner-worlds");
+                    return;
+                }
+                
+                // Corners are selected at feet level, make room above the lower one to jump
+                int bottom = Math.min(selection.first.getBlockY(), selection.second.getBlockY());
+                int top = Math.max(selection.first.getBlockY(), selection.second.getBlockY());
+                top = Math.max(top, bottom + DEFAULT_CELL_HEIGHT - 1);
+                
+                cell = new CuboidRegion(jailName, selection.first.getWorld().getName(),
+                        selection.first.getBlockX(), bottom, selection.first.getBlockZ(),
+                        selection.second.getBlockX(), top, selection.second.getBlockZ());
+                break;
+            case "polygon":
+                if (selection.points.size() < 3) {
+                    MessageUtils.send(player, "jailcell.select-points");
+                    return;
+                }
+                
+                int height = DEFAULT_CELL_HEIGHT;
+                if (args.length > 3) {
+                    try {
+                        height = Math.max(1, Integer.parseInt(args[3]));
+                    } catch (NumberFormatException e) {
+                        MessageUtils.send(player, "jailcell.invalid-height", "height", args[3]);
+                        return;
+                    }
+                }
+                
+                // The cell reaches from the lowest point up to the given height above the highest
+                int[] xs = new int[selection.points.size()];
+                int[] zs = new int[selection.points.size()];
+                int minY = Integer.MAX_VALUE;
+                int maxY = Integer.MIN_VALUE;
+                for (int i = 0; i < xs.length; i++) {
+                    Location point = selection.points.get(i);
+                    xs[i] = point.getBlockX();
+                    zs[i] = point.getBlockZ();
+                    minY = Math.min(minY, point.getBlockY());
+                    maxY = Math.max(maxY, point.getBlockY());
+                }
+                
+                cell = new PolygonRegion(jailName, selection.points.get(0).getWorld().getName(), xs, zs, minY, maxY + height - 1);
+                break;
+            default:
+                MessageUtils.send(player, "jailcell.unknown-type", "type", args[2]);
+                return;
+        }
+        
+        if (!plugin.getJailManager().addCell(jailName, cell)) {
+            Location jailLocation = plugin.getJailManager().getJailLocation(jailName);
+            MessageUtils.send(player, "jailcell.outside-cells", "jail", jailName,
+                    "x", jailLocation.getBlockX(), "y", jailLocation.getBlockY(), "z", jailLocation.getBlockZ());
+            return;
+        }
+        selections.remove(player.getUniqueId());
+        
+        plugin.getStorageManager().logModAction(player.getName(), "AddJailCell", jailName, "Added " + cell.describe());
+        MessageUtils.send(player, "jailcell.added", "jail", jailName, "cell", cell.describe());
+    }
+    
+    private void sendHelp(CommandSender sender) {
+        for (String key : HELP_KEYS) {
+            sender.sendMessage(MessageUtils.message(key));
+        }
+    }
+    
+    /**
+     * The corners and points a player has selected
+     */
+    private static class Selection {
+        private Location first;
+        private Location second;
+        private final List<Location> points = new ArrayList<>();
+    }
+}
@@ -1,12 +1,22 @@
 package org.frizzlenpop.frizzlenMod.commands;
 
+import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.chat.ChatHistory;
+import org.frizzlenpop.frizzlenMod.chat.ReportContext;
+import org.frizzlenpop.frizzlenMod.managers.PlayerStateManager;
 import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
+import org.frizzlenpop.frizzlenMod.utils.TimeUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 public class ReportCommand implements CommandExecutor {
     
@@ -23,6 +33,12 @@ public class ReportCommand implements CommandExecutor {
             return true;
         }
         
+        // Staff look at a report and the chat captured with it
+        if (args[0].equalsIgnoreCase("view") && sender.hasPermission(PlayerStateManager.REPORTS_VIEW_PERMISSION)) {
+            viewReport(sender, args[1]);
+            return true;
+        }
+        
         String reporterName = sender instanceof Player ? sender.getName() : "Console";
         String targetName = args[0];
         
@@ -35,17 +51,21 @@ public class ReportCommand implements CommandExecutor {
         
         // Check if the player exists on the server
         boolean playerExists = false;
+        UUID targetUUID = null;
         for (Player player : Bukkit.getOnlinePlayers()) {
             if (player.getName().equalsIgnoreCase(targetName)) {
                 playerExists = true;
                 targetName = player.getName(); // Get the correct capitalization
+                targetUUID = player.getUniqueId();
                 break;
             }
         }
         
         if (!playerExists) {
             // Check offline players
-            playerExists = Bukkit.getOfflinePlayer(targetName).hasPlayedBefore();
+            OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(targetName);
+            playerExists = offlinePlayer.hasPlayedBefore();
+            targetUUID = offlinePlayer.getUniqueId();
         }
         
         if (!playerExists) {
@@ -57,10 +77,15 @@ public class ReportCommand implements CommandExecutor {
         String reportId = plugin.getStorageManager().addReport(reporterName, targetName, reason);
         
         if (reportId != null) {
+            // Keep the chat that led to the report, as it is right now
+            UUID reporterUUID = sender instanceof Player ? ((Player) sender).getUniqueId() : null;
+            ReportContext context = plugin.getChatManager().captureReportContext(reporterUUID, targetUUID);
+            plugin.getStorageManager().saveReportContext(reportId, context);
+            
             // Notify staff
             String reportMessage = "§c§l[REPORT] §e" + reporterName + " §fhas reported §e" + 
                     targetName + " §ffor: §e" + reason + " §f(ID: §e" + reportId + "§f)";
-            MessageUtils.broadcastToPermission("frizzlenmod.reports.view", reportMessage);
+            MessageUtils.broadcastToPermission(PlayerStateManager.REPORTS_VIEW_PERMISSION, reportMessage);
             
             // Confirm to the sender
             MessageUtils.sendSuccessMessage(sender, "Your report has been submitted (ID: " + reportId + ").");
@@ -71,4 +96,42 @@ public class ReportCommand implements CommandExecutor {
         
         return true;
     }
+    
+    private void viewReport(CommandSender sender, String reportId) {
+        Map<String, Object> report = plugin.getStorageManager().getReport(reportId);
+        if (report == null) {
+            MessageUtils.send(sender, "report.not-found", "id", reportId);
+            return;
+        }
+        
+        sender.sendMessage(MessageUtils.message("report.header", "id", reportId));
+        sender.sendMessage(MessageUtils.message("report.details", "reporter", report.get("reporter"),
+                "reported", report.get("reported"), "reason", report.get("reason"),
+                "time", TimeUtils.formatDate((Long) report.get("timestamp"))));
+        sender.sendMessage((Boolean) report.get("resolved")
+                ? MessageUtils.message("report.resolved", "staff", report.get("resolved_by"))
+                : MessageUtils.message("report.open"));
+        
+        ReportContext context = plugin.getStorageManager().getReportContext(reportId);
+        if (context == null || context.isEmpty()) {
+            sender.sendMessage(MessageUtils.message("report.no-context"));
+            return;
+        }
+        
+        sendLines(sender, MessageUtils.message("report.context-player", "player", report.get("reported")), context.getReported());
+        sendLines(sender, MessageUtils.message("report.context-player", "player", report.get("reporter")), context.getReporter());
+        sendLines(sender, MessageUtils.message("report.context-server"), context.getServer());
+    }
+    
+    private void sendLines(CommandSender sender, Component title, List<ChatHistory.Line> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        
+        sender.sendMessage(MessageUtils.message("report.context-title", "title", title, "count", lines.size()));
+        for (ChatHistory.Line line : lines) {
+            sender.sendMessage(MessageUtils.message("report.context-line", "time", TimeUtils.formatDate(line.getTimestamp()),
+                    "player", line.getPlayerName(), "message", line.getMessage()));
+        }
+    }
 } 
\ No newline at end of file
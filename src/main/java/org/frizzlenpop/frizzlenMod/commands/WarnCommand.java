@@ -7,6 +7,7 @@ import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.storage.Settings;
 import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
 
 import java.util.UUID;
@@ -118,9 +119,10 @@ public class WarnCommand implements CommandExecutor {
      */
     private void checkAutomaticActions(Player player, int warningCount, CommandSender sender) {
         // Get the configuration for automatic actions
-        int kickThreshold = plugin.getConfig().getInt("warnings.kick-threshold", 3);
-        int tempBanThreshold = plugin.getConfig().getInt("warnings.temp-ban-threshold", 5);
-        int banThreshold = plugin.getConfig().getInt("warnings.ban-threshold", 7);
+        Settings settings = plugin.getConfigManager().getSettings();
+        int kickThreshold = settings.getWarningKickThreshold();
+        int tempBanThreshold = settings.getWarningTempBanThreshold();
+        int banThreshold = settings.getWarningBanThreshold();
         
         String senderName = sender instanceof Player ? sender.getName() : "Console";
         
@@ -0,0 +1,36 @@
+package org.frizzlenpop.frizzlenMod.jail;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * A box of blocks between two corners, both included
+ */
+public final class CuboidRegion extends JailCell {
+    static final String TYPE = "cuboid";
+    
+    public CuboidRegion(String jailName, String worldName, int x1, int y1, int z1, int x2, int y2, int z2) {
+        super(jailName, worldName, x1, y1, z1, x2, y2, z2);
+    }
+    
+    @Override
+    protected boolean containsInBounds(int x, int y, int z) {
+        return true;
+    }
+    
+    @Override
+    public void save(ConfigurationSection section) {
+        section.set("type", TYPE);
+        section.set("world", worldName);
+        section.set("min-x", minX);
+        section.set("min-y", minY);
+        section.set("min-z", minZ);
+        section.set("max-x", maxX);
+        section.set("max-y", maxY);
+        section.set("max-z", maxZ);
+    }
+    
+    @Override
+    public String describe() {
+        return "cuboid " + minX + "," + minY + "," + minZ + " to " + maxX + "," + maxY + "," + maxZ + " in " + worldName;
+    }
+}
@@ -0,0 +1,65 @@
+package org.frizzlenpop.frizzlenMod.jail;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.List;
+
+/**
+ * A region staff defined as a cell of a jail. Unlike the radius area of a jail without
+ * cells, which follows the jail location, cells are saved with the jail.
+ */
+public abstract class JailCell extends JailRegion {
+    
+    protected JailCell(String jailName, String worldName, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        super(jailName, worldName, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+    
+    /**
+     * Writes the cell to a configuration section
+     * 
+     * @param section The section to write to
+     */
+    public abstract void save(ConfigurationSection section);
+    
+    /**
+     * Reads a cell written by {@link #save(ConfigurationSection)}
+     * 
+     * @param jailName The jail the cell belongs to
+     * @param section The section to read
+     * @return The cell, or null if the section is not a valid cell
+     */
+    public static JailCell load(String jailName, ConfigurationSection section) {
+        String type = section.getString("type", "");
+        String worldName = section.getString("world");
+        if (worldName == null) {
+            return null;
+        }
+        
+        switch (type) {
+            case CuboidRegion.TYPE:
+                return new CuboidRegion(jailName, worldName,
+                        section.getInt("min-x"), section.getInt("min-y"), section.getInt("min-z"),
+                        section.getInt("max-x"), section.getInt("max-y"), section.getInt("max-z"));
+            case PolygonRegion.TYPE:
+                List<String> points = section.getStringList("points");
+                int[] xs = new int[points.size()];
+                int[] zs = new int[points.size()];
+                for (int i = 0; i < points.size(); i++) {
+                    String[] parts = points.get(i).split(",");
+                    if (parts.length != 2) {
+                        return null;
+                    }
+                    try {
+                        xs[i] = Integer.parseInt(parts[0].trim());
+                        zs[i] = Integer.parseInt(parts[1].trim());
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                }
+                return xs.length < 3 ? null
+                        : new PolygonRegion(jailName, worldName, xs, zs, section.getInt("min-y"), section.getInt("max-y"));
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.frizzlenpop.frizzlenMod.jail;
+
+/**
+ * An area of a jail that a jailed player may move in. Regions work on block coordinates
+ * and have an inclusive bounding box, which is what {@link RegionIndex} files them under.
+ */
+public abstract class JailRegion {
+    protected final String jailName;
+    protected final String worldName;
+    protected final int minX;
+    protected final int minY;
+    protected final int minZ;
+    protected final int maxX;
+    protected final int maxY;
+    protected final int maxZ;
+    
+    protected JailRegion(String jailName, String worldName, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.jailName = jailName;
+        this.worldName = worldName;
+        this.minX = Math.min(minX, maxX);
+        this.minY = Math.min(minY, maxY);
+        this.minZ = Math.min(minZ, maxZ);
+        this.maxX = Math.max(minX, maxX);
+        this.maxY = Math.max(minY, maxY);
+        this.maxZ = Math.max(minZ, maxZ);
+    }
+    
+    /**
+     * Checks if a block is inside the region
+     * 
+     * @param x The block X coordinate
+     * @param y The block Y coordinate
+     * @param z The block Z coordinate
+     * @return true if the block is inside
+     */
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ
+                && containsInBounds(x, y, z);
+    }
+    
+    /**
+     * Checks a block that is already known to be inside the bounding box
+     */
+    protected abstract boolean containsInBounds(int x, int y, int z);
+    
+    /**
+     * Describes the region for command output
+     * 
+     * @return A short description
+     */
+    public abstract String describe();
+    
+    public String getJailName() {
+        return jailName;
+    }
+    
+    public String getWorldName() {
+        return worldName;
+    }
+    
+    public int getMinX() {
+        return minX;
+    }
+    
+    public int getMinY() {
+        return minY;
+    }
+    
+    public int getMinZ() {
+        return minZ;
+    }
+    
+    public int getMaxX() {
+        return maxX;
+    }
+    
+    public int getMaxY() {
+        return maxY;
+    }
+    
+    public int getMaxZ() {
+        return maxZ;
+    }
+}
@@ -0,0 +1,86 @@
+package org.frizzlenpop.frizzlenMod.jail;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A polygon of block columns between two heights. Blocks on an edge count as inside, the
+ * rest is decided by counting edge crossings, all in integer math.
+ */
+public final class PolygonRegion extends JailCell {
+    static final String TYPE = "polygon";
+    
+    private final int[] xs;
+    private final int[] zs;
+    
+    public PolygonRegion(String jailName, String worldName, int[] xs, int[] zs, int minY, int maxY) {
+        super(jailName, worldName, min(xs), minY, min(zs), max(xs), maxY, max(zs));
+        this.xs = xs.clone();
+        this.zs = zs.clone();
+    }
+    
+    @Override
+    protected boolean containsInBounds(int x, int y, int z) {
+        boolean inside = false;
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            int xi = xs[i];
+            int zi = zs[i];
+            int xj = xs[j];
+            int zj = zs[j];
+            
+            // On the edge from j to i
+            long cross = (long) (xj - xi) * (z - zi) - (long) (zj - zi) * (x - xi);
+            if (cross == 0 && x >= Math.min(xi, xj) && x <= Math.max(xi, xj)
+                    && z >= Math.min(zi, zj) && z <= Math.max(zi, zj)) {
+                return true;
+            }
+            
+            // The edge crosses the row of the block to the right of it
+            if ((zi > z) != (zj > z)) {
+                long left = (long) (x - xi) * (zj - zi);
+                long right = (long) (z - zi) * (xj - xi);
+                if (zj > zi ? left < right : left > right) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+    
+    @Override
+    public void save(ConfigurationSection section) {
+        List<String> points = new ArrayList<>(xs.length);
+        for (int i = 0; i < xs.length; i++) {
+            points.add(xs[i] + "," + zs[i]);
+        }
+        
+        section.set("type", TYPE);
+        section.set("world", worldName);
+        section.set("points", points);
+        section.set("min-y", minY);
+        section.set("max-y", maxY);
+    }
+    
+    @Override
+    public String describe() {
+        return "polygon of " + xs.length + " points, Y " + minY + " to " + maxY + " in " + worldName;
+    }
+    
+    private static int min(int[] values) {
+        int min = Integer.MAX_VALUE;
+        for (int value : values) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+    
+    private static int max(int[] values) {
+        int max = Integer.MIN_VALUE;
+        for (int value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+}
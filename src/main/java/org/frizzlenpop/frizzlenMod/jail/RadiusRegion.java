@@ -0,0 +1,35 @@
+package org.frizzlenpop.frizzlenMod.jail;
+
+/**
+ * The blocks within a radius of a jail point. Jails without cells use this area, it is
+ * never saved since it follows the jail location and the configured radius.
+ */
+public final class RadiusRegion extends JailRegion {
+    private final int centerX;
+    private final int centerY;
+    private final int centerZ;
+    private final long radiusSquared;
+    
+    public RadiusRegion(String jailName, String worldName, int centerX, int centerY, int centerZ, double radius) {
+        super(jailName, worldName,
+                centerX - (int) Math.ceil(radius), centerY - (int) Math.ceil(radius), centerZ - (int) Math.ceil(radius),
+                centerX + (int) Math.ceil(radius), centerY + (int) Math.ceil(radius), centerZ + (int) Math.ceil(radius));
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.centerZ = centerZ;
+        this.radiusSquared = (long) Math.floor(radius * radius);
+    }
+    
+    @Override
+    protected boolean containsInBounds(int x, int y, int z) {
+        long dx = x - centerX;
+        long dy = y - centerY;
+        long dz = z - centerZ;
+        return dx * dx + dy * dy + dz * dz <= radiusSquared;
+    }
+    
+    @Override
+    public String describe() {
+        return "radius " + (int) Math.sqrt(radiusSquared) + " around " + centerX + "," + centerY + "," + centerZ + " in " + worldName;
+    }
+}
@@ -0,0 +1,128 @@
+package org.frizzlenpop.frizzlenMod.jail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the jail regions at a block without looking at every region. Each world has a grid
+ * of chunks, stored as an open addressing table from the packed chunk key to the regions
+ * whose bounding box touches that chunk, so a lookup is one hash probe and a test of the
+ * few regions in that chunk. The index is immutable and is rebuilt when regions change.
+ */
+public final class RegionIndex {
+    private static final RegionIndex EMPTY = new RegionIndex(new HashMap<>());
+    
+    private final Map<String, ChunkTable> worlds;
+    
+    private RegionIndex(Map<String, ChunkTable> worlds) {
+        this.worlds = worlds;
+    }
+    
+    /**
+     * Gets an index without regions
+     * 
+     * @return The empty index
+     */
+    public static RegionIndex empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Builds an index
+     * 
+     * @param regions The regions to index
+     * @return The index
+     */
+    public static RegionIndex build(Collection<? extends JailRegion> regions) {
+        Map<String, Map<Long, List<JailRegion>>> grids = new HashMap<>();
+        for (JailRegion region : regions) {
+            Map<Long, List<JailRegion>> grid = grids.computeIfAbsent(region.getWorldName(), world -> new HashMap<>());
+            for (int chunkX = region.getMinX() >> 4; chunkX <= region.getMaxX() >> 4; chunkX++) {
+                for (int chunkZ = region.getMinZ() >> 4; chunkZ <= region.getMaxZ() >> 4; chunkZ++) {
+                    grid.computeIfAbsent(chunkKey(chunkX, chunkZ), key -> new ArrayList<>()).add(region);
+                }
+            }
+        }
+        
+        Map<String, ChunkTable> worlds = new HashMap<>();
+        for (Map.Entry<String, Map<Long, List<JailRegion>>> entry : grids.entrySet()) {
+            worlds.put(entry.getKey(), new ChunkTable(entry.getValue()));
+        }
+        return new RegionIndex(worlds);
+    }
+    
+    /**
+     * Finds a region containing a block
+     * 
+     * @param worldName The world of the block
+     * @param x The block X coordinate
+     * @param y The block Y coordinate
+     * @param z The block Z coordinate
+     * @param jailName Only regions of this jail count, or null for any jail
+     * @return The first region found, or null if there is none
+     */
+    public JailRegion find(String worldName, int x, int y, int z, String jailName) {
+        ChunkTable table = worlds.get(worldName);
+        if (table == null) {
+            return null;
+        }
+        
+        JailRegion[] candidates = table.get(chunkKey(x >> 4, z >> 4));
+        if (candidates == null) {
+            return null;
+        }
+        
+        for (JailRegion region : candidates) {
+            if ((jailName == null || region.getJailName().equals(jailName)) && region.contains(x, y, z)) {
+                return region;
+            }
+        }
+        return null;
+    }
+    
+    static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * A table from chunk keys to regions with linear probing, kept at most half full
+     */
+    private static final class ChunkTable {
+        private final long[] keys;
+        private final JailRegion[][] values;
+        private final int mask;
+        
+        private ChunkTable(Map<Long, List<JailRegion>> grid) {
+            int size = Integer.highestOneBit(Math.max(2, grid.size() * 2 - 1)) << 1;
+            this.keys = new long[size];
+            this.values = new JailRegion[size][];
+            this.mask = size - 1;
+            
+            for (Map.Entry<Long, List<JailRegion>> entry : grid.entrySet()) {
+                int slot = slot(entry.getKey());
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = entry.getKey();
+                values[slot] = entry.getValue().toArray(new JailRegion[0]);
+            }
+        }
+        
+        private JailRegion[] get(long key) {
+            for (int slot = slot(key); values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+        
+        private int slot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
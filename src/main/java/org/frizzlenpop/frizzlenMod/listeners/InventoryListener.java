@@ -10,8 +10,14 @@ import org.bukkit.event.inventory.InventoryOpenEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.managers.PlayerState;
+import org.frizzlenpop.frizzlenMod.storage.Settings;
 import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
 
+/**
+ * Keeps frozen and jailed players from using inventories and interacting. Only registered
+ * while such a player is online.
+ */
 public class InventoryListener implements Listener {
     
     private final FrizzlenMod plugin;
@@ -27,23 +33,23 @@ public class InventoryListener implements Listener {
         }
         
         Player player = (Player) event.getWhoClicked();
+        PlayerState state = plugin.getPlayerStateManager().getState(player.getUniqueId());
+        plugin.getPlayerStateManager().recordEnforcementEvent(state != null && state.has(PlayerState.RESTRICTIONS));
+        if (state == null) {
+            return;
+        }
         
         // Block inventory interactions for frozen players
-        if (plugin.getPunishmentManager().isPlayerFrozen(player.getUniqueId())) {
-            if (!player.hasPermission("frizzlenmod.bypass.freeze")) {
-                event.setCancelled(true);
-                MessageUtils.sendErrorMessage(player, "You are frozen and cannot interact with your inventory.");
-            }
+        if (state.isRestricted(PlayerState.FROZEN, PlayerState.FREEZE_BYPASS)) {
+            event.setCancelled(true);
+            MessageUtils.sendNotification(player, "frozen.inventory");
         }
         
         // Optionally restrict jailed players' inventory access
-        if (plugin.getConfig().getBoolean("jail.restrict-inventory", true)) {
-            if (plugin.getJailManager().isPlayerJailed(player.getUniqueId())) {
-                if (!player.hasPermission("frizzlenmod.bypass.jail")) {
-                    event.setCancelled(true);
-                    MessageUtils.sendErrorMessage(player, "You are jailed and cannot interact with your inventory.");
-                }
-            }
+        if (state.isRestricted(PlayerState.JAILED, PlayerState.JAIL_BYPASS)
+                && plugin.getConfigManager().getSettings().isJailRestrictInventory()) {
+            event.setCancelled(true);
+            MessageUtils.sendNotification(player, "jailed.inventory");
         }
     }
     
@@ -54,21 +60,21 @@ public class InventoryListener implements Listener {
         }
         
         Player player = (Player) event.getWhoClicked();
+        PlayerState state = plugin.getPlayerStateManager().getState(player.getUniqueId());
+        plugin.getPlayerStateManager().recordEnforcementEvent(state != null && state.has(PlayerState.RESTRICTIONS));
+        if (state == null) {
+            return;
+        }
         
         // Block inventory interactions for frozen players
-        if (plugin.getPunishmentManager().isPlayerFrozen(player.getUniqueId())) {
-            if (!player.hasPermission("frizzlenmod.bypass.freeze")) {
-                event.setCancelled(true);
-            }
+        if (state.isRestricted(PlayerState.FROZEN, PlayerState.FREEZE_BYPASS)) {
+            event.setCancelled(true);
         }
         
         // Optionally restrict jailed players' inventory access
-        if (plugin.getConfig().getBoolean("jail.restrict-inventory", true)) {
-            if (plugin.getJailManager().isPlayerJailed(player.getUniqueId())) {
-                if (!player.hasPermission("frizzlenmod.bypass.jail")) {
-                    event.setCancelled(true);
-                }
-            }
+        if (state.isRestricted(PlayerState.JAILED, PlayerState.JAIL_BYPASS)
+                && plugin.getConfigManager().getSettings().isJailRestrictInventory()) {
+            event.setCancelled(true);
         }
     }
     
@@ -79,67 +85,67 @@ public class InventoryListener implements Listener {
         }
         
         Player player = (Player) event.getPlayer();
+        PlayerState state = plugin.getPlayerStateManager().getState(player.getUniqueId());
+        plugin.getPlayerStateManager().recordEnforcementEvent(state != null && state.has(PlayerState.RESTRICTIONS));
         
         // Block opening inventories for frozen players
-        if (plugin.getPunishmentManager().isPlayerFrozen(player.getUniqueId())) {
-            if (!player.hasPermission("frizzlenmod.bypass.freeze")) {
-                event.setCancelled(true);
-                MessageUtils.sendErrorMessage(player, "You are frozen and cannot open inventories.");
-            }
+        if (state != null && state.isRestricted(PlayerState.FROZEN, PlayerState.FREEZE_BYPASS)) {
+            event.setCancelled(true);
+            MessageUtils.sendNotification(player, "frozen.open");
         }
     }
     
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerDropItem(PlayerDropItemEvent event) {
         Player player = event.getPlayer();
+        PlayerState state = plugin.getPlayerStateManager().getState(player.getUniqueId());
+        plugin.getPlayerStateManager().recordEnforcementEvent(state != null && state.has(PlayerState.RESTRICTIONS));
+        if (state == null) {
+            return;
+        }
         
         // Block item dropping for frozen players
-        if (plugin.getPunishmentManager().isPlayerFrozen(player.getUniqueId())) {
-            if (!player.hasPermission("frizzlenmod.bypass.freeze")) {
-                event.setCancelled(true);
-                MessageUtils.sendErrorMessage(player, "You are frozen and cannot drop items.");
-            }
+        if (state.isRestricted(PlayerState.FROZEN, PlayerState.FREEZE_BYPASS)) {
+            event.setCancelled(true);
+            MessageUtils.sendNotification(player, "frozen.drop");
         }
         
         // Optionally restrict jailed players from dropping items
-        if (plugin.getConfig().getBoolean("jail.restrict-item-drop", true)) {
-            if (plugin.getJailManager().isPlayerJailed(player.getUniqueId())) {
-                if (!player.hasPermission("frizzlenmod.bypass.jail")) {
-                    event.setCancelled(true);
-                    MessageUtils.sendErrorMessage(player, "You are jailed and cannot drop items.");
-                }
-            }
+        if (state.isRestricted(PlayerState.JAILED, PlayerState.JAIL_BYPASS)
+                && plugin.getConfigManager().getSettings().isJailRestrictItemDrop()) {
+            event.setCancelled(true);
+            MessageUtils.sendNotification(player, "jailed.drop");
         }
     }
     
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerInteract(PlayerInteractEvent event) {
         Player player = event.getPlayer();
+        PlayerState state = plugin.getPlayerStateManager().getState(player.getUniqueId());
+        plugin.getPlayerStateManager().recordEnforcementEvent(state != null && state.has(PlayerState.RESTRICTIONS));
+        if (state == null) {
+            return;
+        }
         
         // Block interactions for frozen players
-        if (plugin.getPunishmentManager().isPlayerFrozen(player.getUniqueId())) {
-            if (!player.hasPermission("frizzlenmod.bypass.freeze")) {
-                event.setCancelled(true);
-                
-                // Don't spam messages for continuous interactions
-                if (event.getAction().name().contains("RIGHT_CLICK")) {
-                    MessageUtils.sendErrorMessage(player, "You are frozen and cannot interact with the world.");
-                }
+        if (state.isRestricted(PlayerState.FROZEN, PlayerState.FREEZE_BYPASS)) {
+            event.setCancelled(true);
+            
+            // Don't spam messages for continuous interactions
+            if (event.getAction().name().contains("RIGHT_CLICK")) {
+                MessageUtils.sendNotification(player, "frozen.interact");
             }
         }
         
         // Optionally restrict jailed players from interacting
-        if (plugin.getConfig().getBoolean("jail.restrict-interaction", true)) {
-            if (plugin.getJailManager().isPlayerJailed(player.getUniqueId())) {
-                if (!player.hasPermission("frizzlenmod.bypass.jail")) {
-                    event.setCancelled(true);
-                    
-                    // Don't spam messages for continuous interactions
-                    if (event.getAction().name().contains("RIGHT_CLICK")) {
-                        MessageUtils.sendErrorMessage(player, "You are jailed and cannot interact with the world.");
-                    }
-                }
+        Settings settings = plugin.getConfigManager().getSettings();
+        if (state.isRestricted(PlayerState.JAILED, PlayerState.JAIL_BYPASS) && settings.isJailRestrictInteraction()) {
+            event.setCancelled(true);
+            
+            // Don't spam messages for continuous interactions
+            if (event.getAction().name().contains("RIGHT_CLICK")) {
+                MessageUtils.sendNotification(player, "jailed.interact");
             }
         }
     }
-} 
\ No newline at end of file
+}
@@ -1,70 +1,59 @@
 package org.frizzlenpop.frizzlenMod.listeners;
 
+import io.papermc.paper.event.player.AsyncChatEvent;
+import net.kyori.adventure.text.Component;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
-import org.bukkit.event.player.AsyncPlayerChatEvent;
 import org.frizzlenpop.frizzlenMod.FrizzlenMod;
-import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
-
-import java.util.HashMap;
-import java.util.UUID;
+import org.frizzlenpop.frizzlenMod.chat.ChatMessage;
+import org.frizzlenpop.frizzlenMod.chat.ChatStage;
+import org.frizzlenpop.frizzlenMod.chat.ComponentMasker;
+import org.frizzlenpop.frizzlenMod.managers.PlayerState;
 
 public class PlayerChatListener implements Listener {
     
     private final FrizzlenMod plugin;
-    private final HashMap<UUID, Long> lastChatTimes;
     
     public PlayerChatListener(FrizzlenMod plugin) {
         this.plugin = plugin;
-        this.lastChatTimes = new HashMap<>();
     }
     
     @EventHandler(priority = EventPriority.LOWEST)
-    public void onPlayerChat(AsyncPlayerChatEvent event) {
+    public void onPlayerChat(AsyncChatEvent event) {
         Player player = event.getPlayer();
         
-        // Check if global chat is muted
-        if (plugin.getChatManager().isChatMuted()) {
-            // Staff can still chat when global chat is muted
-            if (!player.hasPermission("frizzlenmod.bypass.chatmute")) {
-                event.setCancelled(true);
-                MessageUtils.sendErrorMessage(player, "The global chat is currently muted.");
-                return;
-            }
-        }
+        // The pipeline works on the plain text of the message, serialized once here, and the
+        // component is only rebuilt if a stage changed the text
+        Component component = event.message();
+        String plainText = ComponentMasker.plainText(component);
+        
+        // Run the message through the moderation pipeline in one pass:
+        // global mute, player mute, rate limits, spam, filter, caps and classifier
+        PlayerState state = plugin.getPlayerStateManager().getState(player.getUniqueId());
+        ChatMessage message = state != null
+                ? new ChatMessage(player, plainText, state.getChatBypasses())
+                : new ChatMessage(player, plainText);
+        message.setSignature(event.signedMessage().signature());
+        ChatStage.Result result = plugin.getChatManager().process(message);
         
-        // Check if the player is muted
-        if (plugin.getPunishmentManager().isPlayerMuted(player.getUniqueId())) {
+        if (result == ChatStage.Result.BLOCK) {
             event.setCancelled(true);
-            MessageUtils.sendErrorMessage(player, "You are muted and cannot chat.");
             return;
         }
         
-        // Check slow mode
-        int slowModeSeconds = plugin.getChatManager().getSlowModeSeconds();
-        if (slowModeSeconds > 0 && !player.hasPermission("frizzlenmod.bypass.slowmode")) {
-            long currentTime = System.currentTimeMillis();
-            long lastChat = lastChatTimes.getOrDefault(player.getUniqueId(), 0L);
-            long elapsedTime = (currentTime - lastChat) / 1000; // Convert to seconds
-            
-            if (elapsedTime < slowModeSeconds) {
-                event.setCancelled(true);
-                int remainingTime = slowModeSeconds - (int) elapsedTime;
-                MessageUtils.sendErrorMessage(player, "Slow mode is enabled. You can chat again in " + 
-                        remainingTime + " second" + (remainingTime == 1 ? "" : "s") + ".");
-                return;
-            }
-            
-            // Update last chat time
-            lastChatTimes.put(player.getUniqueId(), currentTime);
+        // Hidden messages, like those of shadow muted players, are only shown to the sender
+        // and the console
+        if (result == ChatStage.Result.HIDE) {
+            event.viewers().removeIf(viewer -> viewer instanceof Player && !viewer.equals(player));
         }
         
-        // Optional: Chat filtering (if implemented in the ChatManager)
-        if (plugin.getChatManager().hasFilters()) {
-            String filteredMessage = plugin.getChatManager().filterMessage(event.getMessage());
-            event.setMessage(filteredMessage);
+        if (message.isModified()) {
+            String masked = message.getMessage();
+            event.message(masked.length() == plainText.length()
+                    ? ComponentMasker.mask(component, masked)
+                    : Component.text(masked));
         }
     }
-} 
\ No newline at end of file
+}
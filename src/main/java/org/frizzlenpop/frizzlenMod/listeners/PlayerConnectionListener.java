@@ -1,7 +1,6 @@
 package org.frizzlenpop.frizzlenMod.listeners;
 
 import org.bukkit.BanList;
-import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -42,23 +41,12 @@ public class PlayerConnectionListener implements Listener {
         Player player = event.getPlayer();
         UUID playerUUID = player.getUniqueId();
         
-        // Handle vanished players - hide new player from them
-        for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-            if (plugin.getVanishManager().isVanished(onlinePlayer.getUniqueId())) {
-                player.hidePlayer(plugin, onlinePlayer);
-            }
-        }
+        // Hide vanished players from the new player, and the new player from others if vanished
+        plugin.getVanishManager().handleJoin(player);
         
-        // Check if this player is vanished and hide them from others
         if (plugin.getVanishManager().isVanished(playerUUID)) {
-            for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-                if (!onlinePlayer.hasPermission("frizzlenmod.vanish.see")) {
-                    onlinePlayer.hidePlayer(plugin, player);
-                }
-            }
-            
             // Send reminder message to vanished player
-            MessageUtils.sendMessage(player, "§7You are currently §evanished§7. Other players cannot see you.");
+            MessageUtils.send(player, "join.vanished");
             
             // Hide join message for vanished players
             event.setJoinMessage(null);
@@ -72,20 +60,23 @@ public class PlayerConnectionListener implements Listener {
                 plugin.getJailManager().teleportToJail(player, jailName);
                 
                 // Inform player they are still jailed
-                MessageUtils.sendMessage(player, "§cYou are currently jailed.");
+                MessageUtils.send(player, "join.jailed");
             }
         }
         
         // Check if player is muted and notify them
         if (plugin.getPunishmentManager().isPlayerMuted(playerUUID)) {
-            MessageUtils.sendMessage(player, "§cYou are currently muted and cannot chat.");
+            MessageUtils.send(player, "join.muted");
         }
         
         // Check if player has warnings and remind them
         int warnings = plugin.getPunishmentManager().getPlayerWarnings(playerUUID);
         if (warnings > 0) {
-            MessageUtils.sendMessage(player, "§eYou currently have " + warnings + " warning" + 
-                    (warnings == 1 ? "" : "s") + ".");
+            if (warnings == 1) {
+                MessageUtils.send(player, "join.warnings-one");
+            } else {
+                MessageUtils.send(player, "join.warnings", "count", warnings);
+            }
         }
     }
     
@@ -97,5 +88,8 @@ public class PlayerConnectionListener implements Listener {
         if (plugin.getVanishManager().isVanished(player.getUniqueId())) {
             event.setQuitMessage(null);
         }
+        
+        // Drop per-player chat state
+        plugin.getChatManager().clearPlayerState(player.getUniqueId());
     }
 } 
\ No newline at end of file
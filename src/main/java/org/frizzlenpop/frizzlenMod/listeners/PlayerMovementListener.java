@@ -8,51 +8,80 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
 import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.managers.JailManager;
+import org.frizzlenpop.frizzlenMod.managers.PlayerState;
+import org.frizzlenpop.frizzlenMod.managers.PlayerStateManager;
 import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
 
 import java.util.UUID;
 
+/**
+ * Keeps frozen players in place and jailed players in their jail. Only registered while
+ * such a player is online.
+ */
 public class PlayerMovementListener implements Listener {
     
-    private final FrizzlenMod plugin;
+    private final Lookups lookups;
     
     public PlayerMovementListener(FrizzlenMod plugin) {
-        this.plugin = plugin;
+        this(new ManagerLookups(plugin.getPlayerStateManager(), plugin.getJailManager()));
+    }
+    
+    /**
+     * Creates the listener with its own lookups, so the handlers can run without a server
+     * 
+     * @param lookups The player states and jail areas
+     */
+    public PlayerMovementListener(Lookups lookups) {
+        this.lookups = lookups;
     }
     
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerMove(PlayerMoveEvent event) {
+        // Looking around is always allowed
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (to == null || (from.getX() == to.getX() && from.getY() == to.getY() && from.getZ() == to.getZ())) {
+            lookups.recordEnforcementEvent(false);
+            return;
+        }
+        
+        // Nearly every player is unrestricted and leaves after this one lookup
         Player player = event.getPlayer();
         UUID playerUUID = player.getUniqueId();
+        PlayerState state = lookups.getState(playerUUID);
+        boolean restricted = state != null && state.has(PlayerState.RESTRICTIONS);
+        lookups.recordEnforcementEvent(restricted);
+        if (!restricted) {
+            return;
+        }
         
-        // Check if player is frozen
-        if (plugin.getPunishmentManager().isPlayerFrozen(playerUUID)) {
-            // Only cancel if player's XYZ position changed (allow looking around)
-            Location from = event.getFrom();
-            Location to = event.getTo();
-            
-            if (to != null && (from.getX() != to.getX() || from.getY() != to.getY() || from.getZ() != to.getZ())) {
-                event.setCancelled(true);
-                MessageUtils.sendErrorMessage(player, "You are frozen and cannot move.");
-            }
+        // Frozen players can't change their position at all
+        if (state.has(PlayerState.FROZEN)) {
+            event.setCancelled(true);
+            MessageUtils.sendNotification(player, "frozen.move");
+            return;
         }
         
-        // Check if player is jailed
-        if (plugin.getJailManager().isPlayerJailed(playerUUID)) {
-            // Check if player is trying to leave jail area
-            if (!plugin.getJailManager().isInJailArea(player)) {
-                // Teleport player back to their assigned jail
-                String jailName = plugin.getJailManager().getPlayerJail(playerUUID);
-                if (jailName != null) {
-                    // Cancel the movement event
-                    event.setCancelled(true);
-                    
-                    // Teleport player back to jail
-                    Location jailLocation = plugin.getJailManager().getJailLocation(jailName);
-                    if (jailLocation != null) {
-                        player.teleport(jailLocation);
-                        MessageUtils.sendErrorMessage(player, "You cannot leave the jail area.");
-                    }
+        // The jail area is only checked when the player enters another block
+        if (from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY()
+                && from.getBlockZ() == to.getBlockZ() && from.getWorld() == to.getWorld()) {
+            return;
+        }
+        
+        // Check if player is trying to leave jail area
+        if (state.has(PlayerState.JAILED) && !lookups.isInJailArea(playerUUID, to)) {
+            // Teleport player back to their assigned jail
+            String jailName = lookups.getPlayerJail(playerUUID);
+            if (jailName != null) {
+                // Cancel the movement event
+                event.setCancelled(true);
+                
+                // Teleport player back to jail
+                Location jailLocation = lookups.getJailLocation(jailName);
+                if (jailLocation != null) {
+                    player.teleport(jailLocation);
+                    MessageUtils.sendNotification(player, "jailed.area");
                 }
             }
         }
@@ -61,28 +90,81 @@ public class PlayerMovementListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerTeleport(PlayerTeleportEvent event) {
         Player player = event.getPlayer();
-        UUID playerUUID = player.getUniqueId();
+        PlayerState state = lookups.getState(player.getUniqueId());
+        lookups.recordEnforcementEvent(state != null && state.has(PlayerState.RESTRICTIONS));
+        if (state == null) {
+            return;
+        }
         
-        // Block teleportation for frozen players
-        if (plugin.getPunishmentManager().isPlayerFrozen(playerUUID)) {
-            // Staff with bypass permission can still teleport when frozen
-            if (!player.hasPermission("frizzlenmod.bypass.freeze")) {
-                event.setCancelled(true);
-                MessageUtils.sendErrorMessage(player, "You are frozen and cannot teleport.");
-                return;
-            }
+        // Block teleportation for frozen players, staff with bypass permission can still teleport
+        if (state.isRestricted(PlayerState.FROZEN, PlayerState.FREEZE_BYPASS)) {
+            event.setCancelled(true);
+            MessageUtils.sendNotification(player, "frozen.teleport");
+            return;
         }
         
         // Block teleportation out of jail for jailed players
-        if (plugin.getJailManager().isPlayerJailed(playerUUID)) {
-            // Check if target location is outside the jail
-            if (!plugin.getJailManager().isLocationInJail(event.getTo())) {
-                // Staff with bypass permission can still teleport
-                if (!player.hasPermission("frizzlenmod.bypass.jail")) {
-                    event.setCancelled(true);
-                    MessageUtils.sendErrorMessage(player, "You are jailed and cannot teleport out.");
-                }
-            }
+        if (state.isRestricted(PlayerState.JAILED, PlayerState.JAIL_BYPASS)
+                && !lookups.isLocationInJail(event.getTo())) {
+            event.setCancelled(true);
+            MessageUtils.sendNotification(player, "jailed.teleport");
+        }
+    }
+    
+    /**
+     * The player states and jail areas the handlers look up, backed by the managers on a server
+     */
+    public interface Lookups {
+        PlayerState getState(UUID playerUUID);
+        
+        void recordEnforcementEvent(boolean restricted);
+        
+        boolean isInJailArea(UUID playerUUID, Location location);
+        
+        boolean isLocationInJail(Location location);
+        
+        String getPlayerJail(UUID playerUUID);
+        
+        Location getJailLocation(String jailName);
+    }
+    
+    private static final class ManagerLookups implements Lookups {
+        private final PlayerStateManager states;
+        private final JailManager jails;
+        
+        private ManagerLookups(PlayerStateManager states, JailManager jails) {
+            this.states = states;
+            this.jails = jails;
+        }
+        
+        @Override
+        public PlayerState getState(UUID playerUUID) {
+            return states.getState(playerUUID);
+        }
+        
+        @Override
+        public void recordEnforcementEvent(boolean restricted) {
+            states.recordEnforcementEvent(restricted);
+        }
+        
+        @Override
+        public boolean isInJailArea(UUID playerUUID, Location location) {
+            return jails.isInJailArea(playerUUID, location);
+        }
+        
+        @Override
+        public boolean isLocationInJail(Location location) {
+            return jails.isLocationInJail(location);
+        }
+        
+        @Override
+        public String getPlayerJail(UUID playerUUID) {
+            return jails.getPlayerJail(playerUUID);
+        }
+        
+        @Override
+        public Location getJailLocation(String jailName) {
+            return jails.getJailLocation(jailName);
         }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,48 @@
+package org.frizzlenpop.frizzlenMod.listeners;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerCommandSendEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
+
+/**
+ * Creates and drops the cached state of players as they join and leave, and refreshes
+ * their bypass permissions when those may have changed
+ */
+public class PlayerStateListener implements Listener {
+    
+    private final FrizzlenMod plugin;
+    
+    public PlayerStateListener(FrizzlenMod plugin) {
+        this.plugin = plugin;
+    }
+    
+    // Before every other join handler, so they all find the state
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        plugin.getPlayerStateManager().createState(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        plugin.getPlayerStateManager().removeState(event.getPlayer().getUniqueId());
+        MessageUtils.clearNotifications(event.getPlayer().getUniqueId());
+    }
+    
+    // The server resends the command tree after operator and permission plugin changes
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onCommandSend(PlayerCommandSendEvent event) {
+        plugin.getPlayerStateManager().refreshPermissions(event.getPlayer());
+    }
+    
+    // Permissions can differ per world
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChangedWorld(PlayerChangedWorldEvent event) {
+        plugin.getPlayerStateManager().refreshPermissions(event.getPlayer());
+    }
+}
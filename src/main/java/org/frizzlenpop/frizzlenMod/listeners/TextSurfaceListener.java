@@ -0,0 +1,177 @@
+package org.frizzlenpop.frizzlenMod.listeners;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.SignChangeEvent;
+import org.bukkit.event.inventory.PrepareAnvilEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerEditBookEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BookMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.chat.ChatMessage;
+import org.frizzlenpop.frizzlenMod.chat.ComponentMasker;
+import org.frizzlenpop.frizzlenMod.chat.TextSurface;
+import org.frizzlenpop.frizzlenMod.managers.ChatManager;
+import org.frizzlenpop.frizzlenMod.managers.PlayerState;
+import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs text players write outside of chat through the chat filter: signs, books, anvil
+ * renames, player names at login and the arguments of configured commands
+ */
+public class TextSurfaceListener implements Listener {
+    
+    private final FrizzlenMod plugin;
+    
+    public TextSurfaceListener(FrizzlenMod plugin) {
+        this.plugin = plugin;
+    }
+    
+    @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+    public void onSignChange(SignChangeEvent event) {
+        ChatManager chatManager = plugin.getChatManager();
+        if (!chatManager.isSurfaceFiltered(TextSurface.SIGN) || bypasses(event.getPlayer())) {
+            return;
+        }
+        
+        List<Component> lines = event.lines();
+        for (int i = 0; i < lines.size(); i++) {
+            Component masked = mask(TextSurface.SIGN, lines.get(i));
+            if (masked != null) {
+                event.line(i, masked);
+            }
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+    public void onEditBook(PlayerEditBookEvent event) {
+        ChatManager chatManager = plugin.getChatManager();
+        if (!chatManager.isSurfaceFiltered(TextSurface.BOOK) || bypasses(event.getPlayer())) {
+            return;
+        }
+        
+        BookMeta meta = event.getNewBookMeta();
+        boolean changed = false;
+        
+        List<Component> pages = meta.pages();
+        for (int i = 0; i < pages.size(); i++) {
+            Component masked = mask(TextSurface.BOOK, pages.get(i));
+            if (masked != null) {
+                // Book pages are numbered from 1
+                meta.page(i + 1, masked);
+                changed = true;
+            }
+        }
+        
+        if (event.isSigning() && meta.title() != null) {
+            Component masked = mask(TextSurface.BOOK, meta.title());
+            if (masked != null) {
+                meta.title(masked);
+                changed = true;
+            }
+        }
+        
+        if (changed) {
+            event.setNewBookMeta(meta);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPrepareAnvil(PrepareAnvilEvent event) {
+        ChatManager chatManager = plugin.getChatManager();
+        ItemStack result = event.getResult();
+        String renameText = event.getView().getRenameText();
+        if (result == null || renameText == null || renameText.isEmpty()
+                || !chatManager.isSurfaceFiltered(TextSurface.ANVIL)) {
+            return;
+        }
+        if (event.getView().getPlayer() instanceof Player player && bypasses(player)) {
+            return;
+        }
+        
+        // The result already carries the new name, mask it in place to keep its style
+        ItemStack masked = result.clone();
+        ItemMeta meta = masked.getItemMeta();
+        Component name = mask(TextSurface.ANVIL, meta.displayName());
+        if (name != null) {
+            meta.displayName(name);
+            masked.setItemMeta(meta);
+            event.setResult(masked);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        
+        if (plugin.getChatManager().matchesSurface(TextSurface.NAME, event.getName())) {
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+                    MessageUtils.message("login.name-blocked"));
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+    public void onCommand(PlayerCommandPreprocessEvent event) {
+        ChatManager chatManager = plugin.getChatManager();
+        if (!chatManager.isSurfaceFiltered(TextSurface.COMMAND)) {
+            return;
+        }
+        
+        // "/minecraft:msg Steve hello" has the label "msg" and the arguments "Steve hello"
+        String commandLine = event.getMessage();
+        int space = commandLine.indexOf(' ');
+        if (space < 0) {
+            return;
+        }
+        
+        String label = commandLine.substring(1, space).toLowerCase(Locale.ROOT);
+        label = label.substring(label.indexOf(':') + 1);
+        if (!chatManager.isFilteredCommand(label) || bypasses(event.getPlayer())) {
+            return;
+        }
+        
+        String arguments = commandLine.substring(space + 1);
+        String filtered = chatManager.filterSurface(TextSurface.COMMAND, arguments);
+        if (filtered != arguments) {
+            event.setMessage(commandLine.substring(0, space + 1) + filtered);
+        }
+    }
+    
+    /**
+     * Masks the plain text of a component
+     * 
+     * @return The masked component, or null if nothing matched
+     */
+    private Component mask(TextSurface surface, Component component) {
+        if (component == null) {
+            return null;
+        }
+        
+        String text = ComponentMasker.plainText(component);
+        String filtered = plugin.getChatManager().filterSurface(surface, text);
+        return filtered == text ? null : ComponentMasker.mask(component, filtered);
+    }
+    
+    /**
+     * Checks the filter bypass from the cached state of the player, the permission is only
+     * looked up for players whose state was not created yet
+     */
+    private boolean bypasses(Player player) {
+        PlayerState state = plugin.getPlayerStateManager().getState(player.getUniqueId());
+        if (state == null) {
+            return player.hasPermission(ChatMessage.Bypass.FILTER.getPermission());
+        }
+        return (state.getChatBypasses() & (1 << ChatMessage.Bypass.FILTER.ordinal())) != 0;
+    }
+}
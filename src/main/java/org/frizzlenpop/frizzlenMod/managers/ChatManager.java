@@ -1,56 +1,302 @@
 package org.frizzlenpop.frizzlenMod.managers;
 
+import net.kyori.adventure.chat.SignedMessage;
+import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.chat.ChatArchive;
+import org.frizzlenpop.frizzlenMod.chat.ChatHistory;
+import org.frizzlenpop.frizzlenMod.chat.ChatMessage;
+import org.frizzlenpop.frizzlenMod.chat.ChatPipeline;
+import org.frizzlenpop.frizzlenMod.chat.ChatRateLimiter;
+import org.frizzlenpop.frizzlenMod.chat.ChatStage;
+import org.frizzlenpop.frizzlenMod.chat.ClassifierService;
+import org.frizzlenpop.frizzlenMod.chat.FilterEngine;
+import org.frizzlenpop.frizzlenMod.chat.HttpClassifier;
+import org.frizzlenpop.frizzlenMod.chat.MessageClassifier;
+import org.frizzlenpop.frizzlenMod.chat.NormalizedText;
+import org.frizzlenpop.frizzlenMod.chat.PatternFilter;
+import org.frizzlenpop.frizzlenMod.chat.ReportContext;
+import org.frizzlenpop.frizzlenMod.chat.SpamDetector;
+import org.frizzlenpop.frizzlenMod.chat.SpamWaveDetector;
+import org.frizzlenpop.frizzlenMod.chat.StubClassifier;
+import org.frizzlenpop.frizzlenMod.chat.SurfaceStats;
+import org.frizzlenpop.frizzlenMod.chat.TextNormalizer;
+import org.frizzlenpop.frizzlenMod.chat.TextSurface;
+import org.frizzlenpop.frizzlenMod.chat.VerdictCache;
+import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
 public class ChatManager {
     private final FrizzlenMod plugin;
-    private boolean chatMuted;
-    private int slowModeSeconds;
-    private final Map<UUID, Long> lastMessageTime;
+    private volatile boolean chatMuted;
+    private volatile int slowModeSeconds;
+    private ChatRateLimiter rateLimiter;
     private final Set<UUID> shadowMutedPlayers;
-    private List<String> blacklistedWords;
-    private List<Pattern> blacklistedPatterns;
-    private final Map<UUID, List<String>> chatLogs;
-    private final int MAX_CHAT_LOG_SIZE = 100;
+    // Replaced as a whole on reload, every message reads it once and finishes on that filter
+    private volatile FilterEngine filterEngine;
+    private final AtomicBoolean filterReloading = new AtomicBoolean();
+    private VerdictCache verdictCache;
+    private final SurfaceStats surfaceStats = new SurfaceStats();
+    private final EnumSet<TextSurface> filteredSurfaces = EnumSet.noneOf(TextSurface.class);
+    private Set<String> filteredCommands = Collections.emptySet();
+    private boolean filterEnabled;
+    private boolean antiCapsEnabled;
+    private SpamDetector spamDetector;
+    private boolean blockDuplicates;
+    private SpamWaveDetector spamWaveDetector;
+    private boolean waveMutesChat;
+    private int waveSlowModeSeconds;
+    private boolean waveShadowMutes;
+    private long waveDurationMillis;
+    // Players shadow muted by spam waves rather than by staff, released when the wave ends
+    private final Set<UUID> waveMutedPlayers = ConcurrentHashMap.newKeySet();
+    // What the current wave turned on, only touched on the main thread
+    private boolean waveMutedChat;
+    private int waveSlowMode;
+    private int slowModeBeforeWave;
+    private int waveTaskId = -1;
+    private ChatHistory chatHistory;
+    private int reportContextLines;
+    private int reportServerLines;
+    private long reportServerWindowMillis;
+    private ChatArchive chatArchive;
+    private ClassifierService classifierService;
+    private boolean classifierBlocks;
+    private double classifierThreshold;
+    private boolean classifierMutes;
+    private long classifierMuteMillis;
+    private final ChatPipeline pipeline;
 
     public ChatManager(FrizzlenMod plugin) {
         this.plugin = plugin;
         this.chatMuted = false;
         this.slowModeSeconds = 0;
-        this.lastMessageTime = new HashMap<>();
-        this.shadowMutedPlayers = new HashSet<>();
-        this.blacklistedWords = new ArrayList<>();
-        this.blacklistedPatterns = new ArrayList<>();
-        this.chatLogs = new HashMap<>();
+        this.rateLimiter = ChatRateLimiter.disabled();
+        this.shadowMutedPlayers = ConcurrentHashMap.newKeySet();
+        this.filterEngine = FilterEngine.empty();
+        this.verdictCache = VerdictCache.disabled();
+        this.spamDetector = SpamDetector.disabled();
+        this.blockDuplicates = true;
+        this.spamWaveDetector = SpamWaveDetector.disabled();
         
         // Load config
         loadConfig();
+        
+        this.pipeline = createPipeline();
     }
     
     private void loadConfig() {
         FileConfiguration config = plugin.getConfig();
         
-        // Load chat filter words
-        blacklistedWords = config.getStringList("chat.blacklisted-words");
+        filterEngine = compileFilters(config);
+        
+        for (String pattern : filterEngine.getPatternFilter().getInvalidPatterns()) {
+            plugin.getLogger().warning("Invalid regex pattern: " + pattern);
+        }
+        
+        // Filter results of recent messages, so repeated messages skip the filter
+        verdictCache = new VerdictCache(
+                config.getBoolean("chat.filter-cache.enabled", true) ? config.getInt("chat.filter-cache.size", 4096) : 0,
+                config.getInt("chat.filter-cache.max-length", 256)
+        );
+        
+        // Per-player chat history kept under a global memory budget
+        chatHistory = new ChatHistory(
+                config.getInt("chat.history.size", 100),
+                config.getLong("chat.history.max-memory-kb", 4096) * 1024,
+                config.getInt("chat.history.server-size", 50),
+                plugin.getLogger()::warning
+        );
+        
+        // Chat copied from the history into every report
+        reportContextLines = Math.max(0, config.getInt("chat.report-context.lines", 20));
+        reportServerLines = Math.max(0, config.getInt("chat.report-context.server-lines", 30));
+        reportServerWindowMillis = TimeUnit.SECONDS.toMillis(config.getLong("chat.report-context.server-window-seconds", 300));
+        
+        // Chat archive on disk, written from a background thread
+        if (config.getBoolean("chat.archive.enabled", true)) {
+            chatArchive = new ChatArchive(
+                    new File(plugin.getDataFolder(), "chatlogs"),
+                    config.getInt("chat.archive.queue-size", 10000),
+                    TimeUnit.DAYS.toMillis(config.getLong("chat.archive.retention-days", 30)),
+                    (message, error) -> plugin.getLogger().log(Level.WARNING, message, error)
+            );
+        }
+        
+        filterEnabled = config.getBoolean("chat.filter-enabled", true);
+        antiCapsEnabled = config.getBoolean("chat.anti-caps-enabled", true);
         
-        // Load regex patterns
-        List<String> regexPatterns = config.getStringList("chat.blacklisted-patterns");
-        blacklistedPatterns = new ArrayList<>();
+        // Other places players write text that go through the same filter
+        for (TextSurface surface : TextSurface.values()) {
+            if (surface != TextSurface.COMMAND && config.getBoolean("chat.surfaces." + surface.getConfigKey(), true)) {
+                filteredSurfaces.add(surface);
+            }
+        }
+        Set<String> commands = new HashSet<>();
+        for (String command : config.getStringList("chat.surfaces.commands")) {
+            commands.add(command.toLowerCase(Locale.ROOT));
+        }
+        filteredCommands = commands;
+        if (!commands.isEmpty()) {
+            filteredSurfaces.add(TextSurface.COMMAND);
+        }
+        
+        // Duplicate message detection
+        spamDetector = new SpamDetector(
+                config.getBoolean("chat.anti-spam", true),
+                config.getInt("chat.max-duplicate-messages", 3),
+                config.getLong("chat.duplicate-window", 30) * 1000
+        );
+        blockDuplicates = !config.getString("chat.duplicate-action", "block").equalsIgnoreCase("flag");
         
-        for (String pattern : regexPatterns) {
+        // Per-player and server-wide message rate limits
+        rateLimiter = new ChatRateLimiter(
+                config.getBoolean("chat.rate-limit.enabled", true),
+                config.getLong("chat.message-cooldown", 1) * 1000,
+                config.getInt("chat.rate-limit.burst", 3),
+                config.getLong("chat.rate-limit.global-interval-millis", 0),
+                config.getInt("chat.rate-limit.global-burst", 20)
+        );
+        
+        // Cross-player spam wave detection
+        spamWaveDetector = new SpamWaveDetector(
+                config.getBoolean("chat.spam-wave.enabled", false),
+                config.getLong("chat.spam-wave.window", 10) * 1000,
+                config.getInt("chat.spam-wave.min-senders", 5),
+                config.getInt("chat.spam-wave.max-distance", 3),
+                config.getInt("chat.spam-wave.min-length", 12)
+        );
+        waveMutesChat = config.getString("chat.spam-wave.action", "slow-mode").equalsIgnoreCase("mute");
+        waveSlowModeSeconds = config.getInt("chat.spam-wave.slow-mode-seconds", 10);
+        waveShadowMutes = config.getBoolean("chat.spam-wave.shadow-mute", false);
+        waveDurationMillis = config.getLong("chat.spam-wave.duration", 300) * 1000;
+        
+        // Optional message classifier, called off the chat thread with a timeout
+        if (config.getBoolean("chat.classifier.enabled", false)) {
+            MessageClassifier classifier = createClassifier(config);
+            if (classifier != null) {
+                classifierService = new ClassifierService(
+                        classifier,
+                        config.getInt("chat.classifier.max-concurrent", 64),
+                        config.getLong("chat.classifier.timeout-millis", 250),
+                        config.getInt("chat.classifier.failure-threshold", 5),
+                        config.getLong("chat.classifier.open-seconds", 30) * 1000
+                );
+            }
+        }
+        classifierBlocks = config.getString("chat.classifier.mode", "act-later").equalsIgnoreCase("block");
+        classifierThreshold = config.getDouble("chat.classifier.threshold", 0.8);
+        classifierMutes = config.getString("chat.classifier.action", "shadow-mute").equalsIgnoreCase("mute");
+        classifierMuteMillis = config.getLong("chat.classifier.mute-minutes", 10) * 60000;
+    }
+    
+    private MessageClassifier createClassifier(FileConfiguration config) {
+        String type = config.getString("chat.classifier.type", "stub");
+        if (type.equalsIgnoreCase("http")) {
             try {
-                blacklistedPatterns.add(Pattern.compile(pattern, Pattern.CASE_INSENSITIVE));
-            } catch (Exception e) {
-                plugin.getLogger().warning("Invalid regex pattern: " + pattern);
+                return new HttpClassifier(
+                        URI.create(config.getString("chat.classifier.url", "http://127.0.0.1:8000/classify")),
+                        config.getLong("chat.classifier.timeout-millis", 250)
+                );
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Invalid chat classifier URL: " + e.getMessage());
+                return null;
             }
         }
+        
+        return new StubClassifier(
+                config.getStringList("chat.classifier.stub-keywords"),
+                config.getLong("chat.classifier.stub-latency-millis", 0)
+        );
+    }
+    
+    /**
+     * Compiles chat filter words into a single automaton and the regex patterns into one
+     * matcher, both run on normalized text. Each regex evaluation is capped at a number of
+     * character reads.
+     */
+    private FilterEngine compileFilters(FileConfiguration config) {
+        return FilterEngine.compile(
+                config.getStringList("chat.blacklisted-words"),
+                config.getStringList("chat.blacklisted-patterns"),
+                config.getLong("chat.regex-step-budget", 100000),
+                plugin.getLogger()::warning
+        );
+    }
+    
+    /**
+     * Reads the filter words and patterns from config.yml and compiles them on an async
+     * thread. If config.yml can be parsed and every pattern compiles, the new filter replaces the old one in a single
+     * swap, messages that are already being checked finish on the old filter.
+     * 
+     * @param callback Receives the result on the main thread
+     * @return false if a reload is already running
+     */
+    public boolean reloadFilters(Consumer<FilterReload> callback) {
+        if (!filterReloading.compareAndSet(false, true)) {
+            return false;
+        }
+        
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            FilterReload result;
+            try {
+                long start = System.nanoTime();
+                // loadConfiguration would log a syntax error and return an empty config,
+                // which compiles to a filter that lets everything through
+                YamlConfiguration config = new YamlConfiguration();
+                config.load(new File(plugin.getDataFolder(), "config.yml"));
+                FilterEngine compiled = compileFilters(config);
+                long compileMicros = (System.nanoTime() - start) / 1000;
+                
+                List<String> invalidPatterns = compiled.getPatternFilter().getInvalidPatterns();
+                if (invalidPatterns.isEmpty()) {
+                    filterEngine = compiled;
+                    // Stale entries are never returned, this only frees their memory
+                    verdictCache.clear();
+                }
+                result = new FilterReload(compiled, invalidPatterns, compileMicros);
+            } catch (IOException | InvalidConfigurationException e) {
+                result = new FilterReload(null, Collections.singletonList("config.yml could not be read: " + e.getMessage()), 0);
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Error reloading chat filters: " + e.getMessage(), e);
+                result = new FilterReload(null, Collections.singletonList(e.getMessage()), 0);
+            } finally {
+                filterReloading.set(false);
+            }
+            
+            FilterReload finalResult = result;
+            Bukkit.getScheduler().runTask(plugin, () -> callback.accept(finalResult));
+        });
+        return true;
+    }
+    
+    /**
+     * Runs a chat message through the moderation pipeline
+     * 
+     * @param message The message, stages may change its text
+     * @return {@link ChatStage.Result#BLOCK} if the message should be cancelled,
+     *         {@link ChatStage.Result#HIDE} if only the sender should see it,
+     *         otherwise {@link ChatStage.Result#PASS}
+     */
+    public ChatStage.Result process(ChatMessage message) {
+        // Log the message
+        logChat(message.getPlayerUUID(), message.getPlayer().getName(), message.getOriginalMessage());
+        
+        return pipeline.process(message);
     }
     
     /**
@@ -61,60 +307,357 @@ public class ChatManager {
      * @return true if the message should be allowed, false if it should be blocked
      */
     public boolean processMessage(Player player, String message) {
-        UUID playerUUID = player.getUniqueId();
+        return process(new ChatMessage(player, message)) == ChatStage.Result.PASS;
+    }
+    
+    /**
+     * Gets the moderation pipeline, for its per-stage statistics
+     * 
+     * @return The chat pipeline
+     */
+    public ChatPipeline getPipeline() {
+        return pipeline;
+    }
+    
+    private ChatPipeline createPipeline() {
+        return new ChatPipeline(List.of(
+                new ChatStage("global-mute", this::checkGlobalMute),
+                new ChatStage("player-mute", this::checkPlayerMute),
+                new ChatStage("rate-limit", this::checkRateLimit),
+                new ChatStage("spam", this::checkSpam),
+                new ChatStage("filter", this::checkFilter),
+                new ChatStage("caps", this::checkCaps),
+                new ChatStage("classifier", this::checkClassifier)
+        ));
+    }
+    
+    private ChatStage.Result checkGlobalMute(ChatMessage message) {
+        // Staff can still chat when global chat is muted
+        if (!chatMuted || message.hasBypass(ChatMessage.Bypass.CHAT_MUTE)) {
+            return ChatStage.Result.PASS;
+        }
         
-        // Log the message
-        logChat(playerUUID, player.getName(), message);
+        MessageUtils.send(message.getPlayer(), "chat.global-muted");
+        return ChatStage.Result.BLOCK;
+    }
+    
+    private ChatStage.Result checkPlayerMute(ChatMessage message) {
+        UUID playerUUID = message.getPlayerUUID();
         
-        // Check if chat is muted for non-staff
-        if (chatMuted && !player.hasPermission("frizzlenmod.bypass.chatmute")) {
-            player.sendMessage("§cChat is currently muted.");
-            return false;
+        // The state is read on this chat thread, the punishment sets belong to the main thread
+        PlayerState state = plugin.getPlayerStateManager().getState(playerUUID);
+        if (state != null ? state.has(PlayerState.MUTED) : plugin.getPunishmentManager().isPlayerMuted(playerUUID)) {
+            String timeRemaining = plugin.getPunishmentManager().getMuteTimeRemaining(playerUUID);
+            if (timeRemaining.equals("Not muted")) {
+                // The temporary mute ran out since the flag was set
+                return isShadowMuted(playerUUID) ? ChatStage.Result.HIDE : ChatStage.Result.PASS;
+            }
+            if (timeRemaining.equals("Permanent")) {
+                MessageUtils.send(message.getPlayer(), "chat.muted");
+            } else {
+                MessageUtils.send(message.getPlayer(), "chat.muted-timed", "remaining", timeRemaining);
+            }
+            return ChatStage.Result.BLOCK;
         }
         
-        // Check if this player is shadow muted
-        if (isShadowMuted(playerUUID)) {
-            return false;
+        // Shadow muted players only see their own messages
+        return isShadowMuted(playerUUID) ? ChatStage.Result.HIDE : ChatStage.Result.PASS;
+    }
+    
+    /**
+     * Takes a message from the player's slow mode bucket, their own rate limit bucket and the
+     * server-wide bucket, and tells the player how long to wait if one of them is empty.
+     * A blocked message takes nothing from any bucket.
+     */
+    private ChatStage.Result checkRateLimit(ChatMessage message) {
+        Player player = message.getPlayer();
+        
+        int slowMode = slowModeSeconds;
+        long slowModeMillis = slowMode > 0 && !message.hasBypass(ChatMessage.Bypass.SLOW_MODE) ? slowMode * 1000L : 0;
+        ChatRateLimiter.Denial denial = rateLimiter.acquire(message.getPlayerUUID(), slowModeMillis,
+                !message.hasBypass(ChatMessage.Bypass.SPAM));
+        if (denial == null) {
+            return ChatStage.Result.PASS;
         }
         
-        // Check if the player is muted
-        if (plugin.getPunishmentManager().isPlayerMuted(playerUUID)) {
-            String timeRemaining = plugin.getPunishmentManager().getMuteTimeRemaining(playerUUID);
-            player.sendMessage("§cYou are muted. " + (timeRemaining.equals("Permanent") ? "" : "Time remaining: " + timeRemaining));
+        switch (denial.getLimit()) {
+            case SLOW_MODE:
+                long remainingTime = (denial.getWaitMillis() + 999) / 1000;
+                if (remainingTime == 1) {
+                    MessageUtils.send(player, "chat.slow-mode-one");
+                } else {
+                    MessageUtils.send(player, "chat.slow-mode", "seconds", remainingTime);
+                }
+                break;
+            case PLAYER:
+                MessageUtils.send(player, "chat.too-fast");
+                break;
+            default:
+                MessageUtils.send(player, "chat.busy");
+                break;
+        }
+        return ChatStage.Result.BLOCK;
+    }
+    
+    /**
+     * Normalizes the message once and feeds it to both the per-player duplicate detector and
+     * the cross-player spam wave detector
+     */
+    private ChatStage.Result checkSpam(ChatMessage message) {
+        if ((!spamDetector.isEnabled() && !spamWaveDetector.isEnabled())
+                || message.hasBypass(ChatMessage.Bypass.SPAM)) {
+            return ChatStage.Result.PASS;
+        }
+        
+        NormalizedText normalized = TextNormalizer.normalize(message.getMessage());
+        long now = System.currentTimeMillis();
+        
+        ChatStage.Result result = checkDuplicateSpam(message, normalized, now);
+        if (result == ChatStage.Result.BLOCK) {
+            return result;
+        }
+        
+        return checkSpamWave(message, normalized, now) ? ChatStage.Result.HIDE : result;
+    }
+    
+    /**
+     * Records a message for duplicate detection and checks if the player is repeating it
+     * too often. Depending on the configured action the player is either blocked or staff
+     * is notified once per burst.
+     */
+    private ChatStage.Result checkDuplicateSpam(ChatMessage message, NormalizedText normalized, long now) {
+        int count = spamDetector.recordMessage(message.getPlayerUUID(), normalized, now);
+        if (!spamDetector.isOverLimit(count)) {
+            return ChatStage.Result.PASS;
+        }
+        
+        if (blockDuplicates) {
+            MessageUtils.send(message.getPlayer(), "chat.duplicate");
+            return ChatStage.Result.BLOCK;
+        }
+        
+        if (spamDetector.isFirstOverLimit(count)) {
+            MessageUtils.sendStaff("staff.repeating", "player", message.getPlayer().getName(),
+                    "message", message.getMessage());
+        }
+        return ChatStage.Result.HIT;
+    }
+    
+    /**
+     * Records a message for spam wave detection. When enough players send near-identical
+     * messages the senders are shadow muted right away, and slow mode or a chat mute is
+     * turned on from the main thread once per wave. All of it is undone when the wave
+     * ends, see {@link #endSpamWave()}.
+     * 
+     * @return true if the message is part of a wave and should be hidden
+     */
+    private boolean checkSpamWave(ChatMessage message, NormalizedText normalized, long now) {
+        SpamWaveDetector.Wave wave = spamWaveDetector.recordMessage(message.getPlayerUUID(), normalized, now);
+        if (wave == null) {
             return false;
         }
         
-        // Check slow mode
-        if (slowModeSeconds > 0 && !player.hasPermission("frizzlenmod.bypass.slowmode")) {
-            long currentTime = System.currentTimeMillis();
-            long lastTime = lastMessageTime.getOrDefault(playerUUID, 0L);
-            
-            if (currentTime - lastTime < slowModeSeconds * 1000) {
-                long remainingSeconds = (slowModeSeconds * 1000 - (currentTime - lastTime)) / 1000;
-                player.sendMessage("§cSlow mode is enabled. Please wait " + remainingSeconds + " seconds before sending another message.");
-                return false;
+        if (waveShadowMutes) {
+            for (UUID sender : wave.getSenders()) {
+                // Players staff already shadow muted stay muted after the wave
+                if (shadowMutedPlayers.add(sender)) {
+                    waveMutedPlayers.add(sender);
+                }
             }
-            
-            // Update last message time
-            lastMessageTime.put(playerUUID, currentTime);
         }
         
-        // Check for filtered words
-        if (!player.hasPermission("frizzlenmod.bypass.filter")) {
-            String filteredMessage = filterMessage(message);
-            if (!filteredMessage.equals(message)) {
-                player.sendMessage("§cYour message contains blacklisted words.");
-                return false;
+        if (wave.isFirst()) {
+            String text = message.getMessage();
+            Bukkit.getScheduler().runTask(plugin, () -> startSpamWave(wave, text));
+        }
+        
+        return waveShadowMutes;
+    }
+    
+    /**
+     * Turns on the wave action, alerts staff with the senders and schedules the end of the
+     * wave. A new wave before the end of the last one starts the duration again.
+     */
+    private void startSpamWave(SpamWaveDetector.Wave wave, String text) {
+        if (waveMutesChat) {
+            if (!chatMuted) {
+                setChatMuted(true);
+                waveMutedChat = true;
+            }
+        } else if (slowModeSeconds < waveSlowModeSeconds) {
+            if (waveSlowMode == 0) {
+                slowModeBeforeWave = slowModeSeconds;
             }
+            setSlowMode(waveSlowModeSeconds);
+            waveSlowMode = waveSlowModeSeconds;
         }
         
-        // Check for excessive caps
-        if (containsExcessiveCaps(message) && !player.hasPermission("frizzlenmod.bypass.capsfilter")) {
-            player.sendMessage("§cPlease don't use excessive capitalization.");
-            return false;
+        if (waveTaskId != -1) {
+            Bukkit.getScheduler().cancelTask(waveTaskId);
+            waveTaskId = -1;
+        }
+        if (waveDurationMillis > 0) {
+            waveTaskId = Bukkit.getScheduler().runTaskLater(plugin, () -> {
+                waveTaskId = -1;
+                int released = endSpamWave();
+                MessageUtils.sendStaff(released > 0 ? "staff.spam-wave.ended" : "staff.spam-wave.ended-none",
+                        "count", released);
+            }, waveDurationMillis / 50).getTaskId();
         }
         
-        return true;
+        List<String> names = new ArrayList<>();
+        for (UUID sender : wave.getSenders()) {
+            Player player = Bukkit.getPlayer(sender);
+            names.add(player != null ? player.getName() : sender.toString());
+        }
+        
+        Component response = MessageUtils.message(waveMutesChat ? "staff.spam-wave.chat-muted" : "staff.spam-wave.slow-mode",
+                "seconds", slowModeSeconds);
+        if (waveShadowMutes) {
+            response = response.append(Component.space()).append(MessageUtils.message("staff.spam-wave.shadow-muted"));
+        }
+        Component undo = waveDurationMillis > 0
+                ? MessageUtils.message("staff.spam-wave.undo-timed", "seconds", waveDurationMillis / 1000)
+                : MessageUtils.message("staff.spam-wave.undo");
+        MessageUtils.sendStaff("staff.spam-wave.detected", "count", wave.getSenders().size(),
+                "response", response, "undo", undo);
+        MessageUtils.sendStaff("staff.spam-wave.senders", "players", String.join(", ", names));
+        plugin.getStorageManager().logModAction("Server", "SpamWave", wave.getSenders().size() + " players",
+                "Near-identical messages: " + text + " Senders: " + wave.getSenders());
+    }
+    
+    /**
+     * Ends the current spam wave. Players shadow muted by waves are released, and the chat
+     * mute or slow mode the wave turned on is turned off again unless staff changed it since.
+     * Must be called on the main thread.
+     * 
+     * @return The number of players that are no longer shadow muted
+     */
+    public int endSpamWave() {
+        if (waveTaskId != -1) {
+            Bukkit.getScheduler().cancelTask(waveTaskId);
+            waveTaskId = -1;
+        }
+        
+        int released = 0;
+        for (Iterator<UUID> iterator = waveMutedPlayers.iterator(); iterator.hasNext(); ) {
+            if (shadowMutedPlayers.remove(iterator.next())) {
+                released++;
+            }
+            iterator.remove();
+        }
+        
+        if (waveMutedChat && chatMuted) {
+            setChatMuted(false);
+        }
+        if (waveSlowMode > 0 && slowModeSeconds == waveSlowMode) {
+            setSlowMode(slowModeBeforeWave);
+        }
+        waveMutedChat = false;
+        waveSlowMode = 0;
+        return released;
+    }
+    
+    /**
+     * Masks filtered words and patterns. The engine returns the same instance when nothing
+     * matched, so the message is only scanned once, and repeated messages are answered from
+     * the verdict cache.
+     */
+    private ChatStage.Result checkFilter(ChatMessage message) {
+        if (!filterEnabled || message.hasBypass(ChatMessage.Bypass.FILTER)) {
+            return ChatStage.Result.PASS;
+        }
+        
+        String text = message.getMessage();
+        String filtered = verdictCache.mask(filterEngine, text);
+        if (filtered == text) {
+            return ChatStage.Result.PASS;
+        }
+        
+        message.setMessage(filtered);
+        return ChatStage.Result.HIT;
+    }
+    
+    private ChatStage.Result checkCaps(ChatMessage message) {
+        if (!antiCapsEnabled || !containsExcessiveCaps(message.getMessage())
+                || message.hasBypass(ChatMessage.Bypass.CAPS)) {
+            return ChatStage.Result.PASS;
+        }
+        
+        MessageUtils.send(message.getPlayer(), "chat.caps");
+        return ChatStage.Result.BLOCK;
+    }
+    
+    /**
+     * Scores the original message with the classifier. In block mode the chat thread waits
+     * for the score, up to the timeout, and blocks the message if it is over the threshold.
+     * Otherwise the message goes through right away and the sender is dealt with once the
+     * score arrives. Without a score, because the classifier is slow, busy or down, the
+     * message is let through.
+     */
+    private ChatStage.Result checkClassifier(ChatMessage message) {
+        ClassifierService service = classifierService;
+        if (service == null || message.hasBypass(ChatMessage.Bypass.FILTER)) {
+            return ChatStage.Result.PASS;
+        }
+        
+        Player player = message.getPlayer();
+        String text = message.getOriginalMessage();
+        
+        if (classifierBlocks) {
+            double score = service.classifyNow(message.getPlayerUUID(), text);
+            if (score >= classifierThreshold) {
+                MessageUtils.send(player, "chat.blocked");
+                return ChatStage.Result.BLOCK;
+            }
+            return ChatStage.Result.PASS;
+        }
+        
+        SignedMessage.Signature signature = message.isModified() ? null : message.getSignature();
+        service.classifyLater(message.getPlayerUUID(), text, score -> {
+            if (score >= classifierThreshold) {
+                Bukkit.getScheduler().runTask(plugin, () -> actOnClassifiedMessage(player, text, signature, score));
+            }
+        });
+        return ChatStage.Result.PASS;
+    }
+    
+    /**
+     * Deletes the message of a player whose message scored over the threshold after it was
+     * already sent, if it is signed, and shadow mutes or temporarily mutes them
+     */
+    private void actOnClassifiedMessage(Player player, String text, SignedMessage.Signature signature, double score) {
+        UUID playerUUID = player.getUniqueId();
+        String formattedScore = String.format("%.2f", score);
+        
+        // Signed messages that went out unchanged can be removed from everyone's chat
+        if (signature != null) {
+            Bukkit.getServer().deleteMessage(signature);
+        }
+        
+        if (classifierMutes) {
+            if (!plugin.getPunishmentManager().isPlayerMuted(playerUUID)) {
+                plugin.getPunishmentManager().tempMutePlayer(playerUUID, classifierMuteMillis);
+            }
+        } else {
+            shadowMute(playerUUID);
+        }
+        
+        MessageUtils.sendStaff(classifierMutes ? "staff.classifier-muted" : "staff.classifier-shadow-muted",
+                "player", player.getName(), "score", formattedScore, "message", text);
+        plugin.getStorageManager().logModAction("Server", classifierMutes ? "ClassifierMute" : "ClassifierShadowMute",
+                player.getName(), "Classifier score " + formattedScore + ": " + text);
+    }
+    
+    /**
+     * Forgets the per-player chat state of a player who left
+     * 
+     * @param playerUUID The UUID of the player
+     */
+    public void clearPlayerState(UUID playerUUID) {
+        spamDetector.clearPlayer(playerUUID);
+        rateLimiter.clearPlayer(playerUUID);
+        chatHistory.markOffline(playerUUID);
     }
     
     /**
@@ -145,19 +688,11 @@ public class ChatManager {
      * @param message The message that was sent
      */
     public void logChat(UUID playerUUID, String playerName, String message) {
-        String logEntry = System.currentTimeMillis() + ":" + playerName + ":" + message;
+        long timestamp = System.currentTimeMillis();
+        chatHistory.record(playerUUID, playerName, message, timestamp);
         
-        if (!chatLogs.containsKey(playerUUID)) {
-            chatLogs.put(playerUUID, new ArrayList<>());
-        }
-        
-        List<String> logs = chatLogs.get(playerUUID);
-        logs.add(logEntry);
-        
-        // Trim log if it gets too big
-        if (logs.size() > MAX_CHAT_LOG_SIZE) {
-            logs = logs.subList(logs.size() - MAX_CHAT_LOG_SIZE, logs.size());
-            chatLogs.put(playerUUID, logs);
+        if (chatArchive != null) {
+            chatArchive.append(playerUUID, playerName, message, timestamp);
         }
     }
     
@@ -165,10 +700,74 @@ public class ChatManager {
      * Gets the chat logs for a player
      * 
      * @param playerUUID The UUID of the player
-     * @return A list of chat log entries
+     * @return A snapshot of the chat log entries, oldest first
      */
     public List<String> getChatLogs(UUID playerUUID) {
-        return chatLogs.getOrDefault(playerUUID, new ArrayList<>());
+        return chatHistory.getSnapshot(playerUUID);
+    }
+    
+    /**
+     * Gets the recent chat messages of all players
+     * 
+     * @return The chat history
+     */
+    public ChatHistory getChatHistory() {
+        return chatHistory;
+    }
+    
+    /**
+     * Copies the latest chat of a reported player, of the reporter and of the whole server.
+     * Only the configured number of lines is copied from each ring, nothing is read from disk.
+     * 
+     * @param reporterUUID The UUID of the reporter, or null if the report came from the console
+     * @param reportedUUID The UUID of the reported player, or null if unknown
+     * @return The captured chat
+     */
+    public ReportContext captureReportContext(UUID reporterUUID, UUID reportedUUID) {
+        long now = System.currentTimeMillis();
+        return new ReportContext(
+                now,
+                reportedUUID == null ? new ArrayList<>() : chatHistory.getPlayerLines(reportedUUID, reportContextLines),
+                reporterUUID == null ? new ArrayList<>() : chatHistory.getPlayerLines(reporterUUID, reportContextLines),
+                chatHistory.getServerLines(reportServerLines, now - reportServerWindowMillis)
+        );
+    }
+    
+    /**
+     * Searches the chat archive. This reads from disk and should not run on the main thread.
+     * 
+     * @param playerUUID The sender to look for, or null for everyone
+     * @param from The earliest time in milliseconds
+     * @param to The latest time in milliseconds
+     * @param limit The maximum number of messages, the most recent ones are kept
+     * @return The matching messages oldest first, empty if the archive is disabled
+     */
+    public List<ChatArchive.Entry> searchChatArchive(UUID playerUUID, long from, long to, int limit) {
+        if (chatArchive == null) {
+            return Collections.emptyList();
+        }
+        return chatArchive.search(playerUUID, from, to, limit);
+    }
+    
+    /**
+     * Writes out queued chat messages, stops the archive writer and the classifier
+     */
+    public void shutdown() {
+        if (chatArchive != null) {
+            chatArchive.shutdown();
+        }
+        if (classifierService != null) {
+            classifierService.shutdown();
+        }
+    }
+    
+    /**
+     * Gets the message classifier service
+     * 
+     * @return The classifier service, null if no classifier is configured
+     */
+    public ClassifierService getClassifierService() {
+        return classifierService;
     }
     
     /**
@@ -196,10 +795,6 @@ public class ChatManager {
      */
     public void setSlowMode(int seconds) {
         this.slowModeSeconds = seconds;
-        if (seconds == 0) {
-            // Clear the last message times when disabling
-            lastMessageTime.clear();
-        }
     }
     
     /**
@@ -218,6 +813,7 @@ public class ChatManager {
      */
     public void shadowMute(UUID playerUUID) {
         shadowMutedPlayers.add(playerUUID);
+        waveMutedPlayers.remove(playerUUID);
     }
     
     /**
@@ -227,6 +823,7 @@ public class ChatManager {
      */
     public void removeShadowMute(UUID playerUUID) {
         shadowMutedPlayers.remove(playerUUID);
+        waveMutedPlayers.remove(playerUUID);
     }
     
     /**
@@ -262,23 +859,7 @@ public class ChatManager {
 
     // Check for filtered words
     public boolean containsFilteredWord(String message) {
-        String lowerCaseMessage = message.toLowerCase();
-        
-        // Check direct matches
-        for (String word : blacklistedWords) {
-            if (lowerCaseMessage.contains(word.toLowerCase())) {
-                return true;
-            }
-        }
-        
-        // Check regex patterns
-        for (Pattern pattern : blacklistedPatterns) {
-            if (pattern.matcher(message).find()) {
-                return true;
-            }
-        }
-        
-        return false;
+        return filterEngine.containsMatch(message);
     }
     
     /**
@@ -288,54 +869,158 @@ public class ChatManager {
      * @return The filtered message
      */
     public String filterMessage(String message) {
-        if (blacklistedWords.isEmpty() && blacklistedPatterns.isEmpty()) {
-            return message;
-        }
-        
-        String filteredMessage = message;
-        
-        // Replace direct words
-        for (String word : blacklistedWords) {
-            // Create a pattern that matches the word with word boundaries
-            Pattern pattern = Pattern.compile("\\b" + Pattern.quote(word) + "\\b", Pattern.CASE_INSENSITIVE);
-            Matcher matcher = pattern.matcher(filteredMessage);
-            
-            // Replace with asterisks of the same length
-            StringBuilder replacement = new StringBuilder();
-            for (int i = 0; i < word.length(); i++) {
-                replacement.append("*");
-            }
-            
-            filteredMessage = matcher.replaceAll(replacement.toString());
+        // Matches are found in the normalized message and masked in the original one
+        return verdictCache.mask(filterEngine, message);
+    }
+    
+    /**
+     * Checks if the chat manager has filtering enabled
+     * 
+     * @return true if filtering is enabled
+     */
+    public boolean hasFilters() {
+        return !filterEngine.isEmpty();
+    }
+    
+    /**
+     * Masks text written somewhere other than chat with the chat filter
+     * 
+     * @param surface Where the text was written
+     * @param text The text to filter
+     * @return The masked text, or the same instance if nothing matched or the surface is not filtered
+     */
+    public String filterSurface(TextSurface surface, String text) {
+        if (!isSurfaceFiltered(surface) || text.isEmpty()) {
+            return text;
         }
         
-        // Replace regex matches
-        for (Pattern pattern : blacklistedPatterns) {
-            Matcher matcher = pattern.matcher(filteredMessage);
-            StringBuilder sb = new StringBuilder();
-            
-            while (matcher.find()) {
-                // Replace with asterisks of the same length
-                StringBuilder replacement = new StringBuilder();
-                for (int i = 0; i < matcher.group().length(); i++) {
-                    replacement.append("*");
-                }
-                matcher.appendReplacement(sb, replacement.toString());
-            }
-            
-            matcher.appendTail(sb);
-            filteredMessage = sb.toString();
+        long start = System.nanoTime();
+        String filtered = verdictCache.mask(filterEngine, text);
+        surfaceStats.record(surface, System.nanoTime() - start, filtered != text);
+        return filtered;
+    }
+    
+    /**
+     * Checks text written somewhere other than chat against the chat filter, without masking
+     * 
+     * @param surface Where the text was written
+     * @param text The text to check
+     * @return true if the surface is filtered and the text matched
+     */
+    public boolean matchesSurface(TextSurface surface, String text) {
+        if (!isSurfaceFiltered(surface) || text.isEmpty()) {
+            return false;
         }
         
-        return filteredMessage;
+        long start = System.nanoTime();
+        boolean matched = filterEngine.containsMatch(text);
+        surfaceStats.record(surface, System.nanoTime() - start, matched);
+        return matched;
     }
     
     /**
-     * Checks if the chat manager has filtering enabled
+     * Checks if text from a surface is filtered
      * 
-     * @return true if filtering is enabled
+     * @param surface The surface
+     * @return true if the filter is enabled for it and has something to filter
      */
-    public boolean hasFilters() {
-        return !blacklistedWords.isEmpty() || !blacklistedPatterns.isEmpty();
+    public boolean isSurfaceFiltered(TextSurface surface) {
+        return filterEnabled && filteredSurfaces.contains(surface) && !filterEngine.isEmpty();
+    }
+    
+    /**
+     * Checks if the arguments of a command are filtered
+     * 
+     * @param label The command label without the slash or namespace, in lower case
+     * @return true if the command is in the configured list
+     */
+    public boolean isFilteredCommand(String label) {
+        return filteredCommands.contains(label);
+    }
+    
+    /**
+     * Gets the filter counters of the text surfaces
+     * 
+     * @return The surface statistics
+     */
+    public SurfaceStats getSurfaceStats() {
+        return surfaceStats;
+    }
+    
+    /**
+     * Gets the compiled chat filter currently in use
+     * 
+     * @return The filter engine
+     */
+    public FilterEngine getFilterEngine() {
+        return filterEngine;
+    }
+    
+    /**
+     * Gets the cache of filter results, for its hit rate
+     * 
+     * @return The verdict cache
+     */
+    public VerdictCache getVerdictCache() {
+        return verdictCache;
+    }
+    
+    /**
+     * Gets the match counts and evaluation costs of the regex filter patterns
+     * 
+     * @return A snapshot of the per-pattern statistics
+     */
+    public List<PatternFilter.PatternStats> getPatternStats() {
+        return filterEngine.getPatternFilter().getStats();
+    }
+    
+    public void resetPatternStats() {
+        filterEngine.getPatternFilter().resetStats();
+    }
+    
+    /**
+     * The outcome of a filter reload
+     */
+    public static class FilterReload {
+        private final FilterEngine engine;
+        private final List<String> errors;
+        private final long compileMicros;
+        
+        private FilterReload(FilterEngine engine, List<String> errors, long compileMicros) {
+            this.engine = engine;
+            this.errors = errors;
+            this.compileMicros = compileMicros;
+        }
+        
+        /**
+         * Checks if the new filter was published
+         * 
+         * @return true if the reload succeeded
+         */
+        public boolean isSuccess() {
+            return engine != null && errors.isEmpty();
+        }
+        
+        /**
+         * Gets the invalid patterns or the error that stopped the reload
+         * 
+         * @return The errors, empty on success
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+        
+        /**
+         * Gets the newly compiled filter
+         * 
+         * @return The filter, null if it could not be compiled
+         */
+        public FilterEngine getEngine() {
+            return engine;
+        }
+        
+        public long getCompileMicros() {
+            return compileMicros;
+        }
     }
-} 
\ No newline at end of file
+}
@@ -6,6 +6,11 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.jail.JailCell;
+import org.frizzlenpop.frizzlenMod.jail.JailRegion;
+import org.frizzlenpop.frizzlenMod.jail.RadiusRegion;
+import org.frizzlenpop.frizzlenMod.jail.RegionIndex;
+import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
 
 import java.util.*;
 
@@ -15,7 +20,9 @@ public class JailManager {
     private final Map<UUID, String> jailedPlayers;
     private final Map<UUID, Long> tempJailedPlayers;
     private final Map<UUID, Location> previousLocations;
-    private final double JAIL_RADIUS = 10.0; // Default radius around a jail point
+    // Cells of jails that have them, the other jails use the radius around their location
+    private final Map<String, List<JailCell>> cells;
+    private volatile RegionIndex regionIndex = RegionIndex.empty();
 
     public JailManager(FrizzlenMod plugin) {
         this.plugin = plugin;
@@ -23,9 +30,11 @@ public class JailManager {
         this.jailedPlayers = new HashMap<>();
         this.tempJailedPlayers = new HashMap<>();
         this.previousLocations = new HashMap<>();
+        this.cells = new HashMap<>();
         
         // Load jails from file
         loadJails();
+        rebuildRegionIndex();
         
         // Start jail timer
         startJailTimer();
@@ -48,6 +57,28 @@ public class JailManager {
                 if (worldName != null && Bukkit.getWorld(worldName) != null) {
                     Location location = new Location(Bukkit.getWorld(worldName), x, y, z, yaw, pitch);
                     jails.put(jailName.toLowerCase(), location);
+                    
+                    // Load cells
+                    ConfigurationSection cellsSection = config.getConfigurationSection("jails." + jailName + ".cells");
+                    if (cellsSection != null) {
+                        List<JailCell> jailCells = new ArrayList<>();
+                        for (String key : cellsSection.getKeys(false)) {
+                            ConfigurationSection cellSection = cellsSection.getConfigurationSection(key);
+                            JailCell cell = cellSection == null ? null : JailCell.load(jailName.toLowerCase(), cellSection);
+                            if (cell != null) {
+                                jailCells.add(cell);
+                            } else {
+                                plugin.getLogger().warning("Skipping invalid cell " + key + " of jail " + jailName);
+                            }
+                        }
+                        if (!jailCells.isEmpty()) {
+                            cells.put(jailName.toLowerCase(), jailCells);
+                            if (!containsJailLocation(jailName, jailCells)) {
+                                plugin.getLogger().warning("The location of jail " + jailName + " is not inside any of its cells, " +
+                                        "prisoners teleported there will be stuck. Add a cell around it with /jailcell.");
+                            }
+                        }
+                    }
                 }
             }
         }
@@ -107,6 +138,13 @@ public class JailManager {
             config.set("jails." + entry.getKey() + ".z", loc.getZ());
             config.set("jails." + entry.getKey() + ".yaw", loc.getYaw());
             config.set("jails." + entry.getKey() + ".pitch", loc.getPitch());
+            
+            List<JailCell> jailCells = cells.get(entry.getKey());
+            if (jailCells != null) {
+                for (int i = 0; i < jailCells.size(); i++) {
+                    jailCells.get(i).save(config.createSection("jails." + entry.getKey() + ".cells." + (i + 1)));
+                }
+            }
         }
         
         // Save jailed players
@@ -154,7 +192,7 @@ public class JailManager {
                     // Notify player if online
                     Player player = Bukkit.getPlayer(uuid);
                     if (player != null && player.isOnline()) {
-                        player.sendMessage("§aYou have been released from jail!");
+                        player.sendMessage(MessageUtils.message("punishment.released"));
                     }
                 }
             }
@@ -164,6 +202,7 @@ public class JailManager {
     public boolean createJail(String name, Location location) {
         name = name.toLowerCase();
         jails.put(name, location.clone());
+        rebuildRegionIndex();
         saveJails();
         return true;
     }
@@ -172,6 +211,8 @@ public class JailManager {
         name = name.toLowerCase();
         if (jails.containsKey(name)) {
             jails.remove(name);
+            cells.remove(name);
+            rebuildRegionIndex();
             
             // Release any players in this jail
             Iterator<Map.Entry<UUID, String>> iterator = jailedPlayers.entrySet().iterator();
@@ -211,6 +252,7 @@ public class JailManager {
         
         // Add to jailed players
         jailedPlayers.put(player.getUniqueId(), jailName);
+        plugin.getPlayerStateManager().setFlag(player.getUniqueId(), PlayerState.JAILED, true);
         
         // Save to file
         saveJails();
@@ -233,6 +275,7 @@ public class JailManager {
             // Remove from jail lists
             jailedPlayers.remove(playerUUID);
             tempJailedPlayers.remove(playerUUID);
+            plugin.getPlayerStateManager().setFlag(playerUUID, PlayerState.JAILED, false);
             
             // Teleport back if player is online and we have a previous location
             Player player = Bukkit.getPlayer(playerUUID);
@@ -288,51 +331,147 @@ public class JailManager {
      * @return true if the player is within a jail area, false if not
      */
     public boolean isInJailArea(Player player) {
-        if (!isPlayerJailed(player.getUniqueId())) {
+        return isInJailArea(player.getUniqueId(), player.getLocation());
+    }
+    
+    /**
+     * Checks if a location is within the area of a player's assigned jail
+     * 
+     * @param playerUUID The UUID of the jailed player
+     * @param location The location to check
+     * @return true if the location is within the player's jail area, false if not
+     */
+    public boolean isInJailArea(UUID playerUUID, Location location) {
+        String jailName = jailedPlayers.get(playerUUID);
+        return jailName != null && findRegion(location, jailName) != null;
+    }
+    
+    /**
+     * Checks if a location is within any jail area
+     * 
+     * @param location The location to check
+     * @return true if the location is within a jail area, false if not
+     */
+    public boolean isLocationInJail(Location location) {
+        return findRegion(location, null) != null;
+    }
+    
+    private JailRegion findRegion(Location location, String jailName) {
+        if (location == null || location.getWorld() == null) {
+            return null;
+        }
+        return regionIndex.find(location.getWorld().getName(),
+                location.getBlockX(), location.getBlockY(), location.getBlockZ(), jailName);
+    }
+    
+    /**
+     * Adds a cell to a jail. Once a jail has cells, its players are kept inside the cells
+     * instead of the radius around the jail location, so the jail location must be inside
+     * one of them or prisoners would be teleported to a point they may not stand on.
+     * 
+     * @param jailName The name of the jail
+     * @param cell The cell to add
+     * @return false if the jail doesn't exist or its location would be outside all of its cells
+     */
+    public boolean addCell(String jailName, JailCell cell) {
+        jailName = jailName.toLowerCase();
+        if (!jails.containsKey(jailName)) {
             return false;
         }
         
-        String jailName = jailedPlayers.get(player.getUniqueId());
-        Location jailLocation = jails.get(jailName);
-        
-        if (jailLocation == null) {
+        List<JailCell> jailCells = getCells(jailName);
+        jailCells.add(cell);
+        if (!containsJailLocation(jailName, jailCells)) {
             return false;
         }
         
-        // Check if player is in the same world as the jail
-        if (!player.getWorld().equals(jailLocation.getWorld())) {
+        cells.computeIfAbsent(jailName, name -> new ArrayList<>()).add(cell);
+        rebuildRegionIndex();
+        saveJails();
+        return true;
+    }
+    
+    /**
+     * Removes a cell from a jail
+     * 
+     * @param jailName The name of the jail
+     * @param number The number of the cell, starting at 1
+     * @return false if the jail has no cell with that number, or the jail location would
+     *         be outside all of the remaining cells
+     */
+    public boolean removeCell(String jailName, int number) {
+        List<JailCell> jailCells = cells.get(jailName.toLowerCase());
+        if (jailCells == null || number < 1 || number > jailCells.size()) {
             return false;
         }
         
-        // Get jail radius from config or use default
-        double radius = plugin.getConfig().getDouble("jail.radius", JAIL_RADIUS);
+        List<JailCell> remaining = new ArrayList<>(jailCells);
+        remaining.remove(number - 1);
+        if (!remaining.isEmpty() && !containsJailLocation(jailName, remaining)) {
+            return false;
+        }
         
-        // Check if player is within the radius of the jail
-        return player.getLocation().distance(jailLocation) <= radius;
+        jailCells.remove(number - 1);
+        if (jailCells.isEmpty()) {
+            cells.remove(jailName.toLowerCase());
+        }
+        rebuildRegionIndex();
+        saveJails();
+        return true;
     }
     
     /**
-     * Checks if a location is within any jail area
+     * Gets the cells of a jail
      * 
-     * @param location The location to check
-     * @return true if the location is within a jail area, false if not
+     * @param jailName The name of the jail
+     * @return The cells in order, empty if the jail uses its radius
      */
-    public boolean isLocationInJail(Location location) {
-        if (location == null) {
+    public List<JailCell> getCells(String jailName) {
+        List<JailCell> jailCells = cells.get(jailName.toLowerCase());
+        return jailCells == null ? new ArrayList<>() : new ArrayList<>(jailCells);
+    }
+    
+    /**
+     * Checks if the location of a jail, where prisoners are teleported to, is inside one of
+     * a list of cells
+     * 
+     * @param jailName The name of the jail
+     * @param jailCells The cells to check
+     * @return true if one of the cells contains the jail location
+     */
+    public boolean containsJailLocation(String jailName, List<? extends JailRegion> jailCells) {
+        Location location = jails.get(jailName.toLowerCase());
+        if (location == null || location.getWorld() == null) {
             return false;
         }
         
-        // Get jail radius from config or use default
-        double radius = plugin.getConfig().getDouble("jail.radius", JAIL_RADIUS);
-        
-        // Check each jail
-        for (Location jailLocation : jails.values()) {
-            if (location.getWorld().equals(jailLocation.getWorld()) && 
-                    location.distance(jailLocation) <= radius) {
+        for (JailRegion cell : jailCells) {
+            if (cell.getWorldName().equals(location.getWorld().getName())
+                    && cell.contains(location.getBlockX(), location.getBlockY(), location.getBlockZ())) {
                 return true;
             }
         }
-        
         return false;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Indexes the cells of all jails, and the radius around the location of jails without
+     * cells, then replaces the index used for lookups. Called again when the jail radius
+     * setting changes.
+     */
+    public void rebuildRegionIndex() {
+        double jailRadius = plugin.getConfigManager().getSettings().getJailRadius();
+        List<JailRegion> regions = new ArrayList<>();
+        for (Map.Entry<String, Location> entry : jails.entrySet()) {
+            List<JailCell> jailCells = cells.get(entry.getKey());
+            if (jailCells != null) {
+                regions.addAll(jailCells);
+            } else {
+                Location location = entry.getValue();
+                regions.add(new RadiusRegion(entry.getKey(), location.getWorld().getName(),
+                        location.getBlockX(), location.getBlockY(), location.getBlockZ(), jailRadius));
+            }
+        }
+        regionIndex = RegionIndex.build(regions);
+    }
+}
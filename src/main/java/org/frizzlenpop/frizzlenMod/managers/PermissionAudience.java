@@ -0,0 +1,66 @@
+package org.frizzlenpop.frizzlenMod.managers;
+
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The online players who have a permission that FrizzlenMod broadcasts to. Membership is
+ * updated by {@link PlayerStateManager} at join, quit and whenever it refreshes permissions,
+ * so a broadcast only has to walk the members instead of checking every online player.
+ */
+public final class PermissionAudience {
+    private final String permission;
+    private final Map<UUID, Player> members = new ConcurrentHashMap<>();
+    
+    public PermissionAudience(String permission) {
+        this.permission = permission;
+    }
+    
+    /**
+     * Checks the permission of a player and adds or removes them
+     * 
+     * @param player The player
+     * @return true if the player joined or left the audience
+     */
+    boolean update(Player player) {
+        if (player.hasPermission(permission)) {
+            return members.put(player.getUniqueId(), player) == null;
+        }
+        return members.remove(player.getUniqueId()) != null;
+    }
+    
+    void remove(UUID playerUUID) {
+        members.remove(playerUUID);
+    }
+    
+    /**
+     * Checks if an online player is in the audience
+     * 
+     * @param playerUUID The UUID of the player
+     * @return true if the player has the permission
+     */
+    public boolean contains(UUID playerUUID) {
+        return members.containsKey(playerUUID);
+    }
+    
+    /**
+     * Gets the members, a live view that is safe to iterate while players join and leave
+     * 
+     * @return The online players with the permission
+     */
+    public Collection<Player> getMembers() {
+        return members.values();
+    }
+    
+    public String getPermission() {
+        return permission;
+    }
+    
+    public int size() {
+        return members.size();
+    }
+}
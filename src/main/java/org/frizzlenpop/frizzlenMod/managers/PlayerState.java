@@ -0,0 +1,90 @@
+package org.frizzlenpop.frizzlenMod.managers;
+
+import org.frizzlenpop.frizzlenMod.chat.ChatMessage;
+
+/**
+ * What the listeners need to know about one online player, packed into bit flags so an
+ * event handler needs one map lookup and a few bit tests. Punishment flags are set by the
+ * managers when they change, permission flags are refreshed by {@link PlayerStateManager}.
+ * Flags are read from any thread, chat runs asynchronously.
+ */
+public final class PlayerState {
+    public static final int MUTED = 1;
+    public static final int FROZEN = 1 << 1;
+    public static final int JAILED = 1 << 2;
+    public static final int VANISHED = 1 << 3;
+    public static final int FREEZE_BYPASS = 1 << 4;
+    public static final int JAIL_BYPASS = 1 << 5;
+    
+    // The flags the enforcement listeners act on
+    public static final int RESTRICTIONS = FROZEN | JAILED;
+    
+    // One bit per chat bypass, in the order of ChatMessage.Bypass
+    private static final int CHAT_BYPASS_SHIFT = 8;
+    private static final int CHAT_BYPASS_MASK = ((1 << ChatMessage.Bypass.values().length) - 1) << CHAT_BYPASS_SHIFT;
+    
+    static final int PERMISSION_FLAGS = FREEZE_BYPASS | JAIL_BYPASS | CHAT_BYPASS_MASK;
+    
+    private volatile int flags;
+    
+    PlayerState(int flags) {
+        this.flags = flags;
+    }
+    
+    /**
+     * Checks if a flag is set
+     * 
+     * @param flag The flag
+     * @return true if the flag is set
+     */
+    public boolean has(int flag) {
+        return (flags & flag) != 0;
+    }
+    
+    /**
+     * Checks if a restriction applies, meaning it is set and its bypass is not
+     * 
+     * @param restriction The restriction flag, like {@link #FROZEN}
+     * @param bypass The flag of the bypass permission, like {@link #FREEZE_BYPASS}
+     * @return true if the restriction applies
+     */
+    public boolean isRestricted(int restriction, int bypass) {
+        int current = flags;
+        return (current & restriction) != 0 && (current & bypass) == 0;
+    }
+    
+    /**
+     * Gets the chat bypasses of the player, one bit per {@link ChatMessage.Bypass} ordinal
+     * 
+     * @return The bypass bits
+     */
+    public int getChatBypasses() {
+        return (flags & CHAT_BYPASS_MASK) >>> CHAT_BYPASS_SHIFT;
+    }
+    
+    public int getFlags() {
+        return flags;
+    }
+    
+    /**
+     * Sets or clears a flag
+     * 
+     * @return The flags before the change
+     */
+    synchronized int set(int flag, boolean active) {
+        int previous = flags;
+        flags = active ? previous | flag : previous & ~flag;
+        return previous;
+    }
+    
+    /**
+     * Replaces the flags selected by a mask
+     */
+    synchronized void replace(int mask, int values) {
+        flags = (flags & ~mask) | (values & mask);
+    }
+    
+    static int chatBypassFlag(ChatMessage.Bypass bypass) {
+        return 1 << (CHAT_BYPASS_SHIFT + bypass.ordinal());
+    }
+}
@@ -0,0 +1,317 @@
+package org.frizzlenpop.frizzlenMod.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.chat.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a {@link PlayerState} for every online player. States are created at join from the
+ * managers, which then update them whenever a punishment changes. Bypass permissions are
+ * looked up again when the server resends the command tree, which permission plugins
+ * trigger after a change, when the player changes worlds and on a timer as a fallback.
+ * The listeners that enforce freezes and jails are only registered while at least one
+ * online player is frozen or jailed, so the rest of the time those events cost nothing.
+ * The same refreshes keep the {@link PermissionAudience}s of the permissions FrizzlenMod
+ * broadcasts to up to date.
+ */
+public class PlayerStateManager {
+    public static final String STAFF_PERMISSION = "frizzlenmod.staff";
+    public static final String REPORTS_VIEW_PERMISSION = "frizzlenmod.reports.view";
+    
+    private final FrizzlenMod plugin;
+    private final Map<UUID, PlayerState> states = new ConcurrentHashMap<>();
+    
+    // Players with the permissions that messages are broadcast to
+    private final PermissionAudience staff = new PermissionAudience(STAFF_PERMISSION);
+    private final PermissionAudience reportViewers = new PermissionAudience(REPORTS_VIEW_PERMISSION);
+    private final PermissionAudience vanishViewers = new PermissionAudience(VanishManager.SEE_PERMISSION);
+    private final Map<String, PermissionAudience> audiences = Map.of(
+            staff.getPermission(), staff,
+            reportViewers.getPermission(), reportViewers,
+            vanishViewers.getPermission(), vanishViewers);
+    
+    // Enforcement listeners, registered while restrictedOnline is above 0
+    private final List<Listener> enforcementListeners = new ArrayList<>();
+    private final AtomicInteger restrictedOnline = new AtomicInteger();
+    private boolean enforcementRegistered;
+    private long lastToggleNanos = System.nanoTime();
+    private long registeredNanos;
+    private long idleNanos;
+    private final LongAdder enforcementEvents = new LongAdder();
+    private final LongAdder unrestrictedEvents = new LongAdder();
+    
+    public PlayerStateManager(FrizzlenMod plugin) {
+        this.plugin = plugin;
+        
+        // Catch permission changes no event told us about
+        long refreshTicks = 20L * Math.max(1, plugin.getConfig().getInt("general.permission-refresh-seconds", 30));
+        Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                refreshPermissions(player);
+            }
+        }, refreshTicks, refreshTicks);
+    }
+    
+    /**
+     * Creates the state of a joining player, or of an online player when the plugin starts
+     * 
+     * @param player The player
+     * @return The new state
+     */
+    public PlayerState createState(Player player) {
+        UUID uuid = player.getUniqueId();
+        int flags = permissionFlags(player);
+        if (plugin.getPunishmentManager().isMuted(uuid)) {
+            flags |= PlayerState.MUTED;
+        }
+        if (plugin.getPunishmentManager().isFrozen(uuid)) {
+            flags |= PlayerState.FROZEN;
+        }
+        if (plugin.getJailManager().isPlayerJailed(uuid)) {
+            flags |= PlayerState.JAILED;
+        }
+        if (plugin.getVanishManager().isVanished(uuid)) {
+            flags |= PlayerState.VANISHED;
+        }
+        
+        for (PermissionAudience audience : audiences.values()) {
+            audience.update(player);
+        }
+        
+        PlayerState state = new PlayerState(flags);
+        PlayerState previous = states.put(uuid, state);
+        restrictionChanged(isRestricted(previous), isRestricted(state));
+        return state;
+    }
+    
+    /**
+     * Drops the state of a player who left
+     * 
+     * @param playerUUID The UUID of the player
+     */
+    public void removeState(UUID playerUUID) {
+        PlayerState state = states.remove(playerUUID);
+        for (PermissionAudience audience : audiences.values()) {
+            audience.remove(playerUUID);
+        }
+        restrictionChanged(isRestricted(state), false);
+    }
+    
+    /**
+     * Gets the state of an online player
+     * 
+     * @param playerUUID The UUID of the player
+     * @return The state, or null if the player is not online
+     */
+    public PlayerState getState(UUID playerUUID) {
+        return states.get(playerUUID);
+    }
+    
+    /**
+     * Sets or clears a flag of a player, does nothing if the player is offline since the
+     * state is built from the managers at join
+     * 
+     * @param playerUUID The UUID of the player
+     * @param flag The flag, like {@link PlayerState#MUTED}
+     * @param active true to set the flag, false to clear it
+     */
+    public void setFlag(UUID playerUUID, int flag, boolean active) {
+        PlayerState state = states.get(playerUUID);
+        if (state != null) {
+            int previous = state.set(flag, active);
+            restrictionChanged((previous & PlayerState.RESTRICTIONS) != 0, state.has(PlayerState.RESTRICTIONS));
+        }
+    }
+    
+    /**
+     * Looks up the bypass and audience permissions of a player again
+     * 
+     * @param player The player
+     */
+    public void refreshPermissions(Player player) {
+        PlayerState state = states.get(player.getUniqueId());
+        if (state == null) {
+            return;
+        }
+        
+        state.replace(PlayerState.PERMISSION_FLAGS, permissionFlags(player));
+        staff.update(player);
+        reportViewers.update(player);
+        if (vanishViewers.update(player)) {
+            plugin.getVanishManager().viewerChanged(player, vanishViewers.contains(player.getUniqueId()));
+        }
+    }
+    
+    /**
+     * Gets the online players with a permission that messages are broadcast to
+     * 
+     * @param permission The permission, like {@link #STAFF_PERMISSION}
+     * @return The audience, or null if the permission is not tracked
+     */
+    public PermissionAudience getAudience(String permission) {
+        return audiences.get(permission);
+    }
+    
+    /**
+     * Gets the number of online players with a state
+     * 
+     * @return The state count
+     */
+    public int getStateCount() {
+        return states.size();
+    }
+    
+    /**
+     * Adds listeners that only matter for frozen or jailed players. They are registered now
+     * if such a player is online, and otherwise as soon as one is.
+     * 
+     * @param listeners The listeners
+     */
+    public void addEnforcementListeners(Listener... listeners) {
+        for (Listener listener : listeners) {
+            enforcementListeners.add(listener);
+            if (enforcementRegistered) {
+                Bukkit.getPluginManager().registerEvents(listener, plugin);
+            }
+        }
+        updateEnforcement();
+    }
+    
+    /**
+     * Counts an event handled by an enforcement listener
+     * 
+     * @param restricted false if the event came from a player without restrictions, which
+     *                   the handler only had to look up to skip
+     */
+    public void recordEnforcementEvent(boolean restricted) {
+        enforcementEvents.increment();
+        if (!restricted) {
+            unrestrictedEvents.increment();
+        }
+    }
+    
+    private static boolean isRestricted(PlayerState state) {
+        return state != null && state.has(PlayerState.RESTRICTIONS);
+    }
+    
+    private void restrictionChanged(boolean before, boolean after) {
+        if (before == after) {
+            return;
+        }
+        
+        restrictedOnline.addAndGet(after ? 1 : -1);
+        
+        // Listeners can only be registered on the main thread
+        if (Bukkit.isPrimaryThread()) {
+            updateEnforcement();
+        } else if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, this::updateEnforcement);
+        }
+    }
+    
+    private void updateEnforcement() {
+        boolean needed = restrictedOnline.get() > 0;
+        if (needed == enforcementRegistered) {
+            return;
+        }
+        
+        long now = System.nanoTime();
+        if (enforcementRegistered) {
+            registeredNanos += now - lastToggleNanos;
+        } else {
+            idleNanos += now - lastToggleNanos;
+        }
+        lastToggleNanos = now;
+        enforcementRegistered = needed;
+        
+        for (Listener listener : enforcementListeners) {
+            if (needed) {
+                Bukkit.getPluginManager().registerEvents(listener, plugin);
+            } else {
+                HandlerList.unregisterAll(listener);
+            }
+        }
+    }
+    
+    public boolean isEnforcementRegistered() {
+        return enforcementRegistered;
+    }
+    
+    public int getRestrictedOnline() {
+        return restrictedOnline.get();
+    }
+    
+    public long getEnforcementEvents() {
+        return enforcementEvents.sum();
+    }
+    
+    public long getUnrestrictedEvents() {
+        return unrestrictedEvents.sum();
+    }
+    
+    /**
+     * Gets how long the enforcement listeners were not registered
+     * 
+     * @return The idle time in milliseconds
+     */
+    public long getIdleMillis() {
+        long idle = idleNanos + (enforcementRegistered ? 0 : System.nanoTime() - lastToggleNanos);
+        return idle / 1000000;
+    }
+    
+    /**
+     * Gets how long the enforcement listeners were registered
+     * 
+     * @return The registered time in milliseconds
+     */
+    public long getRegisteredMillis() {
+        long registered = registeredNanos + (enforcementRegistered ? System.nanoTime() - lastToggleNanos : 0);
+        return registered / 1000000;
+    }
+    
+    /**
+     * Estimates the events the enforcement listeners did not receive while unregistered,
+     * from the rate they received events at while registered
+     * 
+     * @return The estimated number of avoided events, 0 if there is no rate yet
+     */
+    public long getEstimatedAvoidedEvents() {
+        long registered = getRegisteredMillis();
+        return registered == 0 ? 0 : (long) ((double) enforcementEvents.sum() / registered * getIdleMillis());
+    }
+    
+    public void resetEnforcementStats() {
+        enforcementEvents.reset();
+        unrestrictedEvents.reset();
+        registeredNanos = 0;
+        idleNanos = 0;
+        lastToggleNanos = System.nanoTime();
+    }
+    
+    private static int permissionFlags(Player player) {
+        int flags = 0;
+        if (player.hasPermission("frizzlenmod.bypass.freeze")) {
+            flags |= PlayerState.FREEZE_BYPASS;
+        }
+        if (player.hasPermission("frizzlenmod.bypass.jail")) {
+            flags |= PlayerState.JAIL_BYPASS;
+        }
+        for (ChatMessage.Bypass bypass : ChatMessage.Bypass.values()) {
+            if (player.hasPermission(bypass.getPermission())) {
+                flags |= PlayerState.chatBypassFlag(bypass);
+            }
+        }
+        return flags;
+    }
+}
@@ -6,6 +6,8 @@ import org.bukkit.OfflinePlayer;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.storage.Settings;
+import org.frizzlenpop.frizzlenMod.utils.MessageUtils;
 import org.frizzlenpop.frizzlenMod.utils.TimeUtils;
 
 import java.util.*;
@@ -101,11 +103,14 @@ public class PunishmentManager {
                 Map.Entry<UUID, Long> entry = iterator.next();
                 if (entry.getValue() <= currentTime) {
                     iterator.remove();
+                    if (!mutedPlayers.contains(entry.getKey())) {
+                        plugin.getPlayerStateManager().setFlag(entry.getKey(), PlayerState.MUTED, false);
+                    }
                     
                     // Notify player if online
                     Player player = Bukkit.getPlayer(entry.getKey());
                     if (player != null && player.isOnline()) {
-                        player.sendMessage("§aYour temporary mute has expired.");
+                        player.sendMessage(MessageUtils.message("punishment.mute-expired"));
                     }
                 }
             }
@@ -116,18 +121,21 @@ public class PunishmentManager {
     public void mutePlayer(UUID playerUUID) {
         mutedPlayers.add(playerUUID);
         tempMutedPlayers.remove(playerUUID); // Remove from temp mutes if exists
+        plugin.getPlayerStateManager().setFlag(playerUUID, PlayerState.MUTED, true);
         savePunishments();
     }
     
     public void tempMutePlayer(UUID playerUUID, long durationMillis) {
         long expiryTime = System.currentTimeMillis() + durationMillis;
         tempMutedPlayers.put(playerUUID, expiryTime);
+        plugin.getPlayerStateManager().setFlag(playerUUID, PlayerState.MUTED, true);
         savePunishments();
     }
     
     public void unmutePlayer(UUID playerUUID) {
         mutedPlayers.remove(playerUUID);
         tempMutedPlayers.remove(playerUUID);
+        plugin.getPlayerStateManager().setFlag(playerUUID, PlayerState.MUTED, false);
         savePunishments();
     }
     
@@ -145,6 +153,7 @@ public class PunishmentManager {
         
         if (remainingTime <= 0) {
             tempMutedPlayers.remove(playerUUID);
+            plugin.getPlayerStateManager().setFlag(playerUUID, PlayerState.MUTED, mutedPlayers.contains(playerUUID));
             return "Not muted";
         }
         
@@ -170,10 +179,11 @@ public class PunishmentManager {
     
     private void checkWarningEscalation(UUID playerUUID, int warningCount, String reason) {
         // Get the warning thresholds from config
-        int muteThreshold = plugin.getConfig().getInt("warnings.mute-threshold", 3);
-        int kickThreshold = plugin.getConfig().getInt("warnings.kick-threshold", 5);
-        int tempBanThreshold = plugin.getConfig().getInt("warnings.temp-ban-threshold", 7);
-        int banThreshold = plugin.getConfig().getInt("warnings.ban-threshold", 10);
+        Settings settings = plugin.getConfigManager().getSettings();
+        int muteThreshold = settings.getWarningMuteThreshold();
+        int kickThreshold = settings.getWarningKickThreshold();
+        int tempBanThreshold = settings.getWarningTempBanThreshold();
+        int banThreshold = settings.getWarningBanThreshold();
         
         Player player = Bukkit.getPlayer(playerUUID);
         if (player == null) return; // Player is offline
@@ -186,9 +196,7 @@ public class PunishmentManager {
         
         if (warningCount >= tempBanThreshold) {
             // Temporary ban
-            String banDuration = plugin.getConfig().getString("warnings.temp-ban-duration", "1d");
-            long durationMillis = TimeUtils.parseTimeString(banDuration);
-            tempBanPlayer(playerUUID, "Exceeded warning limit: " + reason, durationMillis);
+            tempBanPlayer(playerUUID, "Exceeded warning limit: " + reason, settings.getWarningTempBanMillis());
             return;
         }
         
@@ -201,28 +209,30 @@ public class PunishmentManager {
         if (warningCount >= muteThreshold) {
             // Mute player
             mutePlayer(playerUUID);
-            player.sendMessage("§cYou have been muted due to receiving " + warningCount + " warnings.");
+            player.sendMessage(MessageUtils.message("punishment.warning-muted", "count", warningCount));
         }
     }
     
     // Player freeze methods
     public void freezePlayer(UUID playerUUID) {
         frozenPlayers.add(playerUUID);
+        plugin.getPlayerStateManager().setFlag(playerUUID, PlayerState.FROZEN, true);
         
         // Notify the player
         Player player = Bukkit.getPlayer(playerUUID);
         if (player != null && player.isOnline()) {
-            player.sendMessage("§cYou have been frozen by a staff member. Do not disconnect!");
+            player.sendMessage(MessageUtils.message("punishment.frozen"));
         }
     }
     
     public void unfreezePlayer(UUID playerUUID) {
         frozenPlayers.remove(playerUUID);
+        plugin.getPlayerStateManager().setFlag(playerUUID, PlayerState.FROZEN, false);
         
         // Notify the player
         Player player = Bukkit.getPlayer(playerUUID);
         if (player != null && player.isOnline()) {
-            player.sendMessage("§aYou have been unfrozen.");
+            player.sendMessage(MessageUtils.message("punishment.unfrozen"));
         }
     }
     
@@ -0,0 +1,286 @@
+package org.frizzlenpop.frizzlenMod.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.search.SearchDocument;
+import org.frizzlenpop.frizzlenMod.search.SearchResults;
+import org.frizzlenpop.frizzlenMod.search.TextIndex;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Keeps the full-text index over mod-log reasons, report reasons and appeals. New entries are
+ * added as they are written, and the whole index can be rebuilt from the stored data in the
+ * background without blocking searches.
+ */
+public class SearchManager {
+    private final FrizzlenMod plugin;
+    private volatile TextIndex index = new TextIndex();
+    
+    // Documents added while a rebuild runs, replayed into the new index before it is swapped in
+    private List<SearchDocument> pending;
+    private volatile long lastRebuildMillis;
+    private volatile long lastRebuildTime;
+    
+    public SearchManager(FrizzlenMod plugin) {
+        this.plugin = plugin;
+        
+        // Build the initial index off the main thread
+        rebuild();
+    }
+    
+    /**
+     * Searches the index
+     * 
+     * @param query The query, every word has to match either fully or as a prefix
+     * @param type The document type to search, or null for all types
+     * @param page The page number, starting at 1
+     * @param pageSize The number of results per page
+     * @return The results on the page
+     */
+    public SearchResults search(String query, SearchDocument.Type type, int page, int pageSize) {
+        return index.search(query, type, (Math.max(1, page) - 1) * pageSize, pageSize);
+    }
+    
+    /**
+     * Rebuilds the index in an async task, from a copy of the mod logs and reports held in
+     * memory and the appeals file. Searches keep using the old index until the new one is
+     * complete.
+     * 
+     * @return false if a rebuild is already running
+     */
+    public boolean rebuild() {
+        synchronized (this) {
+            if (pending != null) {
+                return false;
+            }
+            pending = new ArrayList<>();
+        }
+        
+        // The configs are only changed on the main thread, so they are copied there
+        if (Bukkit.isPrimaryThread()) {
+            startRebuild();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, this::startRebuild);
+        }
+        return true;
+    }
+    
+    private void startRebuild() {
+        // Entries added since are in the snapshot or in pending, the index skips keys it has
+        String modLogs = plugin.getStorageManager().getModLogsConfig().saveToString();
+        String reports = plugin.getStorageManager().getReportsConfig().saveToString();
+        
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            long start = System.nanoTime();
+            TextIndex rebuilt = new TextIndex();
+            try {
+                YamlConfiguration modLogsConfig = new YamlConfiguration();
+                modLogsConfig.loadFromString(modLogs);
+                indexModLogs(rebuilt, modLogsConfig);
+                
+                YamlConfiguration reportsConfig = new YamlConfiguration();
+                reportsConfig.loadFromString(reports);
+                indexReports(rebuilt, reportsConfig);
+                
+                // Appeals are written to disk as soon as they change
+                indexAppeals(rebuilt, YamlConfiguration.loadConfiguration(new File(plugin.getDataFolder(), "appeals.yml")));
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Error rebuilding the search index: " + e.getMessage(), e);
+                synchronized (this) {
+                    pending = null;
+                }
+                return;
+            }
+            
+            synchronized (this) {
+                for (SearchDocument document : pending) {
+                    rebuilt.add(document);
+                }
+                pending = null;
+                index = rebuilt;
+            }
+            
+            lastRebuildMillis = (System.nanoTime() - start) / 1000000L;
+            lastRebuildTime = System.currentTimeMillis();
+            plugin.getLogger().info("Search index rebuilt with " + rebuilt.getDocumentCount() + " documents and "
+                    + rebuilt.getTermCount() + " terms in " + lastRebuildMillis + "ms");
+        });
+    }
+    
+    /**
+     * Indexes a moderation action that was just logged
+     * 
+     * @param logKey The key of the log entry
+     * @param moderator The name of the moderator
+     * @param action The action
+     * @param target The target of the action
+     * @param reason The reason for the action
+     * @param timestamp The time of the action in milliseconds
+     */
+    public void addModLog(String logKey, String moderator, String action, String target, String reason, long timestamp) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("moderator", moderator);
+        fields.put("action", action);
+        fields.put("target", target);
+        fields.put("reason", reason);
+        add(new SearchDocument(SearchDocument.Type.MODLOG, logKey, reason, timestamp, fields));
+    }
+    
+    /**
+     * Indexes a report that was just filed
+     * 
+     * @param reportId The ID of the report
+     * @param reporter The name of the reporter
+     * @param reported The name of the reported player
+     * @param reason The reason for the report
+     * @param timestamp The time of the report in milliseconds
+     */
+    public void addReport(String reportId, String reporter, String reported, String reason, long timestamp) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("reporter", reporter);
+        fields.put("reported", reported);
+        fields.put("reason", reason);
+        add(new SearchDocument(SearchDocument.Type.REPORT, reportId, reason, timestamp, fields));
+    }
+    
+    /**
+     * Indexes an appeal that was just submitted
+     * 
+     * @param appealId The ID of the appeal
+     * @param playerName The name of the player who appealed
+     * @param appealText The text of the appeal
+     * @param timestamp The time of the appeal in milliseconds
+     */
+    public void addAppeal(String appealId, String playerName, String appealText, long timestamp) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("playerName", playerName);
+        fields.put("appealText", appealText);
+        add(new SearchDocument(SearchDocument.Type.APPEAL, appealId, appealText, timestamp, fields));
+    }
+    
+    /**
+     * Indexes a staff comment that was just added to an appeal
+     * 
+     * @param appealId The ID of the appeal
+     * @param commentId The ID of the comment
+     * @param staffName The name of the staff member
+     * @param comment The comment
+     * @param timestamp The time of the comment in milliseconds
+     */
+    public void addAppealComment(String appealId, String commentId, String staffName, String comment, long timestamp) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("appealId", appealId);
+        fields.put("staffName", staffName);
+        fields.put("comment", comment);
+        add(new SearchDocument(SearchDocument.Type.APPEAL_COMMENT, appealId + "." + commentId, comment, timestamp, fields));
+    }
+    
+    /**
+     * Gets statistics about the index
+     * 
+     * @return The statistics
+     */
+    public Map<String, Object> getStats() {
+        TextIndex current = index;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("documents", current.getDocumentCount());
+        stats.put("terms", current.getTermCount());
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        stats.put("lastRebuildTime", lastRebuildTime);
+        synchronized (this) {
+            stats.put("rebuilding", pending != null);
+        }
+        return stats;
+    }
+    
+    private void add(SearchDocument document) {
+        synchronized (this) {
+            if (pending != null) {
+                pending.add(document);
+            }
+        }
+        index.add(document);
+    }
+    
+    private void indexModLogs(TextIndex target, FileConfiguration config) {
+        // Log keys are "<timestamp>.<action>", so every entry is nested one level deep
+        for (String timestampKey : config.getKeys(false)) {
+            ConfigurationSection timestampSection = config.getConfigurationSection(timestampKey);
+            if (timestampSection == null) continue;
+            
+            for (String actionKey : timestampSection.getKeys(false)) {
+                ConfigurationSection section = timestampSection.getConfigurationSection(actionKey);
+                if (section == null) continue;
+                
+                Map<String, Object> fields = new LinkedHashMap<>();
+                fields.put("moderator", section.getString("moderator", "Unknown"));
+                fields.put("action", section.getString("action", "Unknown"));
+                fields.put("target", section.getString("target", "Unknown"));
+                fields.put("reason", section.getString("reason", ""));
+                target.add(new SearchDocument(SearchDocument.Type.MODLOG, timestampKey + "." + actionKey,
+                        section.getString("reason", ""), section.getLong("timestamp", 0), fields));
+            }
+        }
+    }
+    
+    private void indexReports(TextIndex target, FileConfiguration config) {
+        ConfigurationSection reports = config.getConfigurationSection("reports");
+        if (reports == null) {
+            return;
+        }
+        
+        for (String reportId : reports.getKeys(false)) {
+            ConfigurationSection section = reports.getConfigurationSection(reportId);
+            if (section == null) continue;
+            
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("reporter", section.getString("reporter"));
+            fields.put("reported", section.getString("reported"));
+            fields.put("reason", section.getString("reason", ""));
+            target.add(new SearchDocument(SearchDocument.Type.REPORT, reportId,
+                    section.getString("reason", ""), section.getLong("timestamp", 0), fields));
+        }
+    }
+    
+    private void indexAppeals(TextIndex target, FileConfiguration config) {
+        ConfigurationSection appeals = config.getConfigurationSection("appeals");
+        if (appeals == null) {
+            return;
+        }
+        
+        for (String appealId : appeals.getKeys(false)) {
+            ConfigurationSection section = appeals.getConfigurationSection(appealId);
+            if (section == null) continue;
+            
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("playerName", section.getString("playerName"));
+            fields.put("appealText", section.getString("appealText", ""));
+            target.add(new SearchDocument(SearchDocument.Type.APPEAL, appealId,
+                    section.getString("appealText", ""), section.getLong("submissionTime", 0), fields));
+            
+            ConfigurationSection comments = section.getConfigurationSection("comments");
+            if (comments == null) continue;
+            
+            for (String commentId : comments.getKeys(false)) {
+                ConfigurationSection comment = comments.getConfigurationSection(commentId);
+                if (comment == null) continue;
+                
+                Map<String, Object> commentFields = new LinkedHashMap<>();
+                commentFields.put("appealId", appealId);
+                commentFields.put("staffName", comment.getString("staffName"));
+                commentFields.put("comment", comment.getString("comment", ""));
+                target.add(new SearchDocument(SearchDocument.Type.APPEAL_COMMENT, appealId + "." + commentId,
+                        comment.getString("comment", ""), comment.getLong("timestamp", 0), commentFields));
+            }
+        }
+    }
+}
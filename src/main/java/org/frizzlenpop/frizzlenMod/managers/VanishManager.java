@@ -2,30 +2,47 @@ package org.frizzlenpop.frizzlenMod.managers;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
 import org.frizzlenpop.frizzlenMod.FrizzlenMod;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Hides vanished players from everyone who can't see vanished players. Visibility only
+ * changes when something it depends on changes: a player vanishes or reappears, joins
+ * or gains or loses the permission to see vanished players. Each of those touches the pairs
+ * of players involved and nothing else. The players who can see vanished players are the
+ * {@link PermissionAudience} of {@link #SEE_PERMISSION}. The vanished players are saved, so
+ * they are still vanished after a restart.
+ */
 public class VanishManager {
-    private final FrizzlenMod plugin;
-    private final Set<UUID> vanishedPlayers;
+    public static final String SEE_PERMISSION = "frizzlenmod.vanish.see";
+    
+    private final Plugin plugin;
+    private final PermissionAudience viewers;
+    private final Environment environment;
+    private final Set<UUID> vanishedPlayers = ConcurrentHashMap.newKeySet();
 
     public VanishManager(FrizzlenMod plugin) {
-        this.plugin = plugin;
-        this.vanishedPlayers = new HashSet<>();
-        
-        // Start vanish task to handle new players joining
-        startVanishTask();
+        this(plugin, plugin.getPlayerStateManager().getAudience(SEE_PERMISSION), new ServerEnvironment(plugin));
+        vanishedPlayers.addAll(plugin.getStorageManager().getVanishedPlayers());
     }
     
-    private void startVanishTask() {
-        Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            for (Player player : Bukkit.getOnlinePlayers()) {
-                updateVisibility(player);
-            }
-        }, 20L, 20L * 10); // Check every 10 seconds
+    /**
+     * Creates the manager with its own environment, so vanishing can run without a server
+     * 
+     * @param plugin The plugin that hides and shows players
+     * @param viewers The players who can see vanished players
+     * @param environment The online players and what happens when a player vanishes or reappears
+     */
+    VanishManager(Plugin plugin, PermissionAudience viewers, Environment environment) {
+        this.plugin = plugin;
+        this.viewers = viewers;
+        this.environment = environment;
     }
     
     /**
@@ -38,14 +55,18 @@ public class VanishManager {
     public boolean vanishPlayer(Player player) {
         UUID uuid = player.getUniqueId();
         
-        if (vanishedPlayers.contains(uuid)) {
+        if (!vanishedPlayers.add(uuid)) {
             return false; // Already vanished
         }
         
-        vanishedPlayers.add(uuid);
+        environment.vanishChanged(uuid, true, vanishedPlayers);
         
-        // Hide this player from all other players
-        updateVisibility(player);
+        // Hide this player from everyone who can't see vanished players
+        for (Player otherPlayer : environment.getOnlinePlayers()) {
+            if (!otherPlayer.equals(player) && !viewers.contains(otherPlayer.getUniqueId())) {
+                otherPlayer.hidePlayer(plugin, player);
+            }
+        }
         
         return true;
     }
@@ -59,14 +80,18 @@ public class VanishManager {
     public boolean unvanishPlayer(Player player) {
         UUID uuid = player.getUniqueId();
         
-        if (!vanishedPlayers.contains(uuid)) {
+        if (!vanishedPlayers.remove(uuid)) {
             return false; // Not vanished
         }
         
-        vanishedPlayers.remove(uuid);
+        environment.vanishChanged(uuid, false, vanishedPlayers);
         
-        // Show this player to all other players
-        updateVisibility(player);
+        // Show this player to everyone it was hidden from
+        for (Player otherPlayer : environment.getOnlinePlayers()) {
+            if (!otherPlayer.equals(player) && !viewers.contains(otherPlayer.getUniqueId())) {
+                otherPlayer.showPlayer(plugin, player);
+            }
+        }
         
         return true;
     }
@@ -82,43 +107,53 @@ public class VanishManager {
     }
     
     /**
-     * Updates the visibility of a player for all other players
+     * Sets up what a joining player sees and who sees them, after the player's state was
+     * created
      * 
-     * @param player The player whose visibility to update
+     * @param player The player who joined
      */
-    public void updateVisibility(Player player) {
-        boolean isVanished = vanishedPlayers.contains(player.getUniqueId());
-        
-        for (Player otherPlayer : Bukkit.getOnlinePlayers()) {
-            if (player.equals(otherPlayer)) continue;
-            
-            if (isVanished) {
-                // If this player is vanished, only show them to players with permission
-                if (otherPlayer.hasPermission("frizzlenmod.vanish.see")) {
-                    otherPlayer.showPlayer(plugin, player);
-                } else {
+    public void handleJoin(Player player) {
+        UUID uuid = player.getUniqueId();
+        if (!viewers.contains(uuid)) {
+            hideVanishedFrom(player);
+        }
+        
+        if (vanishedPlayers.contains(uuid)) {
+            for (Player otherPlayer : environment.getOnlinePlayers()) {
+                if (!otherPlayer.equals(player) && !viewers.contains(otherPlayer.getUniqueId())) {
                     otherPlayer.hidePlayer(plugin, player);
                 }
-            } else {
-                // If not vanished, show to everyone
-                otherPlayer.showPlayer(plugin, player);
-            }
-            
-            // Also handle the case where the other player is vanished
-            if (vanishedPlayers.contains(otherPlayer.getUniqueId()) && !player.hasPermission("frizzlenmod.vanish.see")) {
-                player.hidePlayer(plugin, otherPlayer);
-            } else {
-                player.showPlayer(plugin, otherPlayer);
             }
         }
     }
     
     /**
-     * Updates visibility for all players
+     * Shows or hides the vanished players for a player who gained or lost the permission to
+     * see them
+     * 
+     * @param player The player
+     * @param viewer true if the player can now see vanished players
      */
-    public void updateAllPlayers() {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            updateVisibility(player);
+    public void viewerChanged(Player player, boolean viewer) {
+        if (!viewer) {
+            hideVanishedFrom(player);
+            return;
+        }
+        
+        for (UUID vanishedUUID : vanishedPlayers) {
+            Player vanished = environment.getPlayer(vanishedUUID);
+            if (vanished != null && !vanished.equals(player)) {
+                player.showPlayer(plugin, vanished);
+            }
+        }
+    }
+    
+    private void hideVanishedFrom(Player player) {
+        for (UUID vanishedUUID : vanishedPlayers) {
+            Player vanished = environment.getPlayer(vanishedUUID);
+            if (vanished != null && !vanished.equals(player)) {
+                player.hidePlayer(plugin, vanished);
+            }
         }
     }
     
@@ -130,4 +165,46 @@ public class VanishManager {
     public Set<UUID> getVanishedPlayers() {
         return new HashSet<>(vanishedPlayers);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * The online players and the other managers, the server itself outside of benchmarks
+     */
+    interface Environment {
+        Collection<? extends Player> getOnlinePlayers();
+        
+        Player getPlayer(UUID playerUUID);
+        
+        /**
+         * Called after a player vanished or reappeared
+         * 
+         * @param playerUUID The UUID of the player
+         * @param vanished true if the player vanished
+         * @param vanishedPlayers All vanished players, to be saved
+         */
+        void vanishChanged(UUID playerUUID, boolean vanished, Set<UUID> vanishedPlayers);
+    }
+    
+    private static final class ServerEnvironment implements Environment {
+        private final FrizzlenMod plugin;
+        
+        private ServerEnvironment(FrizzlenMod plugin) {
+            this.plugin = plugin;
+        }
+        
+        @Override
+        public Collection<? extends Player> getOnlinePlayers() {
+            return Bukkit.getOnlinePlayers();
+        }
+        
+        @Override
+        public Player getPlayer(UUID playerUUID) {
+            return Bukkit.getPlayer(playerUUID);
+        }
+        
+        @Override
+        public void vanishChanged(UUID playerUUID, boolean vanished, Set<UUID> vanishedPlayers) {
+            plugin.getPlayerStateManager().setFlag(playerUUID, PlayerState.VANISHED, vanished);
+            plugin.getStorageManager().saveVanishedPlayers(vanishedPlayers);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.frizzlenpop.frizzlenMod.search;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A piece of moderation data in the {@link TextIndex}
+ */
+public final class SearchDocument {
+    /**
+     * Where a document comes from
+     */
+    public enum Type {
+        MODLOG,
+        REPORT,
+        APPEAL,
+        APPEAL_COMMENT
+    }
+    
+    private final Type type;
+    private final String id;
+    private final String text;
+    private final long timestamp;
+    private final Map<String, Object> fields;
+    
+    /**
+     * Creates a document
+     * 
+     * @param type The type of the document
+     * @param id The id of the document, unique per type
+     * @param text The text that is indexed
+     * @param timestamp The time the document was created in milliseconds
+     * @param fields The fields returned with search results
+     */
+    public SearchDocument(Type type, String id, String text, long timestamp, Map<String, Object> fields) {
+        this.type = type;
+        this.id = id;
+        this.text = text != null ? text : "";
+        this.timestamp = timestamp;
+        this.fields = Collections.unmodifiableMap(new LinkedHashMap<>(fields));
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    /**
+     * Gets the key that identifies this document across types
+     * 
+     * @return The type and id
+     */
+    public String getKey() {
+        return type.name() + ":" + id;
+    }
+    
+    public String getText() {
+        return text;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public Map<String, Object> getFields() {
+        return fields;
+    }
+}
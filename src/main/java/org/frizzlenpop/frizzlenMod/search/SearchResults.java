@@ -0,0 +1,55 @@
+package org.frizzlenpop.frizzlenMod.search;
+
+import java.util.List;
+
+/**
+ * One page of ranked search results
+ */
+public final class SearchResults {
+    private final List<Hit> hits;
+    private final int total;
+    
+    SearchResults(List<Hit> hits, int total) {
+        this.hits = hits;
+        this.total = total;
+    }
+    
+    /**
+     * Gets the results on this page, best match first
+     * 
+     * @return The results
+     */
+    public List<Hit> getHits() {
+        return hits;
+    }
+    
+    /**
+     * Gets the number of matching documents on all pages
+     * 
+     * @return The number of matches
+     */
+    public int getTotal() {
+        return total;
+    }
+    
+    /**
+     * A matching document and its score
+     */
+    public static final class Hit {
+        private final SearchDocument document;
+        private final float score;
+        
+        Hit(SearchDocument document, float score) {
+            this.document = document;
+            this.score = score;
+        }
+        
+        public SearchDocument getDocument() {
+            return document;
+        }
+        
+        public float getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package org.frizzlenpop.frizzlenMod.search;
+
+import org.frizzlenpop.frizzlenMod.chat.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory inverted index for full-text search over moderation data.
+ * Text is case and accent folded through {@link TextNormalizer} and split into tokens of
+ * letters and digits. Every term has a posting list of document number gaps and term
+ * frequencies packed into a growing int array, and the terms are kept sorted so a query term
+ * also matches every term it is a prefix of. Results are ranked with BM25.
+ */
+public final class TextIndex {
+    // BM25 parameters
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    
+    // Prefix matches count less than exact ones and only expand to this many terms
+    private static final float PREFIX_WEIGHT = 0.5f;
+    private static final int MAX_PREFIX_TERMS = 64;
+    
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final List<SearchDocument> documents = new ArrayList<>();
+    private int[] lengths = new int[64];
+    private final Set<String> keys = new HashSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+    
+    /**
+     * Adds a document unless a document with the same type and id is already indexed
+     * 
+     * @param document The document to add
+     * @return true if the document was added
+     */
+    public boolean add(SearchDocument document) {
+        List<String> tokens = tokenize(document.getText());
+        
+        lock.writeLock().lock();
+        try {
+            if (!keys.add(document.getKey())) {
+                return false;
+            }
+            
+            int docId = documents.size();
+            documents.add(document);
+            if (docId == lengths.length) {
+                lengths = Arrays.copyOf(lengths, lengths.length * 2);
+            }
+            lengths[docId] = tokens.size();
+            totalLength += tokens.size();
+            
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : tokens) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                terms.computeIfAbsent(entry.getKey(), term -> new Postings()).add(docId, entry.getValue());
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Finds the documents that contain every term of the query, best matches first
+     * 
+     * @param query The query text
+     * @param type The document type to search, or null for all types
+     * @param offset The number of results to skip
+     * @param limit The maximum number of results
+     * @return The page of results and the total number of matches
+     */
+    public SearchResults search(String query, SearchDocument.Type type, int offset, int limit) {
+        List<String> queryTerms = new ArrayList<>(new HashSet<>(tokenize(query)));
+        if (queryTerms.isEmpty()) {
+            return new SearchResults(new ArrayList<>(), 0);
+        }
+        
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            float averageLength = documentCount == 0 ? 0 : (float) totalLength / documentCount;
+            
+            // Scores are accumulated in flat arrays, a document matches when every query term
+            // counted it
+            float[] scores = new float[documentCount];
+            int[] matched = new int[documentCount];
+            for (int term = 0; term < queryTerms.size(); term++) {
+                scoreTerm(queryTerms.get(term), term, scores, matched, averageLength);
+            }
+            
+            List<Integer> ranked = new ArrayList<>();
+            for (int docId = 0; docId < documentCount; docId++) {
+                if (matched[docId] == queryTerms.size()
+                        && (type == null || documents.get(docId).getType() == type)) {
+                    ranked.add(docId);
+                }
+            }
+            ranked.sort((a, b) -> {
+                int compare = Float.compare(scores[b], scores[a]);
+                if (compare != 0) {
+                    return compare;
+                }
+                return Long.compare(documents.get(b).getTimestamp(), documents.get(a).getTimestamp());
+            });
+            
+            List<SearchResults.Hit> hits = new ArrayList<>();
+            for (int i = Math.max(0, offset); i < ranked.size() && hits.size() < limit; i++) {
+                int docId = ranked.get(i);
+                hits.add(new SearchResults.Hit(documents.get(docId), scores[docId]));
+            }
+            return new SearchResults(hits, ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gets the number of indexed documents
+     * 
+     * @return The document count
+     */
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gets the number of distinct terms
+     * 
+     * @return The term count
+     */
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Adds the scores of the documents containing a term or a term it is a prefix of, and
+     * counts each of those documents once as matched
+     */
+    private void scoreTerm(String queryTerm, int termNumber, float[] scores, int[] matched, float averageLength) {
+        int documentCount = scores.length;
+        
+        int expanded = 0;
+        for (Map.Entry<String, Postings> entry : terms.tailMap(queryTerm, true).entrySet()) {
+            String term = entry.getKey();
+            if (!term.startsWith(queryTerm) || expanded++ >= MAX_PREFIX_TERMS) {
+                break;
+            }
+            
+            Postings postings = entry.getValue();
+            float weight = term.length() == queryTerm.length() ? 1f : PREFIX_WEIGHT;
+            float idf = (float) Math.log(1 + (documentCount - postings.docCount + 0.5) / (postings.docCount + 0.5));
+            
+            int docId = 0;
+            for (int i = 0; i < postings.size; i += 2) {
+                docId += postings.data[i];
+                int frequency = postings.data[i + 1];
+                float length = lengths[docId];
+                scores[docId] += weight * idf * frequency * (K1 + 1)
+                        / (frequency + K1 * (1 - B + B * length / Math.max(1f, averageLength)));
+                
+                // Only documents matched by all earlier terms can still match
+                if (matched[docId] == termNumber) {
+                    matched[docId] = termNumber + 1;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Splits folded text into tokens of letters and digits
+     * 
+     * @param text The text to split
+     * @return The tokens in order
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        
+        CharSequence folded = TextNormalizer.normalize(text).folded();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean word = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(folded.subSequence(start, i).toString());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+    
+    /**
+     * The posting list of one term: pairs of the gap to the previous document number and the
+     * number of times the term occurs in the document
+     */
+    private static final class Postings {
+        private int[] data = new int[4];
+        private int size;
+        private int lastDocId;
+        private int docCount;
+        
+        private void add(int docId, int frequency) {
+            if (size + 2 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[size++] = docId - lastDocId;
+            data[size++] = frequency;
+            lastDocId = docId;
+            docCount++;
+        }
+    }
+}
@@ -1,17 +1,33 @@
 package org.frizzlenpop.frizzlenMod.storage;
 
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.frizzlenpop.frizzlenMod.FrizzlenMod;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ConfigManager {
     private final FrizzlenMod plugin;
     
+    // Counts the saves of every file, a background write is skipped once a newer save exists
+    private final Map<String, AtomicLong> saveVersions = new ConcurrentHashMap<>();
+    
+    // Typed values read on hot paths, replaced as a whole on reload
+    private volatile Settings settings;
+    
     // Default config values
     private final List<String> DEFAULT_BLACKLISTED_WORDS = Arrays.asList(
         "badword1", "badword2", "badword3"
@@ -27,6 +43,48 @@ public class ConfigManager {
         
         // Initialize default config
         setupDefaultConfig();
+        
+        // Parse the settings used on hot paths once
+        List<String> errors = new ArrayList<>();
+        settings = Settings.load(plugin.getConfig(), errors);
+        for (String error : errors) {
+            plugin.getLogger().warning("Invalid setting: " + error);
+        }
+    }
+    
+    /**
+     * Gets the current settings. Callers should read this once per event and use that
+     * instance throughout, a reload may replace it at any time.
+     * 
+     * @return The settings
+     */
+    public Settings getSettings() {
+        return settings;
+    }
+    
+    /**
+     * Reads the settings again from config.yml and replaces the current settings, but only
+     * if every value is valid. The plugin config is reloaded as well then, so code reading
+     * getConfig() sees the same file as the settings.
+     * 
+     * @return The problems found, empty if the new settings are in use
+     */
+    public List<String> reloadSettings() {
+        List<String> errors = new ArrayList<>();
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.load(new File(plugin.getDataFolder(), "config.yml"));
+        } catch (IOException | InvalidConfigurationException e) {
+            errors.add("config.yml could not be read: " + e.getMessage());
+            return errors;
+        }
+        
+        Settings reloaded = Settings.load(config, errors);
+        if (errors.isEmpty()) {
+            settings = reloaded;
+            plugin.reloadConfig();
+        }
+        return errors;
     }
     
     /**
@@ -139,10 +197,53 @@ public class ConfigManager {
      * @param fileName The name of the file (without .yml extension)
      */
     public void saveConfigFile(FileConfiguration config, String fileName) {
-        try {
-            config.save(new File(plugin.getDataFolder(), fileName + ".yml"));
-        } catch (IOException e) {
-            plugin.getLogger().severe("Could not save " + fileName + ".yml: " + e.getMessage());
+        AtomicLong version = saveVersions.computeIfAbsent(fileName, name -> new AtomicLong());
+        synchronized (version) {
+            version.incrementAndGet();
+            try {
+                config.save(new File(plugin.getDataFolder(), fileName + ".yml"));
+            } catch (IOException e) {
+                plugin.getLogger().severe("Could not save " + fileName + ".yml: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Saves a configuration file without waiting for the disk. The configuration is turned
+     * into text on the calling thread, so later changes are not part of this save, and the
+     * text is written from a background thread. When several saves of the same file queue
+     * up, only the newest one is written.
+     * 
+     * @param config The configuration to save
+     * @param fileName The name of the file (without .yml extension)
+     */
+    public void saveConfigFileAsync(FileConfiguration config, String fileName) {
+        String data = config.saveToString();
+        AtomicLong version = saveVersions.computeIfAbsent(fileName, name -> new AtomicLong());
+        long saveVersion = version.incrementAndGet();
+        
+        Runnable write = () -> {
+            synchronized (version) {
+                if (version.get() != saveVersion) {
+                    return;
+                }
+                
+                Path file = new File(plugin.getDataFolder(), fileName + ".yml").toPath();
+                Path temp = file.resolveSibling(fileName + ".yml.tmp");
+                try {
+                    Files.write(temp, data.getBytes(StandardCharsets.UTF_8));
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    plugin.getLogger().severe("Could not save " + fileName + ".yml: " + e.getMessage());
+                }
+            }
+        };
+        
+        // Tasks can't be scheduled while the plugin is disabling
+        if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, write);
+        } else {
+            write.run();
         }
     }
 } 
\ No newline at end of file
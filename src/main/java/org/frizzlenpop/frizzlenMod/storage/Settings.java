@@ -0,0 +1,119 @@
+package org.frizzlenpop.frizzlenMod.storage;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.frizzlenpop.frizzlenMod.utils.TimeUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The config.yml values read by listeners and managers on every event, parsed once into
+ * typed fields. Instances are immutable, a reload builds a new one and replaces the
+ * reference in {@link ConfigManager}, so a reader always sees one complete version.
+ */
+public final class Settings {
+    private final int saveIntervalMinutes;
+    
+    private final double jailRadius;
+    private final boolean jailRestrictInventory;
+    private final boolean jailRestrictItemDrop;
+    private final boolean jailRestrictInteraction;
+    
+    private final int warningMuteThreshold;
+    private final int warningKickThreshold;
+    private final int warningTempBanThreshold;
+    private final int warningBanThreshold;
+    private final long warningTempBanMillis;
+    
+    private Settings(ConfigurationSection config, List<String> errors) {
+        saveIntervalMinutes = atLeast(config, "general.save-interval", 5, 1, errors);
+        
+        double radius = config.getDouble("jail.radius", 10.0);
+        if (radius <= 0) {
+            errors.add("jail.radius must be greater than 0, using 10");
+            radius = 10.0;
+        }
+        jailRadius = radius;
+        jailRestrictInventory = config.getBoolean("jail.restrict-inventory", true);
+        jailRestrictItemDrop = config.getBoolean("jail.restrict-item-drop", true);
+        jailRestrictInteraction = config.getBoolean("jail.restrict-interaction", true);
+        
+        warningMuteThreshold = atLeast(config, "warnings.mute-threshold", 3, 1, errors);
+        warningKickThreshold = atLeast(config, "warnings.kick-threshold", 5, 1, errors);
+        warningTempBanThreshold = atLeast(config, "warnings.temp-ban-threshold", 7, 1, errors);
+        warningBanThreshold = atLeast(config, "warnings.ban-threshold", 10, 1, errors);
+        if (warningMuteThreshold > warningKickThreshold || warningKickThreshold > warningTempBanThreshold
+                || warningTempBanThreshold > warningBanThreshold) {
+            errors.add("warnings thresholds should increase from mute to kick to temp-ban to ban");
+        }
+        
+        String duration = config.getString("warnings.temp-ban-duration", "1d");
+        long durationMillis = TimeUtils.parseTimeString(duration);
+        if (durationMillis <= 0) {
+            errors.add("warnings.temp-ban-duration '" + duration + "' is not a valid duration, using 1d");
+            durationMillis = TimeUnit.DAYS.toMillis(1);
+        }
+        warningTempBanMillis = durationMillis;
+    }
+    
+    /**
+     * Reads the settings from a configuration. Invalid values are replaced with their
+     * defaults and described in the error list.
+     * 
+     * @param config The configuration to read
+     * @param errors Receives a message for every invalid value
+     * @return The settings
+     */
+    public static Settings load(ConfigurationSection config, List<String> errors) {
+        return new Settings(config, errors);
+    }
+    
+    private static int atLeast(ConfigurationSection config, String path, int defaultValue, int min, List<String> errors) {
+        int value = config.getInt(path, defaultValue);
+        if (value < min) {
+            errors.add(path + " must be at least " + min + ", using " + defaultValue);
+            return defaultValue;
+        }
+        return value;
+    }
+    
+    public int getSaveIntervalMinutes() {
+        return saveIntervalMinutes;
+    }
+    
+    public double getJailRadius() {
+        return jailRadius;
+    }
+    
+    public boolean isJailRestrictInventory() {
+        return jailRestrictInventory;
+    }
+    
+    public boolean isJailRestrictItemDrop() {
+        return jailRestrictItemDrop;
+    }
+    
+    public boolean isJailRestrictInteraction() {
+        return jailRestrictInteraction;
+    }
+    
+    public int getWarningMuteThreshold() {
+        return warningMuteThreshold;
+    }
+    
+    public int getWarningKickThreshold() {
+        return warningKickThreshold;
+    }
+    
+    public int getWarningTempBanThreshold() {
+        return warningTempBanThreshold;
+    }
+    
+    public int getWarningBanThreshold() {
+        return warningBanThreshold;
+    }
+    
+    public long getWarningTempBanMillis() {
+        return warningTempBanMillis;
+    }
+}
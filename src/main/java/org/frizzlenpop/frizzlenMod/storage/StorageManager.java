@@ -4,9 +4,12 @@ import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.chat.ChatHistory;
+import org.frizzlenpop.frizzlenMod.chat.ReportContext;
 import org.frizzlenpop.frizzlenMod.utils.TimeUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -22,15 +25,20 @@ public class StorageManager {
     private FileConfiguration jailsConfig;
     private FileConfiguration reportsConfig;
     private FileConfiguration modLogsConfig;
+    private FileConfiguration reportContextConfig;
+    private FileConfiguration vanishedConfig;
     
     // File names
     private static final String PUNISHMENTS_FILE = "punishments";
     private static final String JAILS_FILE = "jails";
     private static final String REPORTS_FILE = "reports";
     private static final String MODLOGS_FILE = "modlogs";
+    private static final String REPORT_CONTEXT_FILE = "report-context";
+    private static final String VANISHED_FILE = "vanished";
     
     // Save task ID
     private int saveTaskId = -1;
+    private int saveIntervalMinutes;
 
     public StorageManager(FrizzlenMod plugin) {
         this.plugin = plugin;
@@ -51,6 +59,8 @@ public class StorageManager {
         jailsConfig = configManager.createConfigFile(JAILS_FILE);
         reportsConfig = configManager.createConfigFile(REPORTS_FILE);
         modLogsConfig = configManager.createConfigFile(MODLOGS_FILE);
+        reportContextConfig = configManager.createConfigFile(REPORT_CONTEXT_FILE);
+        vanishedConfig = configManager.createConfigFile(VANISHED_FILE);
     }
     
     /**
@@ -63,13 +73,24 @@ public class StorageManager {
         }
         
         // Get save interval from config (in minutes)
-        int saveInterval = plugin.getConfig().getInt("general.save-interval", 5);
+        int saveInterval = configManager.getSettings().getSaveIntervalMinutes();
+        saveIntervalMinutes = saveInterval;
         
         // Start new save task
         saveTaskId = Bukkit.getScheduler().runTaskTimer(plugin, this::saveAll, 
                 20L * 60 * saveInterval, 20L * 60 * saveInterval).getTaskId();
     }
     
+    /**
+     * Restarts the save task if the save interval changed since it was started, after the
+     * settings were reloaded
+     */
+    public void updateSaveInterval() {
+        if (configManager.getSettings().getSaveIntervalMinutes() != saveIntervalMinutes) {
+            startSaveTask();
+        }
+    }
+    
     /**
      * Saves all data files to disk
      */
@@ -78,6 +99,8 @@ public class StorageManager {
         saveJailsConfig();
         saveReportsConfig();
         saveModLogsConfig();
+        configManager.saveConfigFile(reportContextConfig, REPORT_CONTEXT_FILE);
+        configManager.saveConfigFile(vanishedConfig, VANISHED_FILE);
     }
     
     /**
@@ -172,6 +195,11 @@ public class StorageManager {
         
         // Auto-save the modlogs file
         saveModLogsConfig();
+        
+        // Make the reason searchable
+        if (plugin.getSearchManager() != null) {
+            plugin.getSearchManager().addModLog(logKey, moderator, action, target, reason, timestamp);
+        }
     }
     
     /**
@@ -196,6 +224,11 @@ public class StorageManager {
         
         // Auto-save the modlogs file
         saveModLogsConfig();
+        
+        // Make the reason searchable
+        if (plugin.getSearchManager() != null) {
+            plugin.getSearchManager().addModLog(logKey, moderator, action, target, reason, timestamp);
+        }
     }
     
     /**
@@ -235,6 +268,37 @@ public class StorageManager {
         return logs;
     }
     
+    /**
+     * Gets the players who were vanished when the list was last saved
+     * 
+     * @return The UUIDs of the vanished players
+     */
+    public List<UUID> getVanishedPlayers() {
+        List<UUID> players = new ArrayList<>();
+        for (String uuid : vanishedConfig.getStringList("players")) {
+            try {
+                players.add(UUID.fromString(uuid));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Ignoring invalid UUID in " + VANISHED_FILE + ".yml: " + uuid);
+            }
+        }
+        return players;
+    }
+    
+    /**
+     * Saves the vanished players, so they stay vanished after a restart
+     * 
+     * @param players The UUIDs of the vanished players
+     */
+    public void saveVanishedPlayers(Collection<UUID> players) {
+        List<String> uuids = new ArrayList<>();
+        for (UUID uuid : players) {
+            uuids.add(uuid.toString());
+        }
+        vanishedConfig.set("players", uuids);
+        configManager.saveConfigFileAsync(vanishedConfig, VANISHED_FILE);
+    }
+    
     /**
      * Adds a player report to the reports file
      * 
@@ -253,12 +317,123 @@ public class StorageManager {
         reportsConfig.set("reports." + reportId + ".timestamp", timestamp);
         reportsConfig.set("reports." + reportId + ".resolved", false);
         
-        // Auto-save the reports file
-        saveReportsConfig();
+        // Auto-save the reports file, the command doesn't wait for the disk
+        configManager.saveConfigFileAsync(reportsConfig, REPORTS_FILE);
+        
+        // Make the reason searchable
+        if (plugin.getSearchManager() != null) {
+            plugin.getSearchManager().addReport(reportId, reporter, reported, reason, timestamp);
+        }
         
         return reportId;
     }
     
+    /**
+     * Stores the chat captured with a report. Every distinct line is stored once in a shared
+     * table keyed by a hash of the sender and message, and the report only keeps the times
+     * and keys of its lines, so chat that shows up in many reports takes no extra space.
+     * 
+     * @param reportId The ID of the report
+     * @param context The captured chat
+     */
+    public void saveReportContext(String reportId, ReportContext context) {
+        if (context.isEmpty()) {
+            return;
+        }
+        
+        String path = "reports." + reportId;
+        reportContextConfig.set(path + ".captured", context.getCapturedAt());
+        reportContextConfig.set(path + ".reported", storeLines(context.getReported()));
+        reportContextConfig.set(path + ".reporter", storeLines(context.getReporter()));
+        reportContextConfig.set(path + ".server", storeLines(context.getServer()));
+        
+        configManager.saveConfigFileAsync(reportContextConfig, REPORT_CONTEXT_FILE);
+    }
+    
+    /**
+     * Gets the chat captured with a report
+     * 
+     * @param reportId The ID of the report
+     * @return The captured chat, or null if none was stored
+     */
+    public ReportContext getReportContext(String reportId) {
+        String path = "reports." + reportId;
+        if (!reportContextConfig.contains(path)) {
+            return null;
+        }
+        
+        return new ReportContext(
+                reportContextConfig.getLong(path + ".captured"),
+                loadLines(reportContextConfig.getStringList(path + ".reported")),
+                loadLines(reportContextConfig.getStringList(path + ".reporter")),
+                loadLines(reportContextConfig.getStringList(path + ".server"))
+        );
+    }
+    
+    /**
+     * Adds lines to the shared line table and returns their references as "time:key"
+     */
+    private List<String> storeLines(List<ChatHistory.Line> lines) {
+        List<String> references = new ArrayList<>(lines.size());
+        for (ChatHistory.Line line : lines) {
+            String key = Long.toHexString(lineHash(line.getPlayerName(), line.getMessage()));
+            
+            // A different line with the same hash gets the next free suffix
+            String candidate = key;
+            for (int i = 1; ; i++) {
+                ConfigurationSection existing = reportContextConfig.getConfigurationSection("lines." + candidate);
+                if (existing == null) {
+                    reportContextConfig.set("lines." + candidate + ".player", line.getPlayerName());
+                    reportContextConfig.set("lines." + candidate + ".message", line.getMessage());
+                    break;
+                }
+                if (line.getPlayerName().equals(existing.getString("player"))
+                        && line.getMessage().equals(existing.getString("message"))) {
+                    break;
+                }
+                candidate = key + "-" + i;
+            }
+            
+            references.add(line.getTimestamp() + ":" + candidate);
+        }
+        return references;
+    }
+    
+    private List<ChatHistory.Line> loadLines(List<String> references) {
+        List<ChatHistory.Line> lines = new ArrayList<>(references.size());
+        for (String reference : references) {
+            int separator = reference.indexOf(':');
+            if (separator < 0) {
+                continue;
+            }
+            
+            ConfigurationSection line = reportContextConfig.getConfigurationSection("lines." + reference.substring(separator + 1));
+            if (line != null) {
+                lines.add(new ChatHistory.Line(
+                        Long.parseLong(reference.substring(0, separator)),
+                        line.getString("player", "Unknown"),
+                        line.getString("message", "")
+                ));
+            }
+        }
+        return lines;
+    }
+    
+    /**
+     * A 64-bit FNV-1a hash of the sender and message
+     */
+    private static long lineHash(String playerName, String message) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < playerName.length(); i++) {
+            hash = (hash ^ playerName.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ '\n') * 0x100000001b3L;
+        for (int i = 0; i < message.length(); i++) {
+            hash = (hash ^ message.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+    
     /**
      * Marks a report as resolved
      * 
@@ -281,6 +456,28 @@ public class StorageManager {
         return false;
     }
     
+    /**
+     * Gets the details of a report
+     * 
+     * @param reportId The ID of the report
+     * @return The report details, or null if there is no such report
+     */
+    public Map<String, Object> getReport(String reportId) {
+        String path = "reports." + reportId;
+        if (!reportsConfig.contains(path)) {
+            return null;
+        }
+        
+        Map<String, Object> reportDetails = new HashMap<>();
+        reportDetails.put("reporter", reportsConfig.getString(path + ".reporter"));
+        reportDetails.put("reported", reportsConfig.getString(path + ".reported"));
+        reportDetails.put("reason", reportsConfig.getString(path + ".reason"));
+        reportDetails.put("timestamp", reportsConfig.getLong(path + ".timestamp"));
+        reportDetails.put("resolved", reportsConfig.getBoolean(path + ".resolved", false));
+        reportDetails.put("resolved_by", reportsConfig.getString(path + ".resolved_by"));
+        return reportDetails;
+    }
+    
     /**
      * Gets a map of all unresolved reports
      * 
@@ -0,0 +1,146 @@
+package org.frizzlenpop.frizzlenMod.utils;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The player-facing messages, loaded from lang/&lt;general.language&gt;.yml in the data folder.
+ * Keys missing from that file fall back to the bundled English file. Every message is
+ * compiled into a {@link MessageTemplate} when the file is loaded, and messages without
+ * placeholders are also kept with the prefix in front, ready to send.
+ */
+public final class MessageCatalog {
+    private static final String DEFAULT_LANGUAGE = "en";
+    private static final String PREFIX_KEY = "prefix";
+    
+    private final FrizzlenMod plugin;
+    private volatile Map<String, MessageTemplate> templates = Map.of();
+    private volatile Component prefix = Component.empty();
+    private volatile Map<String, Component> prefixedStatic = Map.of();
+    
+    // Keys that were missing, so each is only logged once
+    private final Set<String> missing = ConcurrentHashMap.newKeySet();
+    
+    public MessageCatalog(FrizzlenMod plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+    
+    /**
+     * Loads and compiles the language file again
+     */
+    public void reload() {
+        String language = plugin.getConfig().getString("general.language", DEFAULT_LANGUAGE);
+        YamlConfiguration messages = load(language);
+        YamlConfiguration defaults = loadBundled(DEFAULT_LANGUAGE);
+        
+        Set<String> keys = new LinkedHashSet<>(defaults.getKeys(true));
+        keys.addAll(messages.getKeys(true));
+        
+        Map<String, MessageTemplate> compiled = new HashMap<>();
+        for (String key : keys) {
+            String template = messages.isString(key) ? messages.getString(key)
+                    : defaults.isString(key) ? defaults.getString(key) : null;
+            if (template != null) {
+                compiled.put(key, MessageTemplate.compile(template));
+            }
+        }
+        
+        MessageTemplate prefixTemplate = compiled.get(PREFIX_KEY);
+        Component newPrefix = prefixTemplate == null ? Component.empty() : prefixTemplate.render();
+        Map<String, Component> newPrefixed = new HashMap<>();
+        for (Map.Entry<String, MessageTemplate> entry : compiled.entrySet()) {
+            if (entry.getValue().isStatic()) {
+                newPrefixed.put(entry.getKey(), newPrefix.append(entry.getValue().render()));
+            }
+        }
+        
+        templates = compiled;
+        prefix = newPrefix;
+        prefixedStatic = newPrefixed;
+        missing.clear();
+    }
+    
+    /**
+     * Renders a message without the prefix
+     * 
+     * @param key The message key, like "chat.muted"
+     * @param placeholders Pairs of placeholder names and values
+     * @return The message, or the key itself if there is no such message
+     */
+    public Component get(String key, Object... placeholders) {
+        MessageTemplate template = templates.get(key);
+        if (template == null) {
+            return missing(key);
+        }
+        return template.render(placeholders);
+    }
+    
+    /**
+     * Sends a message with the prefix
+     * 
+     * @param sender The recipient
+     * @param key The message key, like "chat.muted"
+     * @param placeholders Pairs of placeholder names and values
+     */
+    public void send(CommandSender sender, String key, Object... placeholders) {
+        Component cached = prefixedStatic.get(key);
+        if (cached != null) {
+            sender.sendMessage(cached);
+            return;
+        }
+        sender.sendMessage(prefix.append(get(key, placeholders)));
+    }
+    
+    public Component getPrefix() {
+        return prefix;
+    }
+    
+    public int size() {
+        return templates.size();
+    }
+    
+    private Component missing(String key) {
+        if (missing.add(key)) {
+            plugin.getLogger().warning("No message found for key '" + key + "'");
+        }
+        return Component.text(key);
+    }
+    
+    /**
+     * Loads a language file from the data folder, saving the bundled copy there first if
+     * there is one
+     */
+    private YamlConfiguration load(String language) {
+        String path = "lang/" + language + ".yml";
+        File file = new File(plugin.getDataFolder(), path);
+        if (!file.exists() && plugin.getResource(path) != null) {
+            plugin.saveResource(path, false);
+        }
+        if (!file.exists()) {
+            plugin.getLogger().warning("Language file " + path + " not found, using the default messages");
+            return new YamlConfiguration();
+        }
+        return YamlConfiguration.loadConfiguration(file);
+    }
+    
+    private YamlConfiguration loadBundled(String language) {
+        InputStream stream = plugin.getResource("lang/" + language + ".yml");
+        if (stream == null) {
+            return new YamlConfiguration();
+        }
+        return YamlConfiguration.loadConfiguration(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    }
+}
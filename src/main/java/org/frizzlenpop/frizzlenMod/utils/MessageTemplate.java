@@ -0,0 +1,186 @@
+package org.frizzlenpop.frizzlenMod.utils;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.ComponentLike;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message from the language file, compiled once into components. Colour codes are parsed
+ * when the template is compiled, and each {placeholder} becomes a slot that remembers the
+ * style it appeared in. Rendering only fills the slots, and a template without placeholders
+ * is rendered once and reused.
+ */
+public final class MessageTemplate {
+    // Placeholders are swapped for private use characters while the colour codes are parsed
+    private static final char SLOT_BASE = '\uE000';
+    private static final int MAX_SLOTS = 256;
+    
+    private final String[] slotNames;
+    private final Object[] parts;
+    private final Component rendered;
+    
+    private MessageTemplate(String[] slotNames, Object[] parts) {
+        this.slotNames = slotNames;
+        this.parts = parts;
+        this.rendered = slotNames.length == 0 ? build(parts, null) : null;
+    }
+    
+    /**
+     * Compiles a template with '&' colour codes and {placeholder} slots
+     * 
+     * @param template The template text
+     * @return The compiled template
+     */
+    public static MessageTemplate compile(String template) {
+        List<String> names = new ArrayList<>();
+        StringBuilder marked = new StringBuilder(template.length());
+        
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            int end = c == '{' ? placeholderEnd(template, i + 1) : -1;
+            if (end < 0) {
+                marked.append(c);
+                i++;
+                continue;
+            }
+            
+            String name = template.substring(i + 1, end);
+            int slot = names.indexOf(name);
+            if (slot < 0 && names.size() < MAX_SLOTS) {
+                slot = names.size();
+                names.add(name);
+            }
+            if (slot < 0) {
+                marked.append(template, i, end + 1);
+            } else {
+                marked.append((char) (SLOT_BASE + slot));
+            }
+            i = end + 1;
+        }
+        
+        List<Object> parts = new ArrayList<>();
+        flatten(LegacyComponentSerializer.legacyAmpersand().deserialize(marked.toString()), Style.empty(), parts);
+        return new MessageTemplate(names.toArray(new String[0]), parts.toArray());
+    }
+    
+    /**
+     * Renders the template
+     * 
+     * @param placeholders Pairs of placeholder names and values. A component value keeps its
+     *                     own style where it has one, anything else is converted to text.
+     * @return The rendered message
+     */
+    public Component render(Object... placeholders) {
+        if (rendered != null) {
+            return rendered;
+        }
+        return build(parts, placeholders);
+    }
+    
+    /**
+     * Checks if the template has no placeholders, so it always renders the same component
+     * 
+     * @return true if the template is static
+     */
+    public boolean isStatic() {
+        return rendered != null;
+    }
+    
+    private Component build(Object[] parts, Object[] placeholders) {
+        if (parts.length == 1 && parts[0] instanceof Component component) {
+            return component;
+        }
+        
+        TextComponent.Builder builder = Component.text();
+        for (Object part : parts) {
+            if (part instanceof Component component) {
+                builder.append(component);
+                continue;
+            }
+            
+            Slot slot = (Slot) part;
+            Object value = find(placeholders, slotNames[slot.index]);
+            if (value instanceof ComponentLike like) {
+                builder.append(like.asComponent().applyFallbackStyle(slot.style));
+            } else if (value != null) {
+                builder.append(Component.text(String.valueOf(value), slot.style));
+            } else {
+                builder.append(Component.text("{" + slotNames[slot.index] + "}", slot.style));
+            }
+        }
+        return builder.build();
+    }
+    
+    private static Object find(Object[] placeholders, String name) {
+        for (int i = 0; i + 1 < placeholders.length; i += 2) {
+            if (name.equals(placeholders[i])) {
+                return placeholders[i + 1];
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Finds the closing brace of a placeholder name made of lowercase letters, digits, '-'
+     * and '_'
+     * 
+     * @return The index of the brace, or -1 if this is not a placeholder
+     */
+    private static int placeholderEnd(String template, int start) {
+        for (int i = start; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '}') {
+                return i > start ? i : -1;
+            }
+            if (!(c >= 'a' && c <= 'z') && !(c >= '0' && c <= '9') && c != '-' && c != '_') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Splits the parsed tree into styled text and slots, each with the full style it
+     * inherited from its parents
+     */
+    private static void flatten(Component component, Style parentStyle, List<Object> parts) {
+        Style style = parentStyle.merge(component.style());
+        if (component instanceof TextComponent text) {
+            String content = text.content();
+            int start = 0;
+            for (int i = 0; i < content.length(); i++) {
+                char c = content.charAt(i);
+                if (c >= SLOT_BASE && c < SLOT_BASE + MAX_SLOTS) {
+                    if (i > start) {
+                        parts.add(Component.text(content.substring(start, i), style));
+                    }
+                    parts.add(new Slot(c - SLOT_BASE, style));
+                    start = i + 1;
+                }
+            }
+            if (start < content.length()) {
+                parts.add(Component.text(content.substring(start), style));
+            }
+        }
+        
+        for (Component child : component.children()) {
+            flatten(child, style, parts);
+        }
+    }
+    
+    private static final class Slot {
+        private final int index;
+        private final Style style;
+        
+        private Slot(int index, Style style) {
+            this.index = index;
+            this.style = style;
+        }
+    }
+}
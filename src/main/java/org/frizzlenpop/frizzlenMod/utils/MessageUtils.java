@@ -1,26 +1,134 @@
 package org.frizzlenpop.frizzlenMod.utils;
 
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.frizzlenpop.frizzlenMod.FrizzlenMod;
+import org.frizzlenpop.frizzlenMod.managers.PermissionAudience;
+import org.frizzlenpop.frizzlenMod.managers.PlayerStateManager;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 public class MessageUtils {
     
-    // Prefix for all plugin messages
-    private static final String PREFIX = ChatColor.DARK_GRAY + "[" + 
-                                        ChatColor.AQUA + "FrizzlenMod" + 
-                                        ChatColor.DARK_GRAY + "] " + 
-                                        ChatColor.RESET;
+    private static final LegacyComponentSerializer LEGACY = LegacyComponentSerializer.legacySection();
     
-    // Staff notification prefix
-    private static final String STAFF_PREFIX = ChatColor.DARK_GRAY + "[" + 
-                                              ChatColor.RED + "Staff" + 
-                                              ChatColor.DARK_GRAY + "] " + 
-                                              ChatColor.RESET;
+    // Prefix for all plugin messages, until the language file is loaded
+    private static final Component PREFIX = LEGACY.deserialize(ChatColor.DARK_GRAY + "[" + 
+                                                               ChatColor.AQUA + "FrizzlenMod" + 
+                                                               ChatColor.DARK_GRAY + "] " + 
+                                                               ChatColor.RESET);
+    
+    // Staff notification prefix, until the language file is loaded
+    private static final Component STAFF_PREFIX = LEGACY.deserialize(ChatColor.DARK_GRAY + "[" + 
+                                                                     ChatColor.RED + "Staff" + 
+                                                                     ChatColor.DARK_GRAY + "] " + 
+                                                                     ChatColor.RESET);
+    private static final String STAFF_PREFIX_KEY = "staff.prefix";
+    
+    // Throttles notifications that repeat, set when the plugin enables
+    private static volatile NotificationService notifications;
+    
+    // The messages of the configured language, set when the plugin enables
+    private static volatile MessageCatalog catalog;
+    
+    /**
+     * Sets the catalog that keyed messages are looked up in
+     * 
+     * @param messageCatalog The catalog, or null when the plugin disables
+     */
+    public static void setMessageCatalog(MessageCatalog messageCatalog) {
+        catalog = messageCatalog;
+    }
+    
+    public static MessageCatalog getMessageCatalog() {
+        return catalog;
+    }
+    
+    /**
+     * Sends a message from the language file with the prefix
+     * 
+     * @param sender The recipient of the message
+     * @param key The message key, like "chat.muted"
+     * @param placeholders Pairs of placeholder names and values
+     */
+    public static void send(CommandSender sender, String key, Object... placeholders) {
+        MessageCatalog messages = catalog;
+        if (messages == null) {
+            sender.sendMessage(PREFIX.append(Component.text(key)));
+        } else {
+            messages.send(sender, key, placeholders);
+        }
+    }
+    
+    /**
+     * Renders a message from the language file without the prefix
+     * 
+     * @param key The message key, like "punishment.unfrozen"
+     * @param placeholders Pairs of placeholder names and values
+     * @return The rendered message
+     */
+    public static Component message(String key, Object... placeholders) {
+        MessageCatalog messages = catalog;
+        return messages == null ? Component.text(key) : messages.get(key, placeholders);
+    }
+    
+    /**
+     * Sends a message from the language file to all online staff members
+     * 
+     * @param key The message key, like "staff.repeating"
+     * @param placeholders Pairs of placeholder names and values
+     */
+    public static void sendStaff(String key, Object... placeholders) {
+        broadcastToPermission(PlayerStateManager.STAFF_PERMISSION, staffPrefix().append(message(key, placeholders)));
+    }
+    
+    /**
+     * Sets the service that throttles repeated notifications
+     * 
+     * @param service The service, or null to send every notification
+     */
+    public static void setNotificationService(NotificationService service) {
+        notifications = service;
+    }
+    
+    public static NotificationService getNotificationService() {
+        return notifications;
+    }
+    
+    /**
+     * Sends a message from the language file that may be triggered many times a second, like
+     * a blocked movement. Repeats of the same key are throttled per player.
+     * 
+     * @param player The recipient of the message
+     * @param key The message key, like "frozen.move"
+     */
+    public static void sendNotification(Player player, String key) {
+        NotificationService service = notifications;
+        if (service == null) {
+            send(player, key);
+        } else {
+            service.send(player, key, message(key));
+        }
+    }
+    
+    /**
+     * Forgets the throttling state of a player who left
+     * 
+     * @param playerUUID The UUID of the player
+     */
+    public static void clearNotifications(UUID playerUUID) {
+        NotificationService service = notifications;
+        if (service != null) {
+            service.evict(playerUUID);
+        }
+    }
     
     /**
      * Sends a formatted message to a CommandSender (player or console)
@@ -29,7 +137,7 @@ public class MessageUtils {
      * @param message The message to send
      */
     public static void sendMessage(CommandSender sender, String message) {
-        sender.sendMessage(PREFIX + ChatColor.translateAlternateColorCodes('&', message));
+        sender.sendMessage(prefix().append(legacy(message)));
     }
     
     /**
@@ -39,7 +147,7 @@ public class MessageUtils {
      * @param message The message to send
      */
     public static void sendErrorMessage(CommandSender sender, String message) {
-        sender.sendMessage(PREFIX + ChatColor.RED + ChatColor.translateAlternateColorCodes('&', message));
+        sender.sendMessage(prefix().append(legacy(message).colorIfAbsent(NamedTextColor.RED)));
     }
     
     /**
@@ -49,7 +157,29 @@ public class MessageUtils {
      * @param message The message to send
      */
     public static void sendSuccessMessage(CommandSender sender, String message) {
-        sender.sendMessage(PREFIX + ChatColor.GREEN + ChatColor.translateAlternateColorCodes('&', message));
+        sender.sendMessage(prefix().append(legacy(message).colorIfAbsent(NamedTextColor.GREEN)));
+    }
+    
+    /**
+     * The prefix of the language file, which is compiled once when the file is loaded
+     */
+    private static Component prefix() {
+        MessageCatalog messages = catalog;
+        return messages == null ? PREFIX : messages.getPrefix();
+    }
+    
+    private static Component staffPrefix() {
+        MessageCatalog messages = catalog;
+        return messages == null ? STAFF_PREFIX : messages.get(STAFF_PREFIX_KEY);
+    }
+    
+    /**
+     * Parses a message with colour codes. Most messages only use ChatColor constants, so the
+     * '&' codes are only translated when there are any.
+     */
+    private static Component legacy(String message) {
+        return LEGACY.deserialize(message.indexOf('&') < 0 ? message
+                : ChatColor.translateAlternateColorCodes('&', message));
     }
     
     /**
@@ -59,13 +189,34 @@ public class MessageUtils {
      * @param message The message to send
      */
     public static void broadcastToPermission(String permission, String message) {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            if (player.hasPermission(permission)) {
-                player.sendMessage(PREFIX + ChatColor.translateAlternateColorCodes('&', message));
+        broadcastToPermission(permission, legacy(message));
+    }
+    
+    /**
+     * Sends a message to all online players with a specific permission
+     * 
+     * @param permission The permission required to receive the message
+     * @param message The message to send, without the prefix
+     */
+    public static void broadcastToPermission(String permission, Component message) {
+        // Rendered once for everyone
+        Component rendered = prefix().append(message);
+        
+        FrizzlenMod plugin = FrizzlenMod.getInstance();
+        PermissionAudience audience = plugin == null ? null : plugin.getPlayerStateManager().getAudience(permission);
+        if (audience != null) {
+            for (Player player : audience.getMembers()) {
+                player.sendMessage(rendered);
+            }
+        } else {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                if (player.hasPermission(permission)) {
+                    player.sendMessage(rendered);
+                }
             }
         }
         // Also send to console
-        Bukkit.getConsoleSender().sendMessage(PREFIX + ChatColor.translateAlternateColorCodes('&', message));
+        Bukkit.getConsoleSender().sendMessage(rendered);
     }
     
     /**
@@ -74,8 +225,7 @@ public class MessageUtils {
      * @param message The message to send
      */
     public static void sendStaffMessage(String message) {
-        broadcastToPermission("frizzlenmod.staff", STAFF_PREFIX + 
-                ChatColor.translateAlternateColorCodes('&', message));
+        broadcastToPermission(PlayerStateManager.STAFF_PERMISSION, staffPrefix().append(legacy(message)));
     }
     
     /**
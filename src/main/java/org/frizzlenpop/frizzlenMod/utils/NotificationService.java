@@ -0,0 +1,140 @@
+package org.frizzlenpop.frizzlenMod.utils;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends notifications that can repeat many times a second, like the message a frozen player
+ * gets for every blocked move. Each player and message key has a cooldown, repeats within it
+ * are counted instead of sent and the next message says how often it happened. Notifications
+ * can go to the action bar, which replaces the previous one instead of filling the chat.
+ */
+public final class NotificationService {
+    private final long cooldownMillis;
+    private final boolean actionBar;
+    private final Map<UUID, Cooldowns> players = new ConcurrentHashMap<>();
+    
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    
+    /**
+     * Creates a service
+     * 
+     * @param cooldownMillis The shortest time between two notifications with the same key
+     * @param actionBar true to send notifications to the action bar instead of the chat
+     */
+    public NotificationService(long cooldownMillis, boolean actionBar) {
+        this.cooldownMillis = Math.max(0, cooldownMillis);
+        this.actionBar = actionBar;
+    }
+    
+    /**
+     * Sends a notification, unless the same key was sent to the player within the cooldown
+     * 
+     * @param player The recipient
+     * @param key Identifies the kind of notification, like "frozen.move"
+     * @param message The message to send
+     */
+    public void send(Player player, String key, Component message) {
+        int repeats = players.computeIfAbsent(player.getUniqueId(), uuid -> new Cooldowns())
+                .acquire(key, System.currentTimeMillis(), cooldownMillis);
+        if (repeats < 0) {
+            suppressed.increment();
+            return;
+        }
+        
+        sent.increment();
+        if (actionBar) {
+            player.sendActionBar(message);
+            return;
+        }
+        
+        MessageCatalog catalog = MessageUtils.getMessageCatalog();
+        Component prefix = catalog == null ? Component.empty() : catalog.getPrefix();
+        if (repeats > 0) {
+            player.sendMessage(prefix.append(message).append(Component.text(" (x" + (repeats + 1) + ")", NamedTextColor.GRAY)));
+        } else {
+            player.sendMessage(prefix.append(message));
+        }
+    }
+    
+    /**
+     * Forgets the cooldowns of a player who left
+     * 
+     * @param playerUUID The UUID of the player
+     */
+    public void evict(UUID playerUUID) {
+        players.remove(playerUUID);
+    }
+    
+    public boolean isActionBar() {
+        return actionBar;
+    }
+    
+    public long getSent() {
+        return sent.sum();
+    }
+    
+    public long getSuppressed() {
+        return suppressed.sum();
+    }
+    
+    public void resetStats() {
+        sent.reset();
+        suppressed.reset();
+    }
+    
+    /**
+     * The cooldowns of one player. A player only ever has a few keys, so they are kept in
+     * small parallel arrays and found by a linear scan.
+     */
+    private static final class Cooldowns {
+        private String[] keys = new String[4];
+        private long[] lastSent = new long[4];
+        private int[] repeats = new int[4];
+        private int size;
+        
+        /**
+         * Claims the key for a send
+         * 
+         * @return The number of repeats skipped since the last send, or -1 if this one must
+         *         be skipped as well
+         */
+        private synchronized int acquire(String key, long now, long cooldownMillis) {
+            int index = 0;
+            while (index < size && !keys[index].equals(key)) {
+                index++;
+            }
+            
+            if (index == size) {
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    lastSent = Arrays.copyOf(lastSent, size * 2);
+                    repeats = Arrays.copyOf(repeats, size * 2);
+                }
+                keys[index] = key;
+                lastSent[index] = now;
+                repeats[index] = 0;
+                size++;
+                return 0;
+            }
+            
+            if (now - lastSent[index] < cooldownMillis) {
+                repeats[index]++;
+                return -1;
+            }
+            
+            int skipped = repeats[index];
+            lastSent[index] = now;
+            repeats[index] = 0;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.frizzlenpop.frizzlenMod.chat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Leetspeak folding through the word filter, digits only stand for letters inside words
+ */
+class TextNormalizerTest {
+    
+    private FilterEngine filter;
+    
+    @BeforeEach
+    void setUp() {
+        filter = FilterEngine.compile(List.of("ass", "tit", "shit"), List.of(), 100_000, null);
+    }
+    
+    @Test
+    void leavesNumbersAlone() {
+        assertEquals("I have 455 coins", filter.mask("I have 455 coins"));
+        assertEquals("area code 717", filter.mask("area code 717"));
+        assertEquals("4 5 5", filter.mask("4 5 5"));
+    }
+    
+    @Test
+    void leavesCoordinatesAlone() {
+        assertEquals("tp 455 64 455", filter.mask("tp 455 64 455"));
+        assertEquals("tp -120 64 300", filter.mask("tp -120 64 300"));
+    }
+    
+    @Test
+    void mapsDigitsInsideWords() {
+        assertEquals("you ***", filter.mask("you a55"));
+        assertEquals("****", filter.mask("sh1t"));
+        assertEquals("***", filter.mask("t1t"));
+        assertEquals("****", filter.mask("$h1t"));
+        assertEquals("*******", filter.mask("s h 1 t"));
+    }
+    
+    @Test
+    void masksWordsNextToNumbers() {
+        assertEquals("1337 ***", filter.mask("1337 ass"));
+    }
+    
+    @Test
+    void canonicalizesWordList() {
+        assertEquals("shit", TextNormalizer.canonicalize("sh1t"));
+        assertEquals("455", TextNormalizer.canonicalize("455"));
+    }
+}